@@ -0,0 +1,21 @@
+package gr.atc.modapto.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.transport.ElasticsearchTransport;
+
+/**
+ * Asynchronous Elasticsearch client for the high-volume writes (event ingest, notification fan-out and status updates).
+ * It shares the transport of the auto-configured blocking client, so connections, credentials and timeouts are the same,
+ * while requests complete on the transport's I/O threads instead of holding a thread until the response arrives
+ */
+@Configuration
+public class ElasticsearchAsyncConfig {
+
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport elasticsearchTransport) {
+        return new ElasticsearchAsyncClient(elasticsearchTransport);
+    }
+}
@@ -0,0 +1,74 @@
+package gr.atc.modapto.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Outbound HTTP client used for every call to Keycloak and the User Manager.
+ * Connections are pooled per route and kept alive, and every request is bounded by explicit timeouts.
+ * The RestTemplate is built through the auto-configured builder, so requests are recorded as 'http.client.requests' metrics
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${outbound.http.connect-timeout:2000}")
+    private long connectTimeout;
+
+    @Value("${outbound.http.read-timeout:5000}")
+    private long readTimeout;
+
+    @Value("${outbound.http.connection-request-timeout:2000}")
+    private long connectionRequestTimeout;
+
+    @Value("${outbound.http.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${outbound.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${outbound.http.idle-timeout:30000}")
+    private long idleTimeout;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient outboundHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                        // Pooled connections idle for longer are checked before they are reused
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(idleTimeout))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate outboundRestTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient outboundHttpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(outboundHttpClient))
+                .build();
+    }
+}
@@ -5,7 +5,9 @@ import java.util.Map;
 
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,11 +15,16 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import gr.atc.modapto.dto.EventDto;
+import gr.atc.modapto.kafka.EventDtoDeserializer;
 
 @Configuration
 @EnableKafka
@@ -32,6 +39,9 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.auto-offset-reset}")
     private String kafkaOffsetStrategy;
 
+    @Value("${kafka.listener.concurrency:1}")
+    private int listenerConcurrency;
+
     @Bean
     public ConsumerFactory<String, EventDto> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -39,17 +49,12 @@ public class KafkaConfig {
         props.put(ConsumerConfig.GROUP_ID_CONFIG, kafkaGroupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, kafkaOffsetStrategy);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-
-        // Configure advanced JSON deserialization
-        JsonDeserializer<EventDto> jsonDeserializer = new JsonDeserializer<>(EventDto.class, false);
-        jsonDeserializer.addTrustedPackages("gr.atc.modapto.dto", "gr.atc.modapto.model");
-        jsonDeserializer.setUseTypeHeaders(true);
-
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, EventDtoDeserializer.class);
 
+        // Streaming deserialization of events - Results payload is kept raw until it is accessed
         return new DefaultKafkaConsumerFactory<>(props,
             new ErrorHandlingDeserializer<>(new StringDeserializer()),
-            new ErrorHandlingDeserializer<>(jsonDeserializer));
+            new ErrorHandlingDeserializer<>(new EventDtoDeserializer()));
     }
 
     @Bean
@@ -57,9 +62,39 @@ public class KafkaConfig {
         ConcurrentKafkaListenerContainerFactory<String, EventDto> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        // Deliver all records of a poll together so that they can be bulk processed
+        factory.setBatchListener(true);
+        // Number of consumers - Each batch is further parallelized in key-ordered processing lanes
+        factory.setConcurrency(listenerConcurrency);
+        // Offsets of a batch are committed once, after its events and notifications are stored
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EventDto> retryKafkaListenerContainerFactory() {
+        // Record listener for the retry topics - Failed events are retried one by one with backoff
+        ConcurrentKafkaListenerContainerFactory<String, EventDto> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
         return factory;
     }
 
+    @Bean
+    public ProducerFactory<String, EventDto> eventProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaBrokers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, EventDto> eventKafkaTemplate() {
+        return new KafkaTemplate<>(eventProducerFactory());
+    }
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
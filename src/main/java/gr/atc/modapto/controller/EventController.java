@@ -5,17 +5,21 @@ import java.util.List;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import gr.atc.modapto.dto.EventDto;
 import gr.atc.modapto.dto.EventMappingsDto;
 import gr.atc.modapto.dto.PaginatedResultsDto;
+import gr.atc.modapto.service.EventReplayService;
 import gr.atc.modapto.service.interfaces.IEventService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -34,6 +38,8 @@ public class EventController {
 
     private final IEventService eventService;
 
+    private final EventReplayService eventReplayService;
+
     /**
      * Retrieve all events
      * 
@@ -155,6 +161,28 @@ public class EventController {
         return new ResponseEntity<>(BaseAppResponse.success(null, "Event mapping updated successfully"), HttpStatus.OK);
     }
 
+    /**
+     * Replay events that exhausted all retries from the dead-letter topic to their original topics
+     *
+     * @param batchSize: Maximum number of events to replay
+     * @return Number of replayed events
+     */
+    @Operation(summary = "Replay dead-letter events" , security = @SecurityRequirement(name = "bearerToken"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Dead-letter events replayed successfully!"),
+            @ApiResponse(responseCode = "400", description = "Validation Error"),
+            @ApiResponse(responseCode = "401", description = "Authentication process failed!"),
+            @ApiResponse(responseCode = "403", description = "Invalid authorization parameters. Check JWT or CSRF Token"),
+            @ApiResponse(responseCode = "500", description = "Internal error in event processing")
+    })
+    @PreAuthorize(value = "hasRole('SUPER_ADMIN')")
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<BaseAppResponse<Integer>> replayDeadLetterEvents(
+                @RequestParam(required = false, defaultValue = "100") @Min(1) @Max(1000) int batchSize) {
+        int replayedEvents = eventReplayService.replayDeadLetterEvents(batchSize);
+        return new ResponseEntity<>(BaseAppResponse.success(replayedEvents, "Dead-letter events replayed successfully!"), HttpStatus.OK);
+    }
+
     /**
      * Create pagination parameters
      *
@@ -3,9 +3,11 @@ package gr.atc.modapto.controller;
 import java.util.Arrays;
 import java.util.List;
 
+import gr.atc.modapto.enums.NotificationType;
 import gr.atc.modapto.validation.ValidNotificationType;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.apache.commons.lang3.EnumUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -218,6 +220,23 @@ public class NotificationController {
         return new ResponseEntity<>(BaseAppResponse.success(notificationService.retrieveUnreadNotificationsPerUserId(userId), "Unread notifications retrieved successfully!"), HttpStatus.OK);
     }
 
+    /**
+     * Retrieve the number of unread notifications for a specific user
+     *
+     * @param userId: Id of user
+     * @return Number of unread notifications
+     */
+    @Operation(summary = "Retrieve the number of unread notifications for a specific user", security = @SecurityRequirement(name = "bearerToken"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Unread notifications count retrieved successfully!"),
+            @ApiResponse(responseCode = "401", description = "Authentication process failed!"),
+            @ApiResponse(responseCode = "403", description = "Invalid authorization parameters. Check JWT or CSRF Token")
+    })
+    @GetMapping("/user/{userId}/unread/count")
+    public ResponseEntity<BaseAppResponse<Long>> getUnreadNotificationCountPerUser(@PathVariable String userId) {
+        return new ResponseEntity<>(BaseAppResponse.success(notificationService.retrieveUnreadNotificationCount(userId), "Unread notifications count retrieved successfully!"), HttpStatus.OK);
+    }
+
     /**
      * Retrieve Notification By Id
      *
@@ -253,6 +272,34 @@ public class NotificationController {
         return new ResponseEntity<>(BaseAppResponse.success(null, "Notification status updated successfully"), HttpStatus.OK);
     }
 
+    /**
+     * Mark all unread notifications of a user as read, optionally scoped by Notification Type (Event/Assignment) and Module
+     *
+     * @param userId: Id of user
+     * @param notificationType: Notification Type (Optional)
+     * @param module: Module (Optional)
+     * @return Number of notifications marked as read
+     */
+    @Operation(summary = "Mark all unread notifications of a user as read (optionally per Notification Type and Module)", security = @SecurityRequirement(name = "bearerToken"))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications marked as read successfully"),
+            @ApiResponse(responseCode = "400", description = "Validation Error - Invalid notification type"),
+            @ApiResponse(responseCode = "401", description = "Authentication process failed!"),
+            @ApiResponse(responseCode = "403", description = "Invalid authorization parameters. Check JWT or CSRF Token")
+    })
+    @PutMapping("/user/{userId}/notificationStatus")
+    public ResponseEntity<BaseAppResponse<Long>> markAllNotificationsAsRead(@PathVariable String userId,
+                                                                           @RequestParam(required = false) String notificationType,
+                                                                           @RequestParam(required = false) String module) {
+        if (notificationType != null && !EnumUtils.isValidEnumIgnoreCase(NotificationType.class, notificationType))
+            return new ResponseEntity<>(BaseAppResponse.error("Invalid notification type"), HttpStatus.BAD_REQUEST);
+
+        // Notification types are stored with their display value
+        String storedNotificationType = notificationType != null ? EnumUtils.getEnumIgnoreCase(NotificationType.class, notificationType).toString() : null;
+        long updated = notificationService.markAllNotificationsAsRead(userId, storedNotificationType, module);
+        return new ResponseEntity<>(BaseAppResponse.success(updated, "Notifications marked as read successfully"), HttpStatus.OK);
+    }
+
     /**
      * Delete Notification by ID
      *
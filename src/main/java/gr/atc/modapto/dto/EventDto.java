@@ -1,9 +1,11 @@
 package gr.atc.modapto.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import gr.atc.modapto.util.RawJsonUtils;
 import gr.atc.modapto.util.UtcOffsetDateTimeDeserializer;
 import gr.atc.modapto.validation.ValidPriority;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -59,5 +61,64 @@ public class EventDto {
     private String topic;
 
     @JsonProperty("results")
-    private JsonNode results;
+    private volatile JsonNode results;
+
+    /*
+     * Raw 'results' payload as received from Kafka - Parsed into 'results' only when accessed
+     * Events are shared across processing lanes and pipeline stages, so both fields are only switched under the event's lock
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Schema(hidden = true)
+    private volatile byte[] rawResults;
+
+    /**
+     * Results of the event. When the event was received with a raw payload, the JSON tree is built once on first access
+     *
+     * @return JsonNode : Results of the event or null if not present
+     */
+    public JsonNode getResults() {
+        JsonNode parsedResults = results;
+        if (parsedResults != null || rawResults == null)
+            return parsedResults;
+
+        synchronized (this) {
+            if (results == null && rawResults != null) {
+                // Results are published before the raw payload is released, so concurrent readers always find one of them
+                results = RawJsonUtils.readTree(rawResults);
+                rawResults = null;
+            }
+            return results;
+        }
+    }
+
+    public synchronized void setResults(JsonNode results) {
+        this.results = results;
+        this.rawResults = null;
+    }
+
+    public synchronized void setRawResults(byte[] rawResults) {
+        this.rawResults = rawResults;
+    }
+
+    /**
+     * Retrieve a top-level field of the results as text. Raw payloads are streamed without building the JSON tree
+     *
+     * @param fieldName : Name of the field
+     * @return String : Text value of the field or null if missing
+     */
+    public String extractResultsField(String fieldName) {
+        JsonNode parsedResults = results;
+        if (parsedResults == null) {
+            byte[] raw = rawResults;
+            if (raw != null)
+                return RawJsonUtils.extractTextField(raw, fieldName);
+            parsedResults = results;
+        }
+
+        if (parsedResults != null && parsedResults.has(fieldName) && !parsedResults.get(fieldName).isNull())
+            return parsedResults.get(fieldName).asText();
+        return null;
+    }
 }
\ No newline at end of file
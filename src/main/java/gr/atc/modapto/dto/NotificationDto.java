@@ -67,4 +67,7 @@ public class NotificationDto{
     @ValidPriority
     @JsonProperty("priority")
     private String priority;
+
+    @JsonProperty("occurrences")
+    private Integer occurrences;
 }
@@ -0,0 +1,33 @@
+package gr.atc.modapto.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Change of the occurrences of a coalesced event notification", title = "Notification Occurrences")
+public class NotificationOccurrencesDto {
+
+    public static final String OCCURRENCES_CHANGED = "OCCURRENCES_CHANGED";
+
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("relatedEvent")
+    private String relatedEvent;
+
+    @JsonProperty("module")
+    private String module;
+
+    @JsonProperty("messageStatus")
+    private String messageStatus;
+
+    @JsonProperty("occurrences")
+    private Integer occurrences;
+}
@@ -0,0 +1,10 @@
+package gr.atc.modapto.dto;
+
+/**
+ * Recipient of a notification fan-out - Combined with the shared notification template when the per-user notification is stored
+ *
+ * @param notificationId : ID of the recipient's notification - Null to assign a random one
+ * @param userId : User ID
+ * @param user : Display name of the user
+ */
+public record NotificationRecipient(String notificationId, String userId, String user) {}
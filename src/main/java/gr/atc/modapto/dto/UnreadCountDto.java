@@ -0,0 +1,30 @@
+package gr.atc.modapto.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Change of the number of unread notifications of a user", title = "Unread Count")
+public class UnreadCountDto {
+
+    public static final String UNREAD_COUNT_CHANGED = "UNREAD_COUNT_CHANGED";
+
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty("userId")
+    private String userId;
+
+    @JsonProperty("delta")
+    private Long delta;
+
+    @JsonProperty("unreadCount")
+    private Long unreadCount;
+}
@@ -0,0 +1,11 @@
+package gr.atc.modapto.enums;
+
+/*
+ * Enum for Notification Storage Mode
+ * COPIES: The full notification is stored per recipient
+ * SHARED_BODY: The body of a fan-out is stored once and each recipient gets a lightweight receipt referring to it
+ */
+public enum NotificationStorageMode {
+    COPIES,
+    SHARED_BODY
+}
@@ -2,19 +2,22 @@ package gr.atc.modapto.events;
 
 import gr.atc.modapto.dto.EventMappingsDto;
 import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.dto.NotificationRecipient;
 import gr.atc.modapto.exception.CustomExceptions.ModelMappingException;
 import gr.atc.modapto.service.interfaces.IEventService;
 import gr.atc.modapto.service.interfaces.INotificationService;
+import gr.atc.modapto.util.DeterministicIdUtils;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Handles application events
+ * Handles application events - Invoked by the workers of the bounded Notification Pipeline
  */
 @Component
 @RequiredArgsConstructor
@@ -28,7 +31,6 @@ public class AppEventListener {
     private static final String SUPER_ADMIN_ROLE = "SUPER_ADMIN";
 
     @EventListener
-    @Async(value = "asyncPoolTaskExecutor")
     public void handleNewUserMappingsEvent(NewNotificationMappingsEvent appEvent) {
         String topic = appEvent.getTopic();
         log.debug("Creating new Event-Mapping for Topic: {}", topic);
@@ -45,28 +47,31 @@ public class AppEventListener {
     }
 
     @EventListener
-    @Async(value = "asyncPoolTaskExecutor")
     public void handleNewNotificationEvent(NewNotificationEvent appEvent) {
         NotificationDto eventNotification = appEvent.getNotification();
         try {
+            // Display names of all recipients are resolved up front, instead of one lookup per recipient
+            Map<String, String> fullNames = notificationService.retrieveUserFullNames(appEvent.getUserIds().stream()
+                    .filter(userId -> !userId.equals(SUPER_ADMIN_ROLE))
+                    .distinct()
+                    .toList());
+            // The notification is a shared template and is never modified - Each recipient is an immutable record rendered at storage
+            List<NotificationRecipient> recipients = new ArrayList<>(appEvent.getUserIds().size());
             for (String userId : appEvent.getUserIds()) {
-                eventNotification.setUserId(userId);
-                if (userId.equals(SUPER_ADMIN_ROLE)) {
-                    eventNotification.setUser(userId);
-                } else {
-                    String fullName = notificationService.retrieveUserFullName(userId);
-                    eventNotification.setUser(fullName != null ? fullName : userId);
-                }
-
-                String notificationId = notificationService.storeNotification(eventNotification);
-                log.debug("Notification stored successfully for User: {}", eventNotification.getUser());
-                if (notificationId == null) {
-                    log.error("Notification could not be stored in DB for User with ID: {}", userId);
-                    return;
-                }
+                // Notifications of an event have deterministic IDs per user, so re-deliveries only create the missing ones
+                String notificationId = eventNotification.getRelatedEvent() != null
+                        ? DeterministicIdUtils.notificationId(eventNotification.getRelatedEvent(), userId)
+                        : null;
+                String user = userId.equals(SUPER_ADMIN_ROLE) ? userId : fullNames.getOrDefault(userId, userId);
+                recipients.add(new NotificationRecipient(notificationId, userId, user));
             }
+
+            // Failures are propagated, so that the related Kafka record is not acknowledged
+            List<String> notificationIds = notificationService.storeNotifications(eventNotification, recipients);
+            log.debug("{} notifications stored successfully", notificationIds.size());
         } catch (ModelMappingException e) {
             log.error("Failed to create new Notification for selected Users");
+            throw e;
         }
     }
 }
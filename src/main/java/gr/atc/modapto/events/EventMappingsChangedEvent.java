@@ -0,0 +1,14 @@
+package gr.atc.modapto.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class EventMappingsChangedEvent extends ApplicationEvent {
+    private final String topic;
+
+    public EventMappingsChangedEvent(Object source, String topic) {
+        super(source);
+        this.topic = topic;
+    }
+}
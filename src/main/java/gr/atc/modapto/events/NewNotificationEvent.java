@@ -6,6 +6,9 @@ import org.springframework.context.ApplicationEvent;
 
 import java.util.List;
 
+/*
+ * Notification of an event for its recipients - The notification is a template shared with the serialized WebSocket message and must not be modified
+ */
 @Getter
 public class NewNotificationEvent extends ApplicationEvent {
     private final NotificationDto notification;
@@ -0,0 +1,10 @@
+package gr.atc.modapto.events;
+
+import org.springframework.context.ApplicationEvent;
+
+public class UserDirectoryChangedEvent extends ApplicationEvent {
+
+    public UserDirectoryChangedEvent(Object source) {
+        super(source);
+    }
+}
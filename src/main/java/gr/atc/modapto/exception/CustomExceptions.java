@@ -39,4 +39,13 @@ public class CustomExceptions {
             super(message);
         }
     }
+
+    /*
+     * Exception thrown when an incoming event could not be processed and must be retried
+     */
+    public static class EventProcessingException extends RuntimeException{
+        public EventProcessingException(String message){
+            super(message);
+        }
+    }
 }
@@ -131,4 +131,9 @@ public class GlobalExceptionHandler {
     public ResponseEntity<BaseAppResponse<String>> handleUnauthorizedAssignmentUpdateException(@NotNull UnauthorizedAssignmentUpdateException ex) {
         return new ResponseEntity<>(BaseAppResponse.error("Unauthorized assignment action", ex.getMessage()), HttpStatus.UNAUTHORIZED);
     }
+
+    @ExceptionHandler(EventProcessingException.class)
+    public ResponseEntity<BaseAppResponse<String>> handleEventProcessingException(@NotNull EventProcessingException ex) {
+        return new ResponseEntity<>(BaseAppResponse.error("Internal error in event processing", ex.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
 }
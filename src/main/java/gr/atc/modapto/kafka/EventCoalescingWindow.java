@@ -0,0 +1,113 @@
+package gr.atc.modapto.kafka;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import gr.atc.modapto.dto.EventDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalescing window of repeated events per module, event type, priority and topic - Disabled unless a window is configured.
+ * The first event of a window is notified as usual, while repeats within the window only
+ * increase the occurrences of its notification instead of creating new notifications.
+ * Events are never coalesced across priorities, and events without an event type are never coalesced, as they cannot be told apart.
+ * A window whose first event could not be notified is released, so that the next repeat opens a new window.
+ */
+@Slf4j
+@Component
+public class EventCoalescingWindow {
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private final long windowMillis;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /*
+     * Open window - Leading event and number of occurrences within the window
+     */
+    private record Window(String leaderEventId, long openedAt, AtomicInteger occurrences) {}
+
+    /**
+     * Occurrence of an event within its window
+     *
+     * @param key : Coalescing key of the window
+     * @param leaderEventId : ID of the first event of the window
+     * @param occurrences : Total occurrences within the window, including this one
+     * @param leader : Whether the event opened the window
+     */
+    public record Occurrence(String key, String leaderEventId, int occurrences, boolean leader) {}
+
+    public EventCoalescingWindow(@Value("${kafka.coalescing.window:0}") long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Register an event into its coalescing window
+     *
+     * @param event : Incoming event with its ID
+     * @return Occurrence : Leading event of the window and total occurrences
+     */
+    public Occurrence register(EventDto event) {
+        if (!isEnabled() || event.getEventType() == null)
+            return new Occurrence(null, event.getId(), 1, true);
+
+        long now = System.currentTimeMillis();
+        String coalescingKey = coalescingKey(event);
+        Window candidate = new Window(event.getId(), now, new AtomicInteger(0));
+        Window window = windows.compute(coalescingKey,
+                (key, existing) -> existing == null || now - existing.openedAt() >= windowMillis ? candidate : existing);
+
+        int occurrences = window.occurrences().incrementAndGet();
+        return new Occurrence(coalescingKey, window.leaderEventId(), occurrences, window == candidate);
+    }
+
+    /**
+     * Release the window of an event that could not be notified - Windows opened since by another event are kept
+     *
+     * @param key : Coalescing key of the window
+     * @param leaderEventId : ID of the first event of the window
+     */
+    public void release(String key, String leaderEventId) {
+        if (key == null)
+            return;
+
+        windows.computeIfPresent(key, (windowKey, window) -> window.leaderEventId().equals(leaderEventId) ? null : window);
+    }
+
+    /**
+     * Remove windows that have expired
+     */
+    public void evictExpired() {
+        if (!isEnabled())
+            return;
+
+        long now = System.currentTimeMillis();
+        windows.values().removeIf(window -> now - window.openedAt() >= windowMillis);
+    }
+
+    /**
+     * Remove all windows
+     */
+    void clear() {
+        windows.clear();
+    }
+
+    /**
+     * @return boolean : Whether coalescing is enabled
+     */
+    public boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    /*
+     * Helper method to generate the coalescing key of an event
+     */
+    private String coalescingKey(EventDto event) {
+        return event.getModule() + KEY_SEPARATOR + event.getEventType() + KEY_SEPARATOR + event.getPriority() + KEY_SEPARATOR + event.getTopic();
+    }
+}
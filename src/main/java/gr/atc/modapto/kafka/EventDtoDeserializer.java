@@ -0,0 +1,93 @@
+package gr.atc.modapto.kafka;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import gr.atc.modapto.dto.EventDto;
+import gr.atc.modapto.util.UtcOffsetDateTimeDeserializer;
+
+/**
+ * Streaming Kafka deserializer of Events. Envelope fields are parsed directly from the token stream,
+ * while the 'results' payload is kept as raw bytes and is only parsed when it is accessed.
+ */
+public class EventDtoDeserializer implements Deserializer<EventDto> {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final UtcOffsetDateTimeDeserializer timestampDeserializer = new UtcOffsetDateTimeDeserializer();
+
+    @Override
+    public EventDto deserialize(String topic, byte[] data) {
+        if (data == null)
+            return null;
+
+        try (JsonParser parser = FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new SerializationException("Event from topic '" + topic + "' is not a JSON object");
+
+            EventDto event = new EventDto();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if (valueToken == JsonToken.VALUE_NULL)
+                    continue;
+
+                switch (fieldName) {
+                    case "eventId" -> event.setId(readString(parser, fieldName));
+                    case "description" -> event.setDescription(readString(parser, fieldName));
+                    case "module" -> event.setModule(readString(parser, fieldName));
+                    case "moduleName" -> event.setModuleName(readString(parser, fieldName));
+                    // Deserialization context is not used by the timestamp deserializer
+                    case "timestamp" -> event.setTimestamp(timestampDeserializer.deserialize(requireScalar(parser, fieldName), null));
+                    case "priority" -> event.setPriority(readString(parser, fieldName));
+                    case "eventType" -> event.setEventType(readString(parser, fieldName));
+                    case "sourceComponent" -> event.setSourceComponent(readString(parser, fieldName));
+                    case "smartService" -> event.setSmartService(readString(parser, fieldName));
+                    case "topic" -> event.setTopic(readString(parser, fieldName));
+                    case "results" -> event.setRawResults(readRawValue(parser, data));
+                    default -> parser.skipChildren();
+                }
+            }
+            return event;
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Unable to deserialize event from topic '" + topic + "' - " + e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Helper method to read the value of a string field
+     */
+    private static String readString(JsonParser parser, String fieldName) throws IOException {
+        return requireScalar(parser, fieldName).getValueAsString();
+    }
+
+    /*
+     * Helper method to reject objects and arrays as values of envelope fields - The parser would otherwise read their nested fields as envelope fields
+     */
+    private static JsonParser requireScalar(JsonParser parser, String fieldName) {
+        if (!parser.currentToken().isScalarValue())
+            throw new SerializationException("Field '" + fieldName + "' must be a scalar value but was " + parser.currentToken());
+        return parser;
+    }
+
+    /*
+     * Helper method to copy the raw bytes of the current value without building it
+     */
+    private byte[] readRawValue(JsonParser parser, byte[] data) throws IOException {
+        int start = (int) parser.currentTokenLocation().getByteOffset();
+        if (parser.currentToken().isScalarValue())
+            // Complete the token so that the location points after its end
+            parser.getText();
+        else
+            parser.skipChildren();
+        int end = (int) parser.currentLocation().getByteOffset();
+        return Arrays.copyOfRange(data, start, end);
+    }
+}
@@ -0,0 +1,65 @@
+package gr.atc.modapto.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.DltHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.stereotype.Component;
+
+import gr.atc.modapto.dto.EventDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking retries of events that failed to be processed by the main event listener.
+ * Each failed attempt forwards the event to the next retry topic with an exponentially increasing backoff,
+ * until attempts are exhausted and the event is parked in the dead-letter topic for later replay.
+ */
+@Slf4j
+@Component
+public class EventRetryHandler {
+
+    private final KafkaMessageHandler kafkaMessageHandler;
+
+    public EventRetryHandler(KafkaMessageHandler kafkaMessageHandler) {
+        this.kafkaMessageHandler = kafkaMessageHandler;
+    }
+
+    /**
+     * Kafka consumer method to retry a failed event - Rethrown failures forward it to the next retry topic
+     *
+     * @param retriedRecord : Failed event along with the headers of its original topic
+     */
+    @RetryableTopic(
+            attempts = "${kafka.retry.attempts}",
+            backoff = @Backoff(delayExpression = "${kafka.retry.initial-delay}",
+                    multiplierExpression = "${kafka.retry.multiplier}",
+                    maxDelayExpression = "${kafka.retry.max-delay}"),
+            kafkaTemplate = "eventKafkaTemplate",
+            listenerContainerFactory = "retryKafkaListenerContainerFactory",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            retryTopicSuffix = "-retry",
+            dltTopicSuffix = "-dlt")
+    @KafkaListener(topics = "${kafka.retry.topic}", groupId = "${spring.kafka.consumer.group-id}", containerFactory = "retryKafkaListenerContainerFactory")
+    public void retry(ConsumerRecord<String, EventDto> retriedRecord) {
+        ConsumerRecord<String, EventDto> originalRecord = FailedEventPublisher.restoreOriginalRecord(retriedRecord);
+        log.debug("Retrying event from topic '{}' with offset {} (retry topic: '{}')", originalRecord.topic(), originalRecord.offset(), retriedRecord.topic());
+        kafkaMessageHandler.processRetriedRecord(originalRecord);
+    }
+
+    /**
+     * Events that exhausted all retries are parked in the dead-letter topic until they are replayed
+     *
+     * @param deadLetter : Event that could not be processed
+     */
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, EventDto> deadLetter) {
+        log.error("Event from topic '{}' with offset {} exhausted all retries and was moved to dead-letter topic '{}' - Cause: {}",
+                FailedEventPublisher.headerValue(deadLetter.headers(), FailedEventPublisher.ORIGINAL_TOPIC_HEADER),
+                FailedEventPublisher.headerValue(deadLetter.headers(), FailedEventPublisher.ORIGINAL_OFFSET_HEADER),
+                deadLetter.topic(),
+                FailedEventPublisher.headerValue(deadLetter.headers(), KafkaHeaders.EXCEPTION_MESSAGE));
+    }
+}
@@ -0,0 +1,115 @@
+package gr.atc.modapto.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+
+import gr.atc.modapto.dto.EventDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Diverts events that failed to be processed to the retry topics, so that the main partitions keep flowing.
+ * The coordinates of the original record are carried as headers through all retry topics and the dead-letter topic.
+ */
+@Slf4j
+@Component
+public class FailedEventPublisher {
+
+    public static final String ORIGINAL_TOPIC_HEADER = "modapto_original-topic";
+
+    public static final String ORIGINAL_PARTITION_HEADER = "modapto_original-partition";
+
+    public static final String ORIGINAL_OFFSET_HEADER = "modapto_original-offset";
+
+    private static final long PUBLISH_TIMEOUT_SECONDS = 10;
+
+    private final KafkaTemplate<String, EventDto> eventKafkaTemplate;
+
+    @Value("${kafka.retry.topic}")
+    private String retryTopic;
+
+    public FailedEventPublisher(KafkaTemplate<String, EventDto> eventKafkaTemplate) {
+        this.eventKafkaTemplate = eventKafkaTemplate;
+    }
+
+    /**
+     * Publish a failed record to the retry topics along with failure headers
+     *
+     * @param failedRecord : Record that failed to be processed
+     * @param failure : Cause of the failure
+     * @return boolean : True if the record was published (or there is nothing to retry), false otherwise
+     */
+    public boolean publish(ConsumerRecord<String, EventDto> failedRecord, Exception failure) {
+        if (failedRecord.value() == null) {
+            log.error("Kafka record from topic '{}' with offset {} has no value and cannot be retried", failedRecord.topic(), failedRecord.offset());
+            return true;
+        }
+
+        ProducerRecord<String, EventDto> retryRecord = new ProducerRecord<>(retryTopic, failedRecord.key(), failedRecord.value());
+        Headers headers = retryRecord.headers();
+        headers.add(ORIGINAL_TOPIC_HEADER, toBytes(failedRecord.topic()));
+        headers.add(ORIGINAL_PARTITION_HEADER, toBytes(String.valueOf(failedRecord.partition())));
+        headers.add(ORIGINAL_OFFSET_HEADER, toBytes(String.valueOf(failedRecord.offset())));
+        headers.add(KafkaHeaders.EXCEPTION_FQCN, toBytes(failure.getClass().getName()));
+        headers.add(KafkaHeaders.EXCEPTION_MESSAGE, toBytes(String.valueOf(failure.getMessage())));
+
+        try {
+            eventKafkaTemplate.send(retryRecord).get(PUBLISH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.warn("Event from topic '{}' with offset {} diverted to retry topic '{}' - Cause: {}", failedRecord.topic(), failedRecord.offset(), retryTopic, failure.getMessage());
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Unable to publish failed event to retry topic '{}' - Error: {}", retryTopic, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while publishing failed event to retry topic '{}'", retryTopic);
+            return false;
+        }
+    }
+
+    /**
+     * Restore the original coordinates of a record consumed from the retry or dead-letter topics
+     *
+     * @param retriedRecord : Record consumed from a retry or the dead-letter topic
+     * @return ConsumerRecord<String, EventDto> : Record with the topic, partition and offset it was originally consumed from
+     */
+    public static ConsumerRecord<String, EventDto> restoreOriginalRecord(ConsumerRecord<String, EventDto> retriedRecord) {
+        String originalTopic = headerValue(retriedRecord.headers(), ORIGINAL_TOPIC_HEADER);
+        if (originalTopic == null)
+            return retriedRecord;
+
+        String originalPartition = headerValue(retriedRecord.headers(), ORIGINAL_PARTITION_HEADER);
+        String originalOffset = headerValue(retriedRecord.headers(), ORIGINAL_OFFSET_HEADER);
+        return new ConsumerRecord<>(originalTopic,
+                originalPartition != null ? Integer.parseInt(originalPartition) : retriedRecord.partition(),
+                originalOffset != null ? Long.parseLong(originalOffset) : retriedRecord.offset(),
+                retriedRecord.key(),
+                retriedRecord.value());
+    }
+
+    /**
+     * Retrieve the value of the last header with the given name
+     *
+     * @param headers : Record headers
+     * @param name : Header name
+     * @return String : Header value or null if not present
+     */
+    public static String headerValue(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
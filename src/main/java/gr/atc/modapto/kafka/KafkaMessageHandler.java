@@ -3,22 +3,35 @@ package gr.atc.modapto.kafka;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import gr.atc.modapto.enums.MessagePriority;
-import gr.atc.modapto.events.NewNotificationEvent;
-import gr.atc.modapto.events.NewNotificationMappingsEvent;
+import gr.atc.modapto.pipeline.NotificationPipeline;
 import gr.atc.modapto.service.ModaptoModuleService;
+import gr.atc.modapto.service.TopicRecipientsView;
+import gr.atc.modapto.service.TopicRecipientsView.TopicRecipients;
 import org.apache.commons.lang3.EnumUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaAdmin;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -26,18 +39,28 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import gr.atc.modapto.dto.EventDto;
 import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.dto.NotificationOccurrencesDto;
 import gr.atc.modapto.enums.NotificationStatus;
 import gr.atc.modapto.enums.NotificationType;
+import gr.atc.modapto.exception.CustomExceptions.EventProcessingException;
 import gr.atc.modapto.exception.CustomExceptions.ModelMappingException;
 import gr.atc.modapto.service.interfaces.IEventService;
 import gr.atc.modapto.service.interfaces.INotificationService;
-import gr.atc.modapto.service.WebSocketService;
+import gr.atc.modapto.util.DeterministicIdUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
 public class KafkaMessageHandler {
 
+    public static final String EVENT_LISTENER_ID = "modapto-event-listener";
+
+    private static final String SUPPRESSED_REDELIVERIES_METRIC = "modapto.events.redeliveries.suppressed";
+
+    private static final String COALESCED_EVENTS_METRIC = "modapto.events.coalesced";
+
     private static final String GLOBAL_EVENT_MAPPINGS = "ALL";
     private static final String SUPER_ADMIN_ROLE = "SUPER_ADMIN";
 
@@ -47,6 +70,9 @@ public class KafkaMessageHandler {
     @Value("${use-case.pilot}")
     private String pilot;
 
+    @Value("${kafka.processing.persistence-timeout:60000}")
+    private long persistenceTimeout;
+
     private static final String MQTT_KAFKA_TOPIC = "modapto-mqtt-topics";
 
     private static final String DT_CREATION_TOPIC = "modapto-module-creation";
@@ -63,38 +89,325 @@ public class KafkaMessageHandler {
 
     private final ModaptoModuleService modaptoModuleService;
 
-    private final WebSocketService webSocketService;
-
     private final ObjectMapper objectMapper;
 
-    private final ApplicationEventPublisher eventPublisher;
+    private final OrderedProcessingLanes processingLanes;
+
+    private final NotificationPipeline notificationPipeline;
+
+    private final FailedEventPublisher failedEventPublisher;
+
+    private final EventCoalescingWindow coalescingWindow;
 
-    public KafkaMessageHandler(KafkaAdmin kafkaAdmin, IEventService eventService, INotificationService notificationService, WebSocketService webSocketService, ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper, ModaptoModuleService modaptoModuleService) {
+    private final TopicRecipientsView topicRecipientsView;
+
+    private final Counter suppressedRedeliveries;
+
+    private final Counter coalescedRepeats;
+
+    /*
+     * Repeats of a leading event within its coalescing window - Latest repeat, new occurrences of the batch, total occurrences of the window
+     * and indexes of the repeats of the batch, including re-delivered ones
+     */
+    private record CoalescedOccurrences(EventDto latestEvent, int newOccurrences, int totalOccurrences, List<Integer> repeatIndexes) {}
+
+    public KafkaMessageHandler(KafkaAdmin kafkaAdmin, IEventService eventService, INotificationService notificationService, ObjectMapper objectMapper, ModaptoModuleService modaptoModuleService, OrderedProcessingLanes processingLanes, NotificationPipeline notificationPipeline, FailedEventPublisher failedEventPublisher, EventCoalescingWindow coalescingWindow, TopicRecipientsView topicRecipientsView, MeterRegistry meterRegistry) {
         kafkaAdmin.setAutoCreate(true);
         this.kafkaAdmin = kafkaAdmin;
         this.eventService = eventService;
         this.notificationService = notificationService;
-        this.webSocketService = webSocketService;
-        this.eventPublisher = eventPublisher;
         this.objectMapper = objectMapper;
         this.modaptoModuleService = modaptoModuleService;
+        this.processingLanes = processingLanes;
+        this.notificationPipeline = notificationPipeline;
+        this.failedEventPublisher = failedEventPublisher;
+        this.suppressedRedeliveries = Counter.builder(SUPPRESSED_REDELIVERIES_METRIC)
+                .description("Number of re-delivered events that were already stored and not fanned out again")
+                .register(meterRegistry);
+        this.coalescingWindow = coalescingWindow;
+        this.topicRecipientsView = topicRecipientsView;
+        this.coalescedRepeats = Counter.builder(COALESCED_EVENTS_METRIC)
+                .description("Number of repeated events coalesced into the notification of the first event of their window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Kafka consumer method to receive a batch of JSON Event messages - From Kafka Producers
+     * Events of the same poll are stored with a single bulk request, while Event Mappings and recipients are resolved once per topic.
+     * Records are processed in parallel lanes keyed by Module (or message key for MQTT topics), so that events of the same module remain in order.
+     * Records that fail to be processed are diverted to the retry topics, so that the partition is not blocked by them.
+     * Offsets of the batch are acknowledged only after its events and their notifications are stored
+     *
+     * @param records: Events occurred in MODAPTO along with their Kafka metadata
+     * @param acknowledgment: Manual acknowledgment of the batch
+     */
+    @KafkaListener(id = EVENT_LISTENER_ID, topics = "#{'${kafka.topics}'.split(',')}", groupId = "${spring.kafka.consumer.group-id}")
+    public void consume(List<ConsumerRecord<String, EventDto>> records, Acknowledgment acknowledgment) {
+        // Replayed dead-letter events keep the coordinates of the record they were originally consumed from
+        List<ConsumerRecord<String, EventDto>> originalRecords = records.stream()
+                .map(FailedEventPublisher::restoreOriginalRecord)
+                .toList();
+        SortedMap<Integer, RuntimeException> failedRecords = processRecords(originalRecords, false);
+
+        // Divert failed records to the retry topics - Only records that cannot be diverted are redelivered
+        for (Map.Entry<Integer, RuntimeException> failedRecord : failedRecords.entrySet()) {
+            if (!failedEventPublisher.publish(originalRecords.get(failedRecord.getKey()), failedRecord.getValue()))
+                // Offsets are committed up to the lowest record that could not be diverted, which will be redelivered along with the following records
+                throw new BatchListenerFailedException("Unable to process or divert Kafka record - Offsets are committed up to the failed record", failedRecord.getKey());
+        }
+
+        // Commit the offsets of the whole batch
+        acknowledgment.acknowledge();
     }
 
     /**
-     * Kafka consumer method to receive a JSON Event message - From Kafka Producers
+     * Process a single event consumed from the retry topics. Any failure is propagated so that the record
+     * is forwarded to the next retry topic or finally to the dead-letter topic
      *
-     * @param event: Event occurred in MODAPTO
+     * @param retriedRecord : Event along with the Kafka metadata of the topic it was originally consumed from
+     */
+    public void processRetriedRecord(ConsumerRecord<String, EventDto> retriedRecord) {
+        SortedMap<Integer, RuntimeException> failedRecords = processRecords(List.of(retriedRecord), true);
+        if (!failedRecords.isEmpty())
+            throw failedRecords.get(failedRecords.firstKey());
+    }
+
+    /*
+     * Helper method to process a batch of records. Returns the indexes of the records that failed or were skipped along with the cause.
+     * Events already stored are treated as re-deliveries: their missing notifications are created but not pushed again, unless they are retried after a failure
+     */
+    private SortedMap<Integer, RuntimeException> processRecords(List<ConsumerRecord<String, EventDto>> records, boolean retried) {
+        // Validate, refactor and complete incoming events - In parallel lanes
+        EventDto[] preparedEvents = new EventDto[records.size()];
+        SortedMap<Integer, RuntimeException> failedRecords = new TreeMap<>(processingLanes.process(records.size(),
+                index -> resolveLaneKey(records.get(index)),
+                index -> preparedEvents[index] = prepareIncomingEvent(records.get(index))));
+
+        List<Integer> eventIndexes = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            if (preparedEvents[i] != null && !failedRecords.containsKey(i))
+                eventIndexes.add(i);
+        }
+
+        if (eventIndexes.isEmpty())
+            return failedRecords;
+
+        // Skip events that are already stored and store the rest - Bulk
+        Set<Integer> redeliveredEventIndexes = new HashSet<>();
+        List<Integer> newEventIndexes = new ArrayList<>(eventIndexes.size());
+        List<String> eventIds;
+        try {
+            Set<String> existingEventIds = eventService.retrieveExistingEventIds(eventIndexes.stream().map(index -> preparedEvents[index].getId()).toList());
+            for (Integer index : eventIndexes) {
+                if (existingEventIds.contains(preparedEvents[index].getId()))
+                    redeliveredEventIndexes.add(index);
+                else
+                    newEventIndexes.add(index);
+            }
+            eventIds = newEventIndexes.isEmpty() ? List.of() : eventService.storeIncomingEvents(newEventIndexes.stream().map(index -> preparedEvents[index]).toList());
+        } catch (ModelMappingException e) {
+            log.error("ModelMapping exception occurred when trying to store incoming events - {}", e.getMessage());
+            eventIndexes.forEach(index -> failedRecords.put(index, e));
+            return failedRecords;
+        } catch (RuntimeException e) {
+            log.error("Unable to store incoming events in DB - {}", e.getMessage());
+            eventIndexes.forEach(index -> failedRecords.put(index, e));
+            return failedRecords;
+        }
+
+        List<Integer> storedEventIndexes = new ArrayList<>(redeliveredEventIndexes);
+        for (int i = 0; i < newEventIndexes.size(); i++) {
+            String eventId = i < eventIds.size() ? eventIds.get(i) : null;
+            EventDto event = preparedEvents[newEventIndexes.get(i)];
+            if (eventId == null) {
+                log.error("Event could not be stored in DB. Data: {}", event);
+                failedRecords.put(newEventIndexes.get(i), new EventProcessingException("Event could not be stored"));
+                continue;
+            }
+            event.setId(eventId);
+            storedEventIndexes.add(newEventIndexes.get(i));
+        }
+        // Keep the original order of the records, so that events of the same lane are notified in order
+        storedEventIndexes.sort(null);
+        log.debug("Stored {} out of {} received events", storedEventIndexes.size() - redeliveredEventIndexes.size(), records.size());
+
+        if (!redeliveredEventIndexes.isEmpty() && !retried) {
+            log.info("Suppressed re-delivery of {} already stored events", redeliveredEventIndexes.size());
+            suppressedRedeliveries.increment(redeliveredEventIndexes.size());
+        }
+
+        // Repeats within the coalescing window only increase the occurrences of the notification of the first event - Retries are always notified
+        Map<String, CoalescedOccurrences> coalescedOccurrences = new LinkedHashMap<>();
+        Map<Integer, EventCoalescingWindow.Occurrence> leadingOccurrences = new HashMap<>();
+        List<Integer> notifiedEventIndexes = retried ? storedEventIndexes
+                : coalesceRepeatedEvents(storedEventIndexes, preparedEvents, redeliveredEventIndexes, coalescedOccurrences, leadingOccurrences);
+
+        // Recipients of each topic are served by the materialized view and notified - In parallel lanes
+        List<CompletableFuture<Void>> persistedNotifications = new ArrayList<>(Collections.nCopies(records.size(), null));
+        processingLanes.process(notifiedEventIndexes.size(),
+                index -> resolveLaneKey(records.get(notifiedEventIndexes.get(index))),
+                index -> {
+                    EventDto event = preparedEvents[notifiedEventIndexes.get(index)];
+                    boolean pushToWebSocket = retried || !redeliveredEventIndexes.contains(notifiedEventIndexes.get(index));
+                    persistedNotifications.set(notifiedEventIndexes.get(index),
+                            notifyRecipientsOfEvent(event, topicRecipientsView.getRecipients(event.getTopic()), pushToWebSocket));
+                })
+                .forEach((index, failure) -> failedRecords.put(notifiedEventIndexes.get(index), failure));
+
+        // Records are only acknowledged once their notifications are stored for all recipients
+        awaitPersistedNotifications(persistedNotifications, failedRecords);
+
+        // Windows of leading events that could not be notified are released and their repeats are diverted along with them
+        releaseFailedLeaders(leadingOccurrences, coalescedOccurrences, failedRecords);
+
+        // Occurrences are updated after the notifications of leading events of this batch are stored
+        updateCoalescedOccurrences(coalescedOccurrences);
+        return failedRecords;
+    }
+
+    /*
+     * Helper method to register stored events into their coalescing windows. Returns the indexes of the events that must be notified,
+     * while repeats are aggregated per leading event. Re-delivered repeats were already counted and add no new occurrences
+     */
+    private List<Integer> coalesceRepeatedEvents(List<Integer> storedEventIndexes, EventDto[] preparedEvents, Set<Integer> redeliveredEventIndexes,
+                                                 Map<String, CoalescedOccurrences> coalescedOccurrences,
+                                                 Map<Integer, EventCoalescingWindow.Occurrence> leadingOccurrences) {
+        if (!coalescingWindow.isEnabled())
+            return storedEventIndexes;
+
+        coalescingWindow.evictExpired();
+        List<Integer> notifiedEventIndexes = new ArrayList<>(storedEventIndexes.size());
+        for (Integer index : storedEventIndexes) {
+            EventDto event = preparedEvents[index];
+            EventCoalescingWindow.Occurrence occurrence = coalescingWindow.register(event);
+            if (occurrence.leader()) {
+                notifiedEventIndexes.add(index);
+                leadingOccurrences.put(index, occurrence);
+            } else {
+                int newOccurrences = redeliveredEventIndexes.contains(index) ? 0 : 1;
+                coalescedOccurrences.merge(occurrence.leaderEventId(),
+                        new CoalescedOccurrences(event, newOccurrences, occurrence.occurrences(), List.of(index)),
+                        (existing, repeat) -> new CoalescedOccurrences(repeat.latestEvent(), existing.newOccurrences() + repeat.newOccurrences(),
+                                Math.max(existing.totalOccurrences(), repeat.totalOccurrences()),
+                                Stream.concat(existing.repeatIndexes().stream(), repeat.repeatIndexes().stream()).toList()));
+            }
+        }
+
+        int coalescedEvents = storedEventIndexes.size() - notifiedEventIndexes.size();
+        if (coalescedEvents > 0) {
+            log.debug("Coalesced {} repeated events into {} notifications", coalescedEvents, coalescedOccurrences.size());
+            coalescedRepeats.increment(coalescedEvents);
+        }
+        return notifiedEventIndexes;
+    }
+
+    /*
+     * Helper method to release the coalescing windows of the leading events of the batch that failed. Their repeats of the batch are marked as failed too,
+     * so that they are diverted to the retry topics and notified on their own instead of being folded into a notification that does not exist
+     */
+    private void releaseFailedLeaders(Map<Integer, EventCoalescingWindow.Occurrence> leadingOccurrences, Map<String, CoalescedOccurrences> coalescedOccurrences,
+                                      SortedMap<Integer, RuntimeException> failedRecords) {
+        leadingOccurrences.forEach((index, occurrence) -> {
+            if (!failedRecords.containsKey(index))
+                return;
+
+            coalescingWindow.release(occurrence.key(), occurrence.leaderEventId());
+            CoalescedOccurrences repeats = coalescedOccurrences.remove(occurrence.leaderEventId());
+            if (repeats == null)
+                return;
+
+            log.warn("Leading event {} could not be notified - Diverting its {} coalesced repeats", occurrence.leaderEventId(), repeats.repeatIndexes().size());
+            EventProcessingException cause = new EventProcessingException("Leading event " + occurrence.leaderEventId() + " of coalescing window could not be notified");
+            repeats.repeatIndexes().forEach(repeatIndex -> failedRecords.putIfAbsent(repeatIndex, cause));
+        });
+    }
+
+    /*
+     * Helper method to increase the occurrences of the notifications of each leading event and push the new count through WebSockets
+     */
+    private void updateCoalescedOccurrences(Map<String, CoalescedOccurrences> coalescedOccurrences) {
+        coalescedOccurrences.forEach((leaderEventId, occurrences) -> {
+            if (occurrences.newOccurrences() == 0)
+                return;
+
+            EventDto latestEvent = occurrences.latestEvent();
+            try {
+                long updatedNotifications = notificationService.incrementNotificationOccurrences(leaderEventId, occurrences.newOccurrences());
+                log.debug("Increased occurrences of {} notifications of event {} by {}", updatedNotifications, leaderEventId, occurrences.newOccurrences());
+
+                NotificationOccurrencesDto occurrencesChange = NotificationOccurrencesDto.builder()
+                        .type(NotificationOccurrencesDto.OCCURRENCES_CHANGED)
+                        .relatedEvent(leaderEventId)
+                        .module(latestEvent.getModule())
+                        .messageStatus(latestEvent.getEventType())
+                        .occurrences(occurrences.totalOccurrences())
+                        .build();
+                TopicRecipients recipients = topicRecipientsView.getRecipients(latestEvent.getTopic());
+                notificationPipeline.submitPush(objectMapper.writeValueAsString(occurrencesChange), latestEvent.getPriority(), latestEvent.getModule(),
+                        resolveWebSocketTopics(recipients.userRoles()));
+            } catch (JsonProcessingException e) {
+                log.error("Unable to convert occurrences change to string message - {}", e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("Unable to update occurrences of notifications of event {} - {}", leaderEventId, e.getMessage());
+            }
+        });
+    }
+
+    /*
+     * Helper method to wait until the notifications of the batch are stored. Records whose notifications failed or timed out are marked as failed
+     */
+    private void awaitPersistedNotifications(List<CompletableFuture<Void>> persistedNotifications, SortedMap<Integer, RuntimeException> failedRecords) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(persistenceTimeout);
+        for (int index = 0; index < persistedNotifications.size(); index++) {
+            CompletableFuture<Void> persisted = persistedNotifications.get(index);
+            if (persisted == null)
+                continue;
+
+            try {
+                persisted.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                log.error("Notifications of record with index {} could not be stored - {}", index, e.getCause().getMessage());
+                failedRecords.put(index, e.getCause() instanceof RuntimeException runtimeException ? runtimeException : new EventProcessingException(e.getCause().getMessage()));
+            } catch (TimeoutException e) {
+                log.error("Notifications of record with index {} were not stored within {} ms", index, persistenceTimeout);
+                failedRecords.put(index, new EventProcessingException("Notifications were not stored within timeout"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedRecords.put(index, new EventProcessingException("Interrupted while waiting for notifications to be stored"));
+            }
+        }
+    }
+
+    /*
+     * Helper method to determine the processing lane key of a record - Module ID or Message Key for MODAPTO's MQTT Topics
+     */
+    private String resolveLaneKey(ConsumerRecord<String, EventDto> consumerRecord) {
+        if (consumerRecord.topic().equals(MQTT_KAFKA_TOPIC) || consumerRecord.value() == null)
+            return consumerRecord.key();
+        return consumerRecord.value().getModule();
+    }
+
+    /*
+     * Helper method to validate, refactor and complete an incoming event. Returns null if the event must be discarded
      */
-    @KafkaListener(topics = "#{'${kafka.topics}'.split(',')}", groupId = "${spring.kafka.consumer.group-id}")
-    public void consume(EventDto event, @Header(KafkaHeaders.RECEIVED_TOPIC) String topic, @Header(value = KafkaHeaders.RECEIVED_KEY, required = false) String messageKey) {
+    private EventDto prepareIncomingEvent(ConsumerRecord<String, EventDto> consumerRecord) {
+        EventDto event = consumerRecord.value();
+        String topic = consumerRecord.topic();
+
+        // Deserialization failures are delivered as null values
+        if (event == null) {
+            log.error("Kafka message error - Unable to deserialize event from topic '{}'. Message is discarded!", topic);
+            return null;
+        }
+
         // Validate that same essential variables are present
         if (!isValidEvent(event)) {
             log.error("Kafka message error - Either priority or production module or Topic are missing / invalid from the event. Message is discarded! Data: {}", event);
-            return;
+            return null;
         }
 
         // Refactor and complete incoming event
-        refactorAndCompleteEvent(event, topic, messageKey);
+        refactorAndCompleteEvent(event, topic, consumerRecord.key());
 
         log.debug("Event Received: {}", event);
 
@@ -102,55 +415,58 @@ public class KafkaMessageHandler {
         String moduleName = locateModaptoModuleName(event, topic);
         if (moduleName == null) {
             log.error("Unable to locate Modapto Module with ID: {}", event.getModule());
-            return;
+            return null;
         }
         event.setModuleName(moduleName);
         log.debug("Located name for MODAPTO Module with ID: {} is '{}'", event.getModule(), moduleName);
 
-        // Ensure that no ID is set for new incoming events
-        if (event.getId() != null){
-            event.setId(null); // Ensure that no ID is set for new incoming events
-        }
+        // Derive the ID from the Kafka coordinates, so that re-deliveries of the same record are upserted
+        event.setId(DeterministicIdUtils.eventId(topic, consumerRecord.partition(), consumerRecord.offset()));
+        return event;
+    }
 
+    /*
+     * Helper method to generate the notification of an event and submit it to the pipeline that stores it per recipient and sends it through WebSockets.
+     * Returns a future completed once the notification is stored for all recipients
+     */
+    private CompletableFuture<Void> notifyRecipientsOfEvent(EventDto event, TopicRecipients recipients, boolean pushToWebSocket) {
+        List<String> userRolesPerEventType = recipients.userRoles();
         try {
-            // Store incoming event
-            String eventId = eventService.storeIncomingEvent(event);
-            if (eventId == null) {
-                log.error("Event could not be stored in DB. Message is discarded!");
-                return;
-            }
-            event.setId(eventId);
-
-            // Retrieve the user roles that will receive event notification and the userIds correlated with that roles by the EventMappings for that specific Topic
-            List<String> userRolesPerEventType = eventService.retrieveUserRolesPerTopic(event.getTopic());
-            List<String> userIds = determineRecipientsOfNotification(event, userRolesPerEventType);
-
-            // Create and store the notification
+            // Create the notification
             NotificationDto eventNotification = generateNotificationFromEvent(event);
             log.debug("Notification created: {}", eventNotification);
-            
-            // Store notifications per each User - Async
-            createNotificationForUsers(eventNotification, userIds);
 
-            // Remove userId from notification and convert Object to JSON message
-            eventNotification.setUserId(null);
+            // Convert Object to JSON message before it is handed over to the per-user storage
             String notificationMessage = objectMapper.writeValueAsString(eventNotification);
-            if (userRolesPerEventType.isEmpty() || userRolesPerEventType.contains(GLOBAL_EVENT_MAPPINGS))
-                // Send notification globally to pilot users
-                webSocketService.notifyUsersAndRolesViaWebSocket(notificationMessage, pilot.toUpperCase());
-            else
-                // Send notification through WebSockets to all user roles in the plant
-                userRolesPerEventType.forEach(role -> webSocketService.notifyUsersAndRolesViaWebSocket(notificationMessage, role));
-
-            // Send notification through WebSockets for Super-Admins
-            webSocketService.notifyUsersAndRolesViaWebSocket(notificationMessage, SUPER_ADMIN_ROLE);
+
+            // Re-delivered events were already pushed through WebSockets - Their missing notifications are only created
+            List<String> websocketTopics = pushToWebSocket ? resolveWebSocketTopics(userRolesPerEventType) : List.of();
+
+            // Store notifications per each User and notify through WebSockets - Bounded pipeline
+            return notificationPipeline.submitNotification(eventNotification, recipients.userIds(), notificationMessage, websocketTopics);
         } catch (JsonProcessingException e) {
             log.error("Unable to convert Notification to string message - {}", e.getMessage());
-        } catch (ModelMappingException e) {
-            log.error("ModelMapping exception occurred when trying to store incoming event / retrieve current event mapping - {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
         }
     }
 
+    /*
+     * Helper method to determine the WebSocket topics that are notified for the user roles of a topic
+     */
+    private List<String> resolveWebSocketTopics(List<String> userRolesPerEventType) {
+        List<String> websocketTopics = new ArrayList<>();
+        if (userRolesPerEventType.isEmpty() || userRolesPerEventType.contains(GLOBAL_EVENT_MAPPINGS))
+            // Send notification globally to pilot users
+            websocketTopics.add(pilot.toUpperCase());
+        else
+            // Send notification through WebSockets to all user roles in the plant
+            websocketTopics.addAll(userRolesPerEventType);
+
+        // Send notification through WebSockets for Super-Admins
+        websocketTopics.add(SUPER_ADMIN_ROLE);
+        return websocketTopics;
+    }
+
     /*
      * Helper method to refactor Event Fields in not in proper format and add any potential missing fields
      */
@@ -175,15 +491,9 @@ public class KafkaMessageHandler {
      * Helper method to locate the Modapto Module name and inject it into notification
      */
     private String locateModaptoModuleName(EventDto event, String topic) {
-        // If Module just created parse the results and get the 'name' field
+        // If Module just created get the 'name' field from the results - Streamed without building the results tree
         if (topic.equalsIgnoreCase(DT_CREATION_TOPIC)) {
-            JsonNode results = event.getResults();
-            if (results != null && results.has(DT_NAME_FIELD) && !results.get(DT_NAME_FIELD).isNull()) {
-                return results.get(DT_NAME_FIELD).asText();
-            } else {
-                // There is no name field
-                return null;
-            }
+            return event.extractResultsField(DT_NAME_FIELD);
             // Otherwise locate it from PKB
         } else if (topic.equalsIgnoreCase(DT_DELETION_TOPIC)){
             return event.getModule();
@@ -193,63 +503,6 @@ public class KafkaMessageHandler {
     }
 
 
-    /*
-     * Helper method to locate the UserIDs that will receive the Notification
-     */
-    private List<String> determineRecipientsOfNotification(EventDto event, List<String> userRolesPerEventType) {
-        List<String> relatedUserIds = new ArrayList<>();
-
-        // Include Super-Admin UserID
-        relatedUserIds.add(SUPER_ADMIN_ROLE);
-
-        // Handle empty mappings case - Creating mapping and retrieve all pilot users
-        if (userRolesPerEventType.isEmpty()) {
-            log.debug("No mappings exist for topic '{}'. All users in {} plant will be informed!",
-                    event.getTopic(), pilot.toUpperCase());
-
-            // Request creation of mapping - Async
-            createDefaultNotificationMapping(event.getTopic());
-
-            relatedUserIds.addAll(notificationService.retrieveUserIdsPerPilot(pilot.toUpperCase()));
-        } else if (userRolesPerEventType.contains(GLOBAL_EVENT_MAPPINGS)) { // Handle "ALL" role mapping - Send notification globally to pilot users
-            relatedUserIds.addAll(notificationService.retrieveUserIdsPerPilot(pilot.toUpperCase()));
-        } else { // Handle specific roles
-            relatedUserIds.addAll(notificationService.retrieveUserIdsPerRoles(userRolesPerEventType));
-        }
-
-        return relatedUserIds;
-    }
-
-    /*
-     * Method to publish Application event to create a new Event Mapping
-     */
-    private void createDefaultNotificationMapping(String topic) {
-        Thread.startVirtualThread(() -> {
-            try {
-                NewNotificationMappingsEvent appEvent = new NewNotificationMappingsEvent(this, topic);
-                log.debug("Publishing event to create a new Event Mapping for topic: {}", topic);
-                eventPublisher.publishEvent(appEvent);
-            } catch (Exception e) {
-                log.error("Error while creating a new event mapping: {}", e.getMessage(), e);
-            }
-        });
-    }
-
-    /*
-     * Method to publish Application event to create a new Notification for specific UserIDs
-     */
-    private void createNotificationForUsers(NotificationDto notification, List<String> userIds) {
-        Thread.startVirtualThread(() -> {
-            try {
-                NewNotificationEvent appEvent = new NewNotificationEvent(this, notification, userIds);
-                log.debug("Publishing event to create Notifications for all Users");
-                eventPublisher.publishEvent(appEvent);
-            } catch (Exception e) {
-                log.error("Error while publishing notification event: {}", e.getMessage(), e);
-            }
-        });
-    }
-
     /*
      * Helper method to generate a Notification from Event
      */
@@ -267,6 +520,7 @@ public class KafkaMessageHandler {
                 .timestamp(LocalDateTime.now().withNano(0).atOffset(ZoneOffset.UTC))
                 .priority(event.getPriority())
                 .description(event.getDescription())
+                .occurrences(1)
                 .build();
     }
 
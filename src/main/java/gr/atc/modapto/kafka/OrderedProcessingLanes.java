@@ -0,0 +1,117 @@
+package gr.atc.modapto.kafka;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Processing lanes used to handle the records of a Kafka batch in parallel on virtual threads.
+ * Records are hashed by a key onto a fixed number of lanes, so records sharing the same key
+ * are always processed sequentially and in their original order.
+ */
+@Slf4j
+@Component
+public class OrderedProcessingLanes {
+
+    private final int lanes;
+
+    private final ExecutorService laneExecutor;
+
+    public OrderedProcessingLanes(@Value("${kafka.processing.lanes:8}") int lanes) {
+        this.lanes = Math.max(1, lanes);
+        this.laneExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Process a batch of items in parallel lanes. When an item fails, the remaining items of its lane are skipped
+     * so that items of the same key are never processed out of order
+     *
+     * @param size : Number of items in the batch
+     * @param keyExtractor : Ordering key of the item in the given index
+     * @param task : Processing task of the item in the given index
+     * @return SortedMap<Integer, RuntimeException> : Indexes of the items that failed or were skipped along with the failure of their lane
+     */
+    public SortedMap<Integer, RuntimeException> process(int size, IntFunction<String> keyExtractor, IntConsumer task) {
+        SortedMap<Integer, RuntimeException> unprocessedItems = new TreeMap<>();
+        if (size == 0)
+            return unprocessedItems;
+
+        // Assign the items to lanes according to their key
+        List<List<Integer>> laneItems = new ArrayList<>(lanes);
+        for (int lane = 0; lane < lanes; lane++)
+            laneItems.add(new ArrayList<>());
+        for (int index = 0; index < size; index++)
+            laneItems.get(Math.floorMod(Objects.hashCode(keyExtractor.apply(index)), lanes)).add(index);
+
+        List<List<Integer>> activeLanes = laneItems.stream().filter(items -> !items.isEmpty()).toList();
+
+        // No need to switch threads when all items share the same lane
+        if (activeLanes.size() == 1) {
+            unprocessedItems.putAll(processLane(activeLanes.getFirst(), task));
+            return unprocessedItems;
+        }
+
+        List<Future<Map<Integer, RuntimeException>>> laneResults = activeLanes.stream()
+                .map(items -> laneExecutor.submit(() -> processLane(items, task)))
+                .toList();
+
+        for (int lane = 0; lane < laneResults.size(); lane++) {
+            try {
+                unprocessedItems.putAll(laneResults.get(lane).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while waiting for processing lanes to complete");
+                markUnprocessed(activeLanes.get(lane), new IllegalStateException("Processing lane interrupted"), unprocessedItems);
+            } catch (ExecutionException e) {
+                log.error("Unexpected error in processing lane - {}", e.getMessage());
+                markUnprocessed(activeLanes.get(lane), new IllegalStateException("Processing lane failed", e.getCause()), unprocessedItems);
+            }
+        }
+        return unprocessedItems;
+    }
+
+    /*
+     * Helper method to process the items of a lane sequentially
+     */
+    private Map<Integer, RuntimeException> processLane(List<Integer> indexes, IntConsumer task) {
+        Map<Integer, RuntimeException> unprocessedItems = new HashMap<>();
+        for (int i = 0; i < indexes.size(); i++) {
+            try {
+                task.accept(indexes.get(i));
+            } catch (RuntimeException e) {
+                log.error("Processing of record with index {} failed. Remaining records of the lane are skipped - Error: {}", indexes.get(i), e.getMessage());
+                markUnprocessed(indexes.subList(i, indexes.size()), e, unprocessedItems);
+                break;
+            }
+        }
+        return unprocessedItems;
+    }
+
+    /*
+     * Helper method to mark a set of items as unprocessed due to a failure
+     */
+    private void markUnprocessed(List<Integer> indexes, RuntimeException failure, Map<Integer, RuntimeException> unprocessedItems) {
+        indexes.forEach(index -> unprocessedItems.put(index, failure));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        laneExecutor.shutdown();
+    }
+}
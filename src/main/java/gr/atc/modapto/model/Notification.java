@@ -1,7 +1,10 @@
 package gr.atc.modapto.model;
 
+import java.time.OffsetDateTime;
+
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
@@ -42,4 +45,14 @@ public class Notification extends Message {
 
     @Field(type = FieldType.Keyword, name = "messageStatus")
     private String messageStatus;
+
+    @Field(type = FieldType.Integer, name = "occurrences")
+    private Integer occurrences;
+
+    // Shared-body storage: ID of the NotificationBody this receipt refers to - Null for full copies
+    @Field(type = FieldType.Keyword, name = "body")
+    private String body;
+
+    @Field(type = FieldType.Date, name = "readAt", format = DateFormat.strict_date_optional_time)
+    private OffsetDateTime readAt;
 }
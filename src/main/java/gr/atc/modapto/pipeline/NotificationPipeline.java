@@ -0,0 +1,274 @@
+package gr.atc.modapto.pipeline;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.enums.MessagePriority;
+import gr.atc.modapto.events.NewNotificationEvent;
+import gr.atc.modapto.events.NewNotificationMappingsEvent;
+import gr.atc.modapto.kafka.KafkaMessageHandler;
+import gr.atc.modapto.service.WebSocketService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, staged pipeline that handles the work following the ingestion of an event:
+ * creation of missing Event Mappings, storage of per-user notifications and WebSocket push.
+ * Notifications of the same module are stored and pushed in their submission order, as they are consumed by the processing lanes,
+ * while HIGH and MID events overtake queued LOW events of other modules.
+ * When the downstream queues pass the high-water mark, the Kafka event listener is paused
+ * and is resumed once they drop below the low-water mark.
+ */
+@Slf4j
+@Component
+public class NotificationPipeline {
+
+    private static final String QUEUE_DEPTH_METRIC = "modapto.pipeline.queue.depth";
+
+    private static final String QUEUE_CAPACITY_METRIC = "modapto.pipeline.queue.capacity";
+
+    private static final String LATENCY_METRIC = "modapto.pipeline.latency";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final WebSocketService webSocketService;
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+
+    private final int highWaterMark;
+
+    private final int lowWaterMark;
+
+    private final AtomicBoolean listenerPaused = new AtomicBoolean(false);
+
+    private final PipelineStage<String> mappingStage;
+
+    private final PipelineStage<NotificationTask> storeStage;
+
+    private final PipelineStage<PushTask> pushStage;
+
+    private final Map<MessagePriority, Timer> storeLatencies = new EnumMap<>(MessagePriority.class);
+
+    private final Map<MessagePriority, Timer> pushLatencies = new EnumMap<>(MessagePriority.class);
+
+    /*
+     * Notification that must be stored for each recipient and then pushed to the WebSocket topics
+     */
+    private record NotificationTask(NotificationDto notification, MessagePriority priority, List<String> userIds, String message,
+                                    List<String> websocketTopics, CompletableFuture<Void> stored, long submittedAt) {
+        String module() {
+            return notification.getModule();
+        }
+    }
+
+    /*
+     * Message that must be pushed to the WebSocket topics
+     */
+    private record PushTask(String message, MessagePriority priority, String module, List<String> websocketTopics, long submittedAt) {}
+
+    public NotificationPipeline(ApplicationEventPublisher eventPublisher,
+                                WebSocketService webSocketService,
+                                KafkaListenerEndpointRegistry listenerRegistry,
+                                MeterRegistry meterRegistry,
+                                @Value("${notification.pipeline.mappings.queue-capacity:100}") int mappingsQueueCapacity,
+                                @Value("${notification.pipeline.store.queue-capacity:1000}") int storeQueueCapacity,
+                                @Value("${notification.pipeline.store.workers:8}") int storeWorkers,
+                                @Value("${notification.pipeline.push.queue-capacity:2000}") int pushQueueCapacity,
+                                @Value("${notification.pipeline.push.workers:2}") int pushWorkers,
+                                @Value("${notification.pipeline.high-water-mark:0.8}") double highWaterMarkRatio,
+                                @Value("${notification.pipeline.low-water-mark:0.3}") double lowWaterMarkRatio) {
+        this.eventPublisher = eventPublisher;
+        this.webSocketService = webSocketService;
+        this.listenerRegistry = listenerRegistry;
+
+        // Watermarks are expressed as ratios of the total downstream capacity
+        int downstreamCapacity = Math.max(1, storeQueueCapacity) + Math.max(1, pushQueueCapacity);
+        this.highWaterMark = Math.max(1, (int) (downstreamCapacity * highWaterMarkRatio));
+        this.lowWaterMark = Math.min(highWaterMark - 1, (int) (downstreamCapacity * lowWaterMarkRatio));
+
+        // Latency from submission until storage and until WebSocket push per priority class
+        for (MessagePriority priority : MessagePriority.values()) {
+            storeLatencies.put(priority, registerLatencyTimer(meterRegistry, "store", priority));
+            pushLatencies.put(priority, registerLatencyTimer(meterRegistry, "push", priority));
+        }
+
+        // Store and push stages are ordered by module, the ordering key of the processing lanes
+        this.mappingStage = new PipelineStage<>("mappings", mappingsQueueCapacity, 1, topic -> topic, topic -> 0, this::createDefaultMapping, () -> {});
+        this.pushStage = new PipelineStage<>("push", pushQueueCapacity, pushWorkers, PushTask::module, task -> task.priority().ordinal(),
+                this::pushNotification, this::applyBackpressure);
+        this.storeStage = new PipelineStage<>("store", storeQueueCapacity, storeWorkers, NotificationTask::module, task -> task.priority().ordinal(),
+                this::storeNotifications, this::applyBackpressure);
+
+        for (PipelineStage<?> stage : List.of(mappingStage, storeStage, pushStage)) {
+            Gauge.builder(QUEUE_DEPTH_METRIC, stage, PipelineStage::depth)
+                    .description("Number of queued items per notification pipeline stage")
+                    .tag("stage", stage.getName())
+                    .register(meterRegistry);
+            Gauge.builder(QUEUE_CAPACITY_METRIC, stage, PipelineStage::getCapacity)
+                    .description("Capacity of the queue per notification pipeline stage")
+                    .tag("stage", stage.getName())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Submit a notification to be stored for each recipient and then pushed through WebSockets
+     * Blocks while the store stage is full. Notifications of the same module keep their submission order, otherwise higher priorities go first
+     *
+     * @param notification : Notification generated by an Event
+     * @param userIds : Recipients of the notification
+     * @param message : Serialized notification that will be pushed through WebSockets
+     * @param websocketTopics : WebSocket topics that will be notified
+     * @return CompletableFuture<Void> : Completed once the notification is stored for all recipients
+     */
+    public CompletableFuture<Void> submitNotification(NotificationDto notification, List<String> userIds, String message, List<String> websocketTopics) {
+        CompletableFuture<Void> stored = new CompletableFuture<>();
+        MessagePriority priority = resolvePriority(notification.getPriority());
+        submit(storeStage, new NotificationTask(notification, priority, userIds, message, websocketTopics, stored, System.nanoTime()));
+        applyBackpressure();
+        return stored;
+    }
+
+    /**
+     * Submit a message to be pushed through WebSockets without storing any notification
+     * Blocks while the push stage is full
+     *
+     * @param message : Serialized message that will be pushed through WebSockets
+     * @param priority : Priority of the related event
+     * @param module : Module of the related event - Messages of the same module are pushed in submission order
+     * @param websocketTopics : WebSocket topics that will be notified
+     */
+    public void submitPush(String message, String priority, String module, List<String> websocketTopics) {
+        submit(pushStage, new PushTask(message, resolvePriority(priority), module, websocketTopics, System.nanoTime()));
+        applyBackpressure();
+    }
+
+    /**
+     * Submit the creation of a default Event Mapping for a topic
+     *
+     * @param topic : Topic without Event Mappings
+     */
+    public void submitDefaultMappingCreation(String topic) {
+        submit(mappingStage, topic);
+    }
+
+    /**
+     * Current queue depth per stage of the pipeline
+     *
+     * @return Map<String, Integer> : Queue depth per stage name
+     */
+    public Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> queueDepths = new LinkedHashMap<>();
+        for (PipelineStage<?> stage : List.of(mappingStage, storeStage, pushStage))
+            queueDepths.put(stage.getName(), stage.depth());
+        return queueDepths;
+    }
+
+    /*
+     * Helper method to resolve the priority class of a notification - Unknown priorities are handled as LOW
+     */
+    private static MessagePriority resolvePriority(String priority) {
+        if (priority == null)
+            return MessagePriority.LOW;
+        return EnumUtils.getEnumIgnoreCase(MessagePriority.class, priority.trim(), MessagePriority.LOW);
+    }
+
+    /*
+     * Helper method to register a latency timer for a stage and priority class
+     */
+    private static Timer registerLatencyTimer(MeterRegistry meterRegistry, String stage, MessagePriority priority) {
+        return Timer.builder(LATENCY_METRIC)
+                .description("Time from the submission of a notification until it leaves each pipeline stage per priority")
+                .tag("stage", stage)
+                .tag("priority", priority.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /*
+     * Helper method to submit an item into a stage
+     */
+    private <T> void submit(PipelineStage<T> stage, T item) {
+        try {
+            stage.submit(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting to notification pipeline stage: " + stage.getName());
+        }
+    }
+
+    /*
+     * Stage handler - Publish Application event to create a new Event Mapping
+     */
+    private void createDefaultMapping(String topic) {
+        log.debug("Publishing event to create a new Event Mapping for topic: {}", topic);
+        eventPublisher.publishEvent(new NewNotificationMappingsEvent(this, topic));
+    }
+
+    /*
+     * Stage handler - Publish Application event to create a new Notification for specific UserIDs and forward it to push stage
+     */
+    private void storeNotifications(NotificationTask task) {
+        log.debug("Publishing event to create Notifications for all Users");
+        try {
+            eventPublisher.publishEvent(new NewNotificationEvent(this, task.notification(), task.userIds()));
+        } catch (RuntimeException e) {
+            task.stored().completeExceptionally(e);
+            throw e;
+        }
+        task.stored().complete(null);
+        storeLatencies.get(task.priority()).record(System.nanoTime() - task.submittedAt(), TimeUnit.NANOSECONDS);
+
+        if (!task.websocketTopics().isEmpty())
+            submit(pushStage, new PushTask(task.message(), task.priority(), task.module(), task.websocketTopics(), task.submittedAt()));
+    }
+
+    /*
+     * Stage handler - Send notification through WebSockets
+     */
+    private void pushNotification(PushTask task) {
+        task.websocketTopics().forEach(topic -> webSocketService.notifyUsersAndRolesViaWebSocket(task.message(), topic));
+        pushLatencies.get(task.priority()).record(System.nanoTime() - task.submittedAt(), TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Pause the Kafka event listener above the high-water mark and resume it below the low-water mark
+     */
+    private void applyBackpressure() {
+        int downstreamDepth = storeStage.depth() + pushStage.depth();
+        if (downstreamDepth >= highWaterMark && listenerPaused.compareAndSet(false, true)) {
+            log.warn("Notification pipeline reached high-water mark ({} queued items) - Pausing Kafka event listener", downstreamDepth);
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(KafkaMessageHandler.EVENT_LISTENER_ID);
+            if (container != null)
+                container.pause();
+        } else if (downstreamDepth <= lowWaterMark && listenerPaused.compareAndSet(true, false)) {
+            log.info("Notification pipeline dropped below low-water mark ({} queued items) - Resuming Kafka event listener", downstreamDepth);
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(KafkaMessageHandler.EVENT_LISTENER_ID);
+            if (container != null)
+                container.resume();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mappingStage.shutdown();
+        storeStage.shutdown();
+        pushStage.shutdown();
+    }
+}
@@ -0,0 +1,222 @@
+package gr.atc.modapto.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stage of the notification pipeline with a bounded queue, drained by a fixed number of virtual-thread workers.
+ * Items are queued per ordering key: each key has its own FIFO queue handled by at most one worker at a time,
+ * so items sharing the same key are always handled sequentially and in their submission order. Priority decides which
+ * key a free worker serves next - The one whose oldest item has the highest priority, so an item never waits behind items of other keys with lower priority.
+ * Submissions block while the queue is full, so a slow stage applies backpressure to the previous one.
+ *
+ * @param <T> : Type of work items handled by the stage
+ */
+@Slf4j
+public class PipelineStage<T> {
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final int capacity;
+
+    private final Map<String, KeyQueue<T>> queuesPerKey = new HashMap<>();
+
+    private final PriorityQueue<KeyQueue<T>> readyQueues = new PriorityQueue<>((first, second) -> first.items().peekFirst().precedes(second.items().peekFirst()) ? -1 : 1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition itemAvailable = lock.newCondition();
+
+    private final Semaphore freeSlots;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Function<T, String> orderingKey;
+
+    private final ToIntFunction<T> priority;
+
+    private final Consumer<T> handler;
+
+    private final Runnable afterTake;
+
+    private final List<Thread> workers;
+
+    private volatile boolean running = true;
+
+    /*
+     * Queued item along with its priority and submission sequence
+     */
+    private record QueuedItem<T>(T item, int priority, long sequence) {
+        boolean precedes(QueuedItem<T> other) {
+            return priority != other.priority ? priority > other.priority : sequence < other.sequence;
+        }
+    }
+
+    /*
+     * FIFO queue of the items of an ordering key - It is ready while it has items and no worker handles one of them
+     */
+    private record KeyQueue<T>(String key, ArrayDeque<QueuedItem<T>> items) {}
+
+    /*
+     * Item taken by a worker along with the queue of its key
+     */
+    private record TakenItem<T>(T item, KeyQueue<T> keyQueue) {}
+
+    /**
+     * @param name : Name of the stage
+     * @param capacity : Maximum number of queued items
+     * @param workerCount : Number of workers draining the queue
+     * @param orderingKey : Ordering key of each item - Items of the same key are handled in submission order
+     * @param priority : Priority of each item - Higher values are handled first across keys
+     * @param handler : Handler of each item
+     * @param afterTake : Callback invoked whenever an item leaves the queue
+     */
+    public PipelineStage(String name, int capacity, int workerCount, Function<T, String> orderingKey,
+                         ToIntFunction<T> priority, Consumer<T> handler, Runnable afterTake) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.freeSlots = new Semaphore(this.capacity);
+        this.orderingKey = orderingKey;
+        this.priority = priority;
+        this.handler = handler;
+        this.afterTake = afterTake;
+
+        int count = Math.max(1, workerCount);
+        this.workers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            workers.add(Thread.ofVirtual().name("pipeline-" + name + "-", i).start(this::drain));
+    }
+
+    /**
+     * Submit an item to the stage - Blocks while the queue is full
+     *
+     * @param item : Work item
+     * @throws InterruptedException : If interrupted while waiting for space in the queue
+     */
+    public void submit(T item) throws InterruptedException {
+        freeSlots.acquire();
+        QueuedItem<T> queuedItem = new QueuedItem<>(item, priority.applyAsInt(item), sequence.getAndIncrement());
+        String key = orderingKey.apply(item);
+        lock.lock();
+        try {
+            // Queues of keys that are handled or already waiting are ready once their current head is taken - Appending does not change their head
+            KeyQueue<T> keyQueue = queuesPerKey.get(key);
+            if (keyQueue == null) {
+                keyQueue = new KeyQueue<>(key, new ArrayDeque<>());
+                queuesPerKey.put(key, keyQueue);
+                keyQueue.items().addLast(queuedItem);
+                readyQueues.add(keyQueue);
+            } else {
+                keyQueue.items().addLast(queuedItem);
+            }
+            queued.incrementAndGet();
+            itemAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current number of queued items
+     *
+     * @return int : Queue depth
+     */
+    public int depth() {
+        return queued.get();
+    }
+
+    /**
+     * Stop the workers of the stage. Queued items that have not been taken are discarded
+     */
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        if (queued.get() > 0)
+            log.warn("Pipeline stage '{}' stopped with {} pending items", name, queued.get());
+    }
+
+    /*
+     * Worker loop - Take items from the queue and handle them
+     */
+    private void drain() {
+        while (running) {
+            TakenItem<T> takenItem;
+            try {
+                takenItem = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (takenItem == null)
+                continue;
+
+            freeSlots.release();
+            afterTake.run();
+            try {
+                handler.accept(takenItem.item());
+            } catch (RuntimeException e) {
+                log.error("Error in pipeline stage '{}' - {}", name, e.getMessage(), e);
+            } finally {
+                release(takenItem.keyQueue());
+            }
+        }
+    }
+
+    /*
+     * Helper method to take the oldest item of the ready key whose oldest item has the highest priority
+     * The key stays busy until the item is handled - Returns null if no item became available within a second
+     */
+    private TakenItem<T> take() throws InterruptedException {
+        lock.lock();
+        try {
+            long remainingNanos = TimeUnit.SECONDS.toNanos(1);
+            while (readyQueues.isEmpty()) {
+                if (remainingNanos <= 0)
+                    return null;
+                remainingNanos = itemAvailable.awaitNanos(remainingNanos);
+            }
+            KeyQueue<T> keyQueue = readyQueues.poll();
+            queued.decrementAndGet();
+            return new TakenItem<>(keyQueue.items().pollFirst().item(), keyQueue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Helper method to release a key once its item is handled - The key is ready again if more items are waiting on it, otherwise its queue is dropped
+     */
+    private void release(KeyQueue<T> keyQueue) {
+        lock.lock();
+        try {
+            if (keyQueue.items().isEmpty()) {
+                queuesPerKey.remove(keyQueue.key());
+            } else {
+                readyQueues.add(keyQueue);
+                itemAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
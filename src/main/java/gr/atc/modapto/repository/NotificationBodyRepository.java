@@ -0,0 +1,10 @@
+package gr.atc.modapto.repository;
+
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+import gr.atc.modapto.model.NotificationBody;
+
+@Repository
+public interface NotificationBodyRepository extends ElasticsearchRepository<NotificationBody, String> {
+}
@@ -0,0 +1,191 @@
+package gr.atc.modapto.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Manages the JWT Token of the component (Keycloak client credentials).
+ * The token is cached until it expires minus a safety skew and is refreshed in the background once most of its lifetime has passed.
+ * Concurrent callers that need a new token share a single in-flight request to Keycloak.
+ */
+@Slf4j
+@Component
+public class ComponentTokenManager {
+
+    private static final String TOKEN = "access_token";
+
+    private static final String EXPIRES_IN = "expires_in";
+
+    // Share of the token's usable lifetime after which it is refreshed in the background
+    private static final double PROACTIVE_REFRESH_RATIO = 0.8;
+
+    private final RestTemplate restTemplate;
+
+    private final Duration expirySkew;
+
+    private final Duration defaultLifetime;
+
+    private final AtomicReference<CompletableFuture<CachedToken>> inFlightRefresh = new AtomicReference<>();
+
+    private volatile CachedToken cachedToken;
+
+    private Clock clock = Clock.systemUTC();
+
+    @Value("${keycloak.token-uri}")
+    private String tokenUri;
+
+    @Value("${keycloak.client}")
+    private String client;
+
+    @Value("${keycloak.client.secret}")
+    private String clientSecret;
+
+    /*
+     * Cached token - Used until 'expiresAt' and refreshed in the background after 'refreshAt'
+     */
+    private record CachedToken(String value, Instant refreshAt, Instant expiresAt) {}
+
+    public ComponentTokenManager(RestTemplate outboundRestTemplate,
+                                 @Value("${keycloak.token.expiry-skew:30}") long expirySkewSeconds,
+                                 @Value("${keycloak.token.default-lifetime:60}") long defaultLifetimeSeconds) {
+        this.restTemplate = outboundRestTemplate;
+        this.expirySkew = Duration.ofSeconds(Math.max(0, expirySkewSeconds));
+        this.defaultLifetime = Duration.ofSeconds(Math.max(1, defaultLifetimeSeconds));
+    }
+
+    /**
+     * Retrieve a valid JWT Token of the component - Requests a new one from Keycloak only if the cached token is expired
+     *
+     * @return String : JWT Token or null if it could not be retrieved
+     */
+    public String getToken() {
+        CachedToken token = cachedToken;
+        Instant now = clock.instant();
+        if (token != null && now.isBefore(token.expiresAt())) {
+            // Refresh in the background while the current token is still valid
+            if (!now.isBefore(token.refreshAt()))
+                refreshAsync();
+            return token.value();
+        }
+
+        return awaitRefresh(refreshAsync());
+    }
+
+    /**
+     * Force the refresh of a token that was rejected by a downstream service (e.g. HTTP 401)
+     * If the cached token has already been replaced by another caller, the new token is returned without a new request
+     *
+     * @param rejectedToken : Token that was rejected
+     * @return String : New JWT Token or null if it could not be retrieved
+     */
+    public String refreshRejectedToken(String rejectedToken) {
+        CachedToken token = cachedToken;
+        if (token != null && !token.value().equals(rejectedToken) && clock.instant().isBefore(token.expiresAt()))
+            return token.value();
+
+        CompletableFuture<CachedToken> refresh = refreshAsync();
+        CachedToken refreshedToken = refresh.getNow(null);
+        // A refresh that completed with the rejected token (started before the rejection) is not reused
+        if (refreshedToken != null && refreshedToken.value().equals(rejectedToken)) {
+            inFlightRefresh.compareAndSet(refresh, null);
+            refresh = refreshAsync();
+        }
+        return awaitRefresh(refresh);
+    }
+
+    /*
+     * Start a refresh or join the one in flight - Only one request to Keycloak is performed at a time
+     */
+    private CompletableFuture<CachedToken> refreshAsync() {
+        while (true) {
+            CompletableFuture<CachedToken> inFlight = inFlightRefresh.get();
+            if (inFlight != null && !inFlight.isDone())
+                return inFlight;
+
+            CompletableFuture<CachedToken> refresh = new CompletableFuture<>();
+            if (inFlightRefresh.compareAndSet(inFlight, refresh)) {
+                // Platform thread: callers may wait for it while pinning their virtual thread carrier
+                Thread.ofPlatform().daemon().name("component-token-refresh").start(() -> {
+                    try {
+                        CachedToken token = requestToken();
+                        cachedToken = token;
+                        refresh.complete(token);
+                    } catch (RuntimeException e) {
+                        refresh.completeExceptionally(e);
+                    }
+                });
+                return refresh;
+            }
+        }
+    }
+
+    /*
+     * Wait for a refresh to complete and return the token or null if it failed
+     */
+    private String awaitRefresh(CompletableFuture<CachedToken> refresh) {
+        try {
+            return refresh.join().value();
+        } catch (CompletionException e) {
+            log.error("Unable to retrieve Component's JWT Token - Client credentials - Error: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+     * Request a new JWT Token from Keycloak
+     */
+    private CachedToken requestToken() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+
+        MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
+        map.add("client_id", client);
+        map.add("client_secret", clientSecret);
+        map.add("grant_type", "client_credentials");
+
+        HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(map, headers);
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                tokenUri,
+                HttpMethod.POST,
+                entity,
+                new ParameterizedTypeReference<>() {
+                }
+        );
+
+        Map<String, Object> body = Optional.of(response)
+                .filter(resp -> resp.getStatusCode().is2xxSuccessful())
+                .map(ResponseEntity::getBody)
+                .filter(responseBody -> responseBody.get(TOKEN) != null)
+                .orElseThrow(() -> new RestClientException("No access token in Keycloak response - Status: " + response.getStatusCode()));
+
+        Instant issuedAt = clock.instant();
+        Duration lifetime = body.get(EXPIRES_IN) instanceof Number expiresIn ? Duration.ofSeconds(expiresIn.longValue()) : defaultLifetime;
+        // Tokens with a lifetime shorter than the skew are used only by the callers waiting for them
+        Duration usableLifetime = lifetime.compareTo(expirySkew) > 0 ? lifetime.minus(expirySkew) : Duration.ZERO;
+        Instant expiresAt = issuedAt.plus(usableLifetime);
+        Instant refreshAt = issuedAt.plusMillis((long) (usableLifetime.toMillis() * PROACTIVE_REFRESH_RATIO));
+        log.debug("Component's JWT Token retrieved - Valid for {} seconds", lifetime.toSeconds());
+        return new CachedToken(body.get(TOKEN).toString(), refreshAt, expiresAt);
+    }
+}
@@ -0,0 +1,286 @@
+package gr.atc.modapto.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.stereotype.Component;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.json.JsonData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking write path to Elasticsearch - Requests are sent with the asynchronous client and complete on its I/O threads.
+ * At most 'elasticsearch.async.max-in-flight' requests are in flight: further requests are queued without holding a thread
+ * and are sent as earlier ones complete, so throughput follows the capacity of Elasticsearch instead of the number of threads.
+ * At most 'elasticsearch.async.max-queued' requests wait for a slot - Further requests are rejected (completed exceptionally with a
+ * RejectedExecutionException), so memory stays bounded and callers back off: fan-outs retry them with backoff, event batches are diverted to the retry topics.
+ * Entities are converted with the Spring Data converter, so documents are identical to the ones stored by the repositories.
+ * Documents that carry state changed after they are stored (e.g. read status, occurrences) are written create-only, so re-deliveries never overwrite them.
+ * Bulk requests complete once their changes are visible to searches (refresh=wait_for), as the saves of the repositories did: clients that
+ * fetch after a WebSocket push and update by query requests that follow (e.g. occurrence increments) always find the written documents
+ */
+@Slf4j
+@Component
+public class ElasticsearchAsyncWriter {
+
+    private static final String IN_FLIGHT_METRIC = "modapto.elasticsearch.async.in-flight";
+
+    private static final String QUEUED_METRIC = "modapto.elasticsearch.async.queued";
+
+    private static final String REJECTED_METRIC = "modapto.elasticsearch.async.rejected";
+
+    private static final String UPDATED_RESULT = "updated";
+
+    private static final String CREATED_RESULT = "created";
+
+    private static final int CONFLICT_STATUS = 409;
+
+    private final ElasticsearchAsyncClient asyncClient;
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final int maxInFlight;
+
+    private final int maxQueued;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Size of the queue is tracked separately, as the size of a concurrent queue is not constant-time
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final Queue<Runnable> queuedRequests = new ConcurrentLinkedQueue<>();
+
+    private final Counter rejectedRequests;
+
+    /**
+     * Outcome of a scripted bulk update - Failed items, and the returned fields of the documents changed by the script, per ID
+     */
+    public record ScriptedUpdateResult(Map<String, BulkFailureException.FailureDetails> failures, Map<String, Map<String, JsonData>> changedDocuments) {}
+
+    /**
+     * Outcome of a create-only bulk request - Failed items per ID and IDs of the created documents. Documents that already existed are in neither
+     */
+    public record CreateResult(Map<String, BulkFailureException.FailureDetails> failures, Set<String> createdIds) {}
+
+    public ElasticsearchAsyncWriter(ElasticsearchAsyncClient asyncClient,
+                                    @Qualifier("elasticsearchTemplate") ElasticsearchOperations elasticsearchOperations,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${elasticsearch.async.max-in-flight:16}") int maxInFlight,
+                                    @Value("${elasticsearch.async.max-queued:256}") int maxQueued) {
+        this.asyncClient = asyncClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxQueued = Math.max(0, maxQueued);
+
+        Gauge.builder(IN_FLIGHT_METRIC, inFlight, AtomicInteger::get)
+                .description("Number of asynchronous Elasticsearch requests in flight")
+                .register(meterRegistry);
+        Gauge.builder(QUEUED_METRIC, queued, AtomicInteger::get)
+                .description("Number of asynchronous Elasticsearch requests waiting for an in-flight slot")
+                .register(meterRegistry);
+        this.rejectedRequests = Counter.builder(REJECTED_METRIC)
+                .description("Number of asynchronous Elasticsearch requests rejected because the queue of requests waiting for a slot was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Index entities with a single bulk request
+     *
+     * @param index : Index name
+     * @param entities : Entities to index - Converted as the repositories would store them
+     * @param idOf : ID of an entity
+     * @return CompletableFuture<Map<String, FailureDetails>> : Failed items per ID - Completed exceptionally if the request failed as a whole
+     */
+    public <T> CompletableFuture<Map<String, BulkFailureException.FailureDetails>> bulkIndex(String index, List<T> entities, Function<T, String> idOf) {
+        if (entities.isEmpty())
+            return CompletableFuture.completedFuture(Map.of());
+
+        // Documents are converted by the caller, so completions on the I/O threads only send requests
+        List<BulkOperation> operations = entities.stream()
+                .map(entity -> {
+                    Document document = toDocument(entity);
+                    return BulkOperation.of(operation -> operation.index(request -> request.index(index).id(idOf.apply(entity)).document(document)));
+                })
+                .toList();
+        return bulk(operations);
+    }
+
+    /**
+     * Create documents with a single bulk request - Documents that already exist are left untouched and are reported as neither failed nor created
+     *
+     * @param index : Index name
+     * @param entities : Entities to create - Converted as the repositories would store them
+     * @param idOf : ID of an entity
+     * @return CompletableFuture<CreateResult> : Failed items and IDs of the created documents - Completed exceptionally if the request failed as a whole
+     */
+    public <T> CompletableFuture<CreateResult> bulkCreate(String index, List<T> entities, Function<T, String> idOf) {
+        if (entities.isEmpty())
+            return CompletableFuture.completedFuture(new CreateResult(Map.of(), Set.of()));
+
+        List<BulkOperation> operations = entities.stream()
+                .map(entity -> {
+                    Document document = toDocument(entity);
+                    return BulkOperation.of(operation -> operation.create(request -> request.index(index).id(idOf.apply(entity)).document(document)));
+                })
+                .toList();
+        BulkRequest bulkRequest = bulkRequest(operations);
+
+        return submit(() -> asyncClient.bulk(bulkRequest)).thenApply(response -> {
+            Map<String, BulkFailureException.FailureDetails> failedItems = new HashMap<>();
+            Set<String> createdIds = new HashSet<>();
+            for (BulkResponseItem item : response.items()) {
+                if (item.error() == null) {
+                    if (CREATED_RESULT.equals(item.result()))
+                        createdIds.add(item.id());
+                } else if (item.status() != CONFLICT_STATUS) {
+                    failedItems.put(item.id(), new BulkFailureException.FailureDetails(item.status(), item.error().reason()));
+                }
+            }
+            return new CreateResult(failedItems, createdIds);
+        });
+    }
+
+    /**
+     * Update documents with a painless script in a single bulk request
+     * The script may set 'ctx.op' to 'noop' to leave a document unchanged - Only changed documents are reported with their returned fields
+     *
+     * @param index : Index name
+     * @param paramsPerId : Script parameters per ID of the document to update
+     * @param script : Painless script
+     * @param returnedFields : Source fields returned for each changed document
+     * @return CompletableFuture<ScriptedUpdateResult> : Failed items and changed documents per ID - Completed exceptionally if the request failed as a whole
+     */
+    public CompletableFuture<ScriptedUpdateResult> bulkScriptedUpdate(String index, Map<String, Map<String, JsonData>> paramsPerId, String script, List<String> returnedFields) {
+        if (paramsPerId.isEmpty())
+            return CompletableFuture.completedFuture(new ScriptedUpdateResult(Map.of(), Map.of()));
+
+        List<BulkOperation> operations = paramsPerId.entrySet().stream()
+                .map(entry -> BulkOperation.of(operation -> operation.update(request -> request.index(index).id(entry.getKey())
+                        .action(action -> action
+                                .script(s -> s.lang("painless").source(script).params(entry.getValue()))
+                                .source(source -> source.filter(filter -> filter.includes(returnedFields)))))))
+                .toList();
+        BulkRequest bulkRequest = bulkRequest(operations);
+
+        return submit(() -> asyncClient.bulk(bulkRequest)).thenApply(response -> {
+            Map<String, BulkFailureException.FailureDetails> failedItems = new HashMap<>();
+            Map<String, Map<String, JsonData>> changedDocuments = new HashMap<>();
+            for (BulkResponseItem item : response.items()) {
+                if (item.error() != null)
+                    failedItems.put(item.id(), new BulkFailureException.FailureDetails(item.status(), item.error().reason()));
+                else if (UPDATED_RESULT.equals(item.result()))
+                    changedDocuments.put(item.id(), item.get() != null && item.get().source() != null ? item.get().source() : Map.of());
+            }
+            return new ScriptedUpdateResult(failedItems, changedDocuments);
+        });
+    }
+
+    /*
+     * Helper method to build a bulk request that completes once its changes are searchable - Waits for the next refresh instead of forcing one
+     */
+    private static BulkRequest bulkRequest(List<BulkOperation> operations) {
+        return BulkRequest.of(request -> request.operations(operations).refresh(Refresh.WaitFor));
+    }
+
+    /*
+     * Helper method to convert an entity into the document stored by the repositories
+     */
+    private Document toDocument(Object entity) {
+        return elasticsearchOperations.getElasticsearchConverter().mapObject(entity);
+    }
+
+    /*
+     * Helper method to send a bulk request - Completes with the failed items per ID
+     */
+    private CompletableFuture<Map<String, BulkFailureException.FailureDetails>> bulk(List<BulkOperation> operations) {
+        BulkRequest bulkRequest = bulkRequest(operations);
+        return submit(() -> asyncClient.bulk(bulkRequest)).thenApply(response -> {
+            if (!response.errors())
+                return Map.of();
+
+            Map<String, BulkFailureException.FailureDetails> failedItems = new HashMap<>();
+            for (BulkResponseItem item : response.items()) {
+                if (item.error() != null)
+                    failedItems.put(item.id(), new BulkFailureException.FailureDetails(item.status(), item.error().reason()));
+            }
+            return failedItems;
+        });
+    }
+
+    /*
+     * Helper method to send a request once an in-flight slot is available - Queued requests do not hold a thread
+     * Requests are rejected without being sent when the queue is full
+     */
+    private <R> CompletableFuture<R> submit(Supplier<CompletableFuture<R>> request) {
+        if (queued.incrementAndGet() > maxQueued && inFlight.get() >= maxInFlight) {
+            queued.decrementAndGet();
+            rejectedRequests.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Elasticsearch write queue is full - " + maxQueued + " requests are waiting"));
+        }
+
+        CompletableFuture<R> result = new CompletableFuture<>();
+        queuedRequests.add(() -> {
+            CompletableFuture<R> response;
+            try {
+                response = request.get();
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((value, error) -> {
+                inFlight.decrementAndGet();
+                dispatchQueuedRequests();
+                if (error != null)
+                    result.completeExceptionally(error);
+                else
+                    result.complete(value);
+            });
+        });
+        dispatchQueuedRequests();
+        return result;
+    }
+
+    /*
+     * Helper method to send queued requests while in-flight slots are available
+     * Invoked after every submission and completion, so no queued request is left behind
+     */
+    private void dispatchQueuedRequests() {
+        while (!queuedRequests.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight)
+                return;
+            if (!inFlight.compareAndSet(current, current + 1))
+                continue;
+
+            Runnable next = queuedRequests.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package gr.atc.modapto.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import gr.atc.modapto.dto.EventDto;
+import gr.atc.modapto.exception.CustomExceptions.EventProcessingException;
+import gr.atc.modapto.kafka.FailedEventPublisher;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replays events parked in the dead-letter topic back to the topics they were originally published to
+ */
+@Slf4j
+@Service
+public class EventReplayService {
+
+    private static final String DLT_SUFFIX = "-dlt";
+
+    private static final String REPLAY_GROUP_SUFFIX = "-dlt-replay";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final long PUBLISH_TIMEOUT_SECONDS = 10;
+
+    private final ConsumerFactory<String, EventDto> consumerFactory;
+
+    private final KafkaTemplate<String, EventDto> eventKafkaTemplate;
+
+    @Value("${kafka.retry.topic}")
+    private String retryTopic;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String kafkaGroupId;
+
+    public EventReplayService(ConsumerFactory<String, EventDto> consumerFactory, KafkaTemplate<String, EventDto> eventKafkaTemplate) {
+        this.consumerFactory = consumerFactory;
+        this.eventKafkaTemplate = eventKafkaTemplate;
+    }
+
+    /**
+     * Replay a batch of dead-letter events to their original topics. Offsets of the replay group are committed
+     * only after the events are republished, so subsequent calls continue from the next dead-letter event
+     *
+     * @param batchSize : Maximum number of events to replay
+     * @return int : Number of replayed events
+     */
+    public int replayDeadLetterEvents(int batchSize) {
+        String deadLetterTopic = retryTopic + DLT_SUFFIX;
+        int replayedEvents = 0;
+
+        try (Consumer<String, EventDto> consumer = consumerFactory.createConsumer(kafkaGroupId + REPLAY_GROUP_SUFFIX, null)) {
+            List<TopicPartition> partitions = consumer.partitionsFor(deadLetterTopic).stream()
+                    .map(partition -> new TopicPartition(partition.topic(), partition.partition()))
+                    .toList();
+            consumer.assign(partitions);
+
+            while (replayedEvents < batchSize) {
+                ConsumerRecords<String, EventDto> deadLetters = consumer.poll(POLL_TIMEOUT);
+                if (deadLetters.isEmpty())
+                    break;
+
+                for (TopicPartition partition : deadLetters.partitions()) {
+                    for (ConsumerRecord<String, EventDto> deadLetter : deadLetters.records(partition)) {
+                        if (replayedEvents >= batchSize) {
+                            // Do not consume past the batch size - Continue from this event on next replay
+                            consumer.seek(partition, deadLetter.offset());
+                            break;
+                        }
+                        republish(deadLetter);
+                        replayedEvents++;
+                    }
+                }
+                consumer.commitSync();
+            }
+        }
+
+        log.info("Replayed {} events from dead-letter topic '{}'", replayedEvents, deadLetterTopic);
+        return replayedEvents;
+    }
+
+    /*
+     * Helper method to republish a dead-letter event to its original topic
+     */
+    private void republish(ConsumerRecord<String, EventDto> deadLetter) {
+        String originalTopic = FailedEventPublisher.headerValue(deadLetter.headers(), FailedEventPublisher.ORIGINAL_TOPIC_HEADER);
+        if (originalTopic == null || deadLetter.value() == null) {
+            log.warn("Dead-letter event with offset {} has no original topic or value and is skipped", deadLetter.offset());
+            return;
+        }
+
+        try {
+            // Original coordinates are kept, so the replayed event is identified as the originally consumed record
+            ProducerRecord<String, EventDto> replayRecord = new ProducerRecord<>(originalTopic, deadLetter.key(), deadLetter.value());
+            for (String header : List.of(FailedEventPublisher.ORIGINAL_TOPIC_HEADER, FailedEventPublisher.ORIGINAL_PARTITION_HEADER, FailedEventPublisher.ORIGINAL_OFFSET_HEADER)) {
+                if (deadLetter.headers().lastHeader(header) != null)
+                    replayRecord.headers().add(deadLetter.headers().lastHeader(header));
+            }
+            eventKafkaTemplate.send(replayRecord).get(PUBLISH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new EventProcessingException("Unable to replay dead-letter event to topic '" + originalTopic + "' - " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventProcessingException("Interrupted while replaying dead-letter events");
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package gr.atc.modapto.service;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import gr.atc.modapto.service.interfaces.IEventService;
 import org.modelmapper.MappingException;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.BulkFailureException;
 import org.springframework.stereotype.Service;
 
 import gr.atc.modapto.dto.EventDto;
 import gr.atc.modapto.dto.EventMappingsDto;
+import gr.atc.modapto.events.EventMappingsChangedEvent;
 import gr.atc.modapto.exception.CustomExceptions.DataNotFoundException;
 import gr.atc.modapto.exception.CustomExceptions.ModelMappingException;
 import gr.atc.modapto.model.Event;
@@ -37,6 +45,12 @@ public class EventService implements IEventService {
 
     private final EventMappingsRepository eventMappingsRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ElasticsearchAsyncWriter asyncWriter;
+
+    private static final String EVENTS_INDEX = "events";
+
     private static final String EVENT_MAPPER_ERROR  = "Error mapping Event to Dto - Error: ";
     private static final String EVENT_MAPPING_MAPPER_ERROR  = "Error mapping Event Mapping to Dto - Error: ";
 
@@ -57,6 +71,58 @@ public class EventService implements IEventService {
         }
     }
 
+    /**
+     * Bulk store a batch of events in DB when received from Kafka
+     * The bulk request is sent through the asynchronous write path, so concurrent batches share its bound on in-flight requests.
+     * The caller waits for the response: offsets of a batch are only committed once its events are stored. Requests rejected
+     * because the write queue is full fail the batch, whose records are then diverted to the retry topics
+     *
+     * @param eventDtos: DTOs of Events
+     * @return List<String>: IDs of the created Events (same order as the input)
+     * @throws BulkFailureException: If any Event could not be stored
+     */
+    @Override
+    public List<String> storeIncomingEvents(List<EventDto> eventDtos) {
+        if (eventDtos == null || eventDtos.isEmpty())
+            return Collections.emptyList();
+
+        try {
+            List<Event> events = eventDtos.stream()
+                    .map(eventDto -> modelMapper.map(eventDto, Event.class))
+                    .toList();
+
+            List<String> eventIds = new ArrayList<>(events.size());
+            for (Event event : events) {
+                if (event.getId() == null)
+                    event.setId(UUID.randomUUID().toString());
+                eventIds.add(event.getId());
+            }
+
+            Map<String, BulkFailureException.FailureDetails> failedEvents = asyncWriter.bulkIndex(EVENTS_INDEX, events, Event::getId).join();
+            if (!failedEvents.isEmpty())
+                throw new BulkFailureException(failedEvents.size() + " of " + events.size() + " events could not be stored", failedEvents);
+            return eventIds;
+        } catch (MappingException e){
+            throw new ModelMappingException(EVENT_MAPPER_ERROR + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve which of the given event IDs are already stored in DB
+     *
+     * @param eventIds: IDs of Events
+     * @return Set<String>: IDs of the Events that already exist
+     */
+    @Override
+    public Set<String> retrieveExistingEventIds(List<String> eventIds) {
+        if (eventIds == null || eventIds.isEmpty())
+            return Collections.emptySet();
+
+        Set<String> existingEventIds = new HashSet<>();
+        eventRepository.findAllById(eventIds).forEach(event -> existingEventIds.add(event.getId()));
+        return existingEventIds;
+    }
+
     /**
      * Create a new event mapping in DB
      *
@@ -67,7 +133,9 @@ public class EventService implements IEventService {
     public String storeEventMapping(EventMappingsDto eventMapping) {
         try {
             EventMappings eventMappings = modelMapper.map(eventMapping, EventMappings.class);
-            return eventMappingsRepository.save(eventMappings).getId();
+            String mappingId = eventMappingsRepository.save(eventMappings).getId();
+            eventPublisher.publishEvent(new EventMappingsChangedEvent(this, eventMappings.getTopic()));
+            return mappingId;
         } catch (MappingException e){
             throw new ModelMappingException(EVENT_MAPPING_MAPPER_ERROR + e.getMessage());
         }
@@ -156,6 +224,7 @@ public class EventService implements IEventService {
 
         // Delete the event mapping
         eventMappingsRepository.deleteById(mappingId);
+        eventPublisher.publishEvent(new EventMappingsChangedEvent(this, existingEventMapping.get().getTopic()));
     }
 
     /**
@@ -175,6 +244,7 @@ public class EventService implements IEventService {
 
         // Delete the event mapping
         eventMappingsRepository.save(updatedEventMapping);
+        eventPublisher.publishEvent(new EventMappingsChangedEvent(this, updatedEventMapping.getTopic()));
     }
 
     private EventMappings updateUserRolesOfEventMapping(EventMappings existingEventMapping, EventMappingsDto eventMapping) {
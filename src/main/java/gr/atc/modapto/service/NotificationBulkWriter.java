@@ -0,0 +1,259 @@
+package gr.atc.modapto.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.stereotype.Component;
+
+import gr.atc.modapto.exception.CustomExceptions.EventProcessingException;
+import gr.atc.modapto.model.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the per-user notifications of a fan-out with chunked bulk requests instead of one index request per recipient.
+ * Chunks are sent through the asynchronous write path, which bounds the requests in flight across all fan-outs, so no thread
+ * waits on a bulk response. Items rejected with a transient status (429, 5xx) are retried on their own - The rest of the chunk is not re-sent.
+ * Notifications are created only if they do not exist yet: re-deliveries keep the read status and occurrences of the stored notifications
+ */
+@Slf4j
+@Component
+public class NotificationBulkWriter {
+
+    private static final String NOTIFICATIONS_INDEX = "notifications";
+
+    private static final String BULK_LATENCY_METRIC = "modapto.notifications.bulk.latency";
+
+    private static final String BULK_SIZE_METRIC = "modapto.notifications.bulk.size";
+
+    private static final String RETRIED_ITEMS_METRIC = "modapto.notifications.bulk.retried.items";
+
+    private static final String FAILED_ITEMS_METRIC = "modapto.notifications.bulk.failed.items";
+
+    private static final String EXISTING_ITEMS_METRIC = "modapto.notifications.bulk.existing.items";
+
+    private final ElasticsearchAsyncWriter asyncWriter;
+
+    private final int chunkSize;
+
+    private final int maxRetries;
+
+    private final long retryBackoffMillis;
+
+    private final Timer successfulBulks;
+
+    private final Timer partiallyFailedBulks;
+
+    private final DistributionSummary bulkSizes;
+
+    private final Counter retriedItems;
+
+    private final Counter failedItems;
+
+    private final Counter existingItems;
+
+    /**
+     * Outcome of a fan-out
+     *
+     * @param notificationIds : IDs of the stored notifications, in the order of the recipients
+     * @param createdIds : IDs of the notifications created by this fan-out - Notifications of re-delivered events that were already stored are excluded
+     */
+    public record StoreResult(List<String> notificationIds, Set<String> createdIds) {}
+
+    /*
+     * Outcome of a chunk - Errors of the items that could not be stored per ID and IDs of the created items
+     */
+    private record ChunkResult(Map<String, String> failures, Set<String> createdIds) {}
+
+    public NotificationBulkWriter(ElasticsearchAsyncWriter asyncWriter,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notification.bulk.chunk-size:500}") int chunkSize,
+                                  @Value("${notification.bulk.max-retries:3}") int maxRetries,
+                                  @Value("${notification.bulk.retry-backoff:100}") long retryBackoffMillis) {
+        this.asyncWriter = asyncWriter;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMillis = Math.max(0, retryBackoffMillis);
+
+        this.successfulBulks = registerLatencyTimer(meterRegistry, "success");
+        this.partiallyFailedBulks = registerLatencyTimer(meterRegistry, "failure");
+        this.bulkSizes = DistributionSummary.builder(BULK_SIZE_METRIC)
+                .description("Number of notifications per bulk request")
+                .register(meterRegistry);
+        this.retriedItems = Counter.builder(RETRIED_ITEMS_METRIC)
+                .description("Number of notifications re-sent after a transient bulk item failure")
+                .register(meterRegistry);
+        this.failedItems = Counter.builder(FAILED_ITEMS_METRIC)
+                .description("Number of notifications that could not be stored after all retries")
+                .register(meterRegistry);
+        this.existingItems = Counter.builder(EXISTING_ITEMS_METRIC)
+                .description("Number of notifications of re-delivered events that were already stored and were left untouched")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store notifications with chunked bulk requests - Notifications without ID are assigned one, so that retries are idempotent
+     *
+     * @param notifications : Notifications of a fan-out
+     * @return StoreResult : IDs of the stored notifications and of the created ones
+     * @throws EventProcessingException : If any notification could not be stored after all retries
+     */
+    public StoreResult storeAll(List<Notification> notifications) {
+        return storeAll(notifications, Function.identity());
+    }
+
+    /**
+     * Render and store the notifications of a fan-out with chunked bulk requests
+     * Chunks are rendered on the calling thread and sent as soon as they are rendered, so rendering of later chunks overlaps with
+     * the bulk requests of earlier ones. The renderer must return a new document per recipient - Notifications without ID are
+     * assigned one, so that retries are idempotent
+     *
+     * @param recipients : Recipients of the fan-out
+     * @param renderer : Renders the notification of a recipient
+     * @return StoreResult : IDs of the stored notifications, in the order of the recipients, and IDs of the created ones
+     * @throws EventProcessingException : If any notification could not be stored after all retries
+     */
+    public <R> StoreResult storeAll(List<R> recipients, Function<R, Notification> renderer) {
+        if (recipients.isEmpty())
+            return new StoreResult(List.of(), Set.of());
+
+        List<String> notificationIds = new ArrayList<>(recipients.size());
+        List<CompletableFuture<ChunkResult>> writes = new ArrayList<>();
+        for (int from = 0; from < recipients.size(); from += chunkSize) {
+            List<Notification> chunk = renderChunk(recipients.subList(from, Math.min(recipients.size(), from + chunkSize)), renderer);
+            chunk.forEach(notification -> notificationIds.add(notification.getId()));
+            writes.add(writeChunk(chunk, 0, new ChunkResult(new HashMap<>(), new HashSet<>())));
+        }
+
+        // Failures of all chunks are collected before the fan-out is reported as failed
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        Map<String, String> failures = new HashMap<>();
+        Set<String> createdIds = new HashSet<>();
+        writes.forEach(write -> {
+            failures.putAll(write.join().failures());
+            createdIds.addAll(write.join().createdIds());
+        });
+
+        if (!failures.isEmpty()) {
+            failedItems.increment(failures.size());
+            log.error("{} of {} notifications could not be stored - Errors: {}", failures.size(), recipients.size(), failures.values().stream().distinct().toList());
+            throw new EventProcessingException(failures.size() + " of " + recipients.size() + " notifications could not be stored");
+        }
+        return new StoreResult(notificationIds, createdIds);
+    }
+
+    /*
+     * Helper method to render a chunk
+     */
+    private static <R> List<Notification> renderChunk(List<R> recipients, Function<R, Notification> renderer) {
+        List<Notification> chunk = new ArrayList<>(recipients.size());
+        for (R recipient : recipients) {
+            Notification notification = renderer.apply(recipient);
+            if (notification.getId() == null)
+                notification.setId(UUID.randomUUID().toString());
+            chunk.add(notification);
+        }
+        return chunk;
+    }
+
+    /*
+     * Helper method to write a chunk - Items failed with a transient status are retried with exponential backoff
+     * Completes with the IDs and errors of the items that could not be stored and the IDs of the created items - Backoff is scheduled without holding a thread
+     */
+    private CompletableFuture<ChunkResult> writeChunk(List<Notification> pending, int attempt, ChunkResult outcome) {
+        return bulkCreate(pending).thenCompose(result -> {
+            outcome.createdIds().addAll(result.createdIds());
+            Map<String, BulkFailureException.FailureDetails> rejectedItems = result.failures();
+            long existing = pending.size() - rejectedItems.size() - result.createdIds().size();
+            if (existing > 0)
+                existingItems.increment(existing);
+
+            if (rejectedItems.isEmpty())
+                return CompletableFuture.completedFuture(outcome);
+
+            List<Notification> retryable = new ArrayList<>();
+            for (Notification notification : pending) {
+                BulkFailureException.FailureDetails details = rejectedItems.get(notification.getId());
+                if (details == null)
+                    continue;
+                if (attempt < maxRetries && isTransient(details.status()))
+                    retryable.add(notification);
+                else
+                    outcome.failures().put(notification.getId(), details.errorMessage());
+            }
+
+            if (retryable.isEmpty())
+                return CompletableFuture.completedFuture(outcome);
+
+            log.warn("Retrying {} of {} notifications rejected by Elasticsearch - Attempt {} of {}", retryable.size(), pending.size(), attempt + 1, maxRetries);
+            retriedItems.increment(retryable.size());
+            long backoffMillis = retryBackoffMillis << Math.min(attempt, 10);
+            return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> writeChunk(retryable, attempt + 1, outcome));
+        });
+    }
+
+    /*
+     * Helper method to send a single create-only bulk request - Completes with the failed items per ID and the IDs of the created notifications
+     * Requests that fail as a whole are reported as a transient failure of all their items
+     */
+    private CompletableFuture<ElasticsearchAsyncWriter.CreateResult> bulkCreate(List<Notification> notifications) {
+        bulkSizes.record(notifications.size());
+        long start = System.nanoTime();
+        CompletableFuture<ElasticsearchAsyncWriter.CreateResult> request;
+        try {
+            request = asyncWriter.bulkCreate(NOTIFICATIONS_INDEX, notifications, Notification::getId);
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        return request.handle((result, error) -> {
+            if (error == null && result.failures().isEmpty()) {
+                successfulBulks.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            }
+
+            partiallyFailedBulks.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (error == null)
+                return result;
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.error("Bulk request of {} notifications failed - Error: {}", notifications.size(), cause.getMessage());
+            Map<String, BulkFailureException.FailureDetails> failedItems = new HashMap<>();
+            notifications.forEach(notification -> failedItems.put(notification.getId(), new BulkFailureException.FailureDetails(null, cause.getMessage())));
+            return new ElasticsearchAsyncWriter.CreateResult(failedItems, Set.of());
+        });
+    }
+
+    /*
+     * Helper method to decide whether a failed item may succeed if re-sent - Requests without status failed as a whole
+     */
+    private static boolean isTransient(Integer status) {
+        return status == null || status == 429 || status >= 500;
+    }
+
+    /*
+     * Helper method to register the latency timer of bulk requests per outcome
+     */
+    private static Timer registerLatencyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder(BULK_LATENCY_METRIC)
+                .description("Latency of the bulk requests that store per-user notifications")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
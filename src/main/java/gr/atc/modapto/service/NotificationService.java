@@ -1,47 +1,57 @@
 package gr.atc.modapto.service;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import gr.atc.modapto.dto.AssignmentDto;
-import gr.atc.modapto.dto.UserDto;
+import gr.atc.modapto.enums.NotificationStorageMode;
 import gr.atc.modapto.enums.NotificationType;
 import gr.atc.modapto.service.interfaces.INotificationService;
 import org.modelmapper.MappingException;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
-import gr.atc.modapto.controller.BaseAppResponse;
 import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.dto.NotificationRecipient;
 import gr.atc.modapto.enums.NotificationStatus;
 import gr.atc.modapto.exception.CustomExceptions.DataNotFoundException;
 import gr.atc.modapto.exception.CustomExceptions.ModelMappingException;
 import gr.atc.modapto.model.Notification;
+import gr.atc.modapto.model.NotificationBody;
+import gr.atc.modapto.repository.NotificationBodyRepository;
 import gr.atc.modapto.repository.NotificationRepository;
+import gr.atc.modapto.security.ComponentTokenManager;
+import gr.atc.modapto.util.DeterministicIdUtils;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
@@ -50,40 +60,58 @@ public class NotificationService implements INotificationService {
 
     private final NotificationRepository notificationRepository;
 
-    private final RestTemplate restTemplate;
-
     private final ModelMapper modelMapper;
 
     private final WebSocketService webSocketService;
 
     private final ObjectMapper objectMapper;
 
+    private final ElasticsearchOperations elasticsearchOperations;
+
     private static final String SUPER_ADMIN_ROLE = "SUPER_ADMIN";
 
-    @Value("${keycloak.token-uri}")
-    private String tokenUri;
+    private final ComponentTokenManager componentTokenManager;
+
+    private final UserDirectoryCache userDirectoryCache;
+
+    private final NotificationBulkWriter notificationBulkWriter;
 
-    @Value("${user.manager.component.url}")
-    private String userManagerUrl;
+    private final NotificationBodyRepository notificationBodyRepository;
 
-    @Value("${keycloak.client}")
-    private String client;
+    private final ReadStatusBuffer readStatusBuffer;
 
-    @Value("${keycloak.client.secret}")
-    private String clientSecret;
+    private final UnreadCounterService unreadCounterService;
 
-    private static final String TOKEN = "access_token";
+    @Value("${notification.storage.mode:COPIES}")
+    private NotificationStorageMode storageMode = NotificationStorageMode.COPIES;
 
-    private static final String JWT_ERROR = "Unable to retrieve Component's JWT Token - Client credentials";
+    @Value("${notification.update-by-query.slices:2}")
+    private int updateByQuerySlices = 2;
 
     private static final String MAPPING_ERROR = "Error mapping Notifications to Dto - Error: ";
 
-    public NotificationService(NotificationRepository notificationRepository, ModelMapper modelMapper, WebSocketService webSocketService, ObjectMapper objectMapper){
+    private static final String NOTIFICATIONS_INDEX = "notifications";
+
+    private static final String NOTIFICATION_BODIES_INDEX = "notification-bodies";
+
+    private static final String INCREMENT_OCCURRENCES_SCRIPT =
+            "ctx._source.occurrences = (ctx._source.occurrences == null ? 1 : ctx._source.occurrences) + params.delta";
+
+    private static final String MARK_READ_SCRIPT =
+            "ctx._source.notificationStatus = params.status; ctx._source.readAt = params.readAt";
+
+    public NotificationService(NotificationRepository notificationRepository, ModelMapper modelMapper, WebSocketService webSocketService, ObjectMapper objectMapper, @Qualifier("elasticsearchTemplate") ElasticsearchOperations elasticsearchOperations, ComponentTokenManager componentTokenManager, UserDirectoryCache userDirectoryCache, NotificationBulkWriter notificationBulkWriter, NotificationBodyRepository notificationBodyRepository, ReadStatusBuffer readStatusBuffer, UnreadCounterService unreadCounterService){
         this.notificationRepository = notificationRepository;
-        this.restTemplate = new RestTemplate();
         this.modelMapper = modelMapper;
         this.webSocketService = webSocketService;
         this.objectMapper = objectMapper;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.componentTokenManager = componentTokenManager;
+        this.userDirectoryCache = userDirectoryCache;
+        this.notificationBulkWriter = notificationBulkWriter;
+        this.notificationBodyRepository = notificationBodyRepository;
+        this.readStatusBuffer = readStatusBuffer;
+        this.unreadCounterService = unreadCounterService;
     }
 
     /**
@@ -95,12 +123,97 @@ public class NotificationService implements INotificationService {
     @Override
     public String storeNotification(NotificationDto notification) {
        try{
-           return notificationRepository.save(modelMapper.map(notification, Notification.class)).getId();
+           Notification storedNotification = notificationRepository.save(modelMapper.map(notification, Notification.class));
+           if (isUnread(storedNotification))
+               unreadCounterService.adjust(storedNotification.getUserId(), 1);
+           return storedNotification.getId();
        } catch (MappingException e){
            throw new ModelMappingException("Unable to map NotificationDto to Notification - " + e.getMessage());
        }
     }
 
+    /**
+     * Store the notifications of a fan-out in DB with chunked bulk requests
+     * The template is mapped once and never modified - A new document is rendered per recipient, in chunks.
+     * In SHARED_BODY storage mode the body is stored once and each recipient gets a receipt referring to it.
+     * Once all notifications are stored, the unread counters are increased once per recipient by the notifications that were created -
+     * Notifications of re-delivered events that were already stored are not counted again
+     *
+     * @param template: Notification Dto shared by all recipients
+     * @param recipients: Recipients of the notification
+     * @return List<String>: Notification IDs
+     */
+    @Override
+    public List<String> storeNotifications(NotificationDto template, List<NotificationRecipient> recipients) {
+        if (recipients.isEmpty())
+            return List.of();
+
+        Notification templateDocument;
+        try {
+            templateDocument = modelMapper.map(template, Notification.class);
+        } catch (MappingException e) {
+            throw new ModelMappingException("Unable to map NotificationDto to Notification - " + e.getMessage());
+        }
+
+        NotificationBulkWriter.StoreResult storeResult;
+        if (storageMode == NotificationStorageMode.SHARED_BODY) {
+            String bodyId = storeSharedBody(templateDocument);
+            storeResult = notificationBulkWriter.storeAll(recipients, recipient -> renderReceipt(templateDocument, bodyId, recipient));
+        } else {
+            storeResult = notificationBulkWriter.storeAll(recipients, recipient -> renderCopy(templateDocument, recipient));
+        }
+
+        if (isUnread(templateDocument)) {
+            Map<String, Long> createdPerUser = new HashMap<>();
+            List<String> notificationIds = storeResult.notificationIds();
+            for (int i = 0; i < recipients.size(); i++) {
+                if (storeResult.createdIds().contains(notificationIds.get(i)))
+                    createdPerUser.merge(recipients.get(i).userId(), 1L, Long::sum);
+            }
+            unreadCounterService.adjustAll(createdPerUser);
+        }
+        return storeResult.notificationIds();
+    }
+
+    /**
+     * Increase the occurrences of all notifications related to an event - Partial update of the stored notifications
+     *
+     * @param relatedEventId: ID of the event that the notifications refer to
+     * @param delta: Number of new occurrences
+     * @return long: Number of updated notifications
+     */
+    @Override
+    public long incrementNotificationOccurrences(String relatedEventId, int delta) {
+        // Receipts of shared bodies carry no occurrences - Their bodies are updated instead
+        NativeQuery copiesQuery = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> b
+                        .filter(f -> f.term(t -> t.field("relatedEvent").value(relatedEventId)))
+                        .mustNot(m -> m.exists(e -> e.field("body")))))
+                .build();
+        long updated = elasticsearchOperations.updateByQuery(incrementOccurrences(copiesQuery, delta), IndexCoordinates.of(NOTIFICATIONS_INDEX)).getUpdated();
+
+        if (storageMode == NotificationStorageMode.SHARED_BODY) {
+            NativeQuery bodiesQuery = NativeQuery.builder()
+                    .withQuery(q -> q.term(t -> t.field("relatedEvent").value(relatedEventId)))
+                    .build();
+            updated += elasticsearchOperations.updateByQuery(incrementOccurrences(bodiesQuery, delta), IndexCoordinates.of(NOTIFICATION_BODIES_INDEX)).getUpdated();
+        }
+        return updated;
+    }
+
+    /*
+     * Helper method to build the partial update that increases the occurrences of the matching documents
+     */
+    private UpdateQuery incrementOccurrences(NativeQuery query, int delta) {
+        return UpdateQuery.builder(query)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withScript(INCREMENT_OCCURRENCES_SCRIPT)
+                .withParams(Map.of("delta", delta))
+                .withSlices(updateByQuerySlices)
+                .build();
+    }
+
     /**
      * Delete notification by Id
      *
@@ -108,11 +221,16 @@ public class NotificationService implements INotificationService {
      */
     @Override
     public void deleteNotificationById(String notificationId) {
+        // Read marks not yet stored are dropped before the notification is loaded, so that its status is final and it is counted only here
+        readStatusBuffer.discard(notificationId);
         Optional<Notification> optionalNotification = notificationRepository.findById(notificationId);
         if (optionalNotification.isEmpty())
             throw new DataNotFoundException("Notification with id: " + notificationId + " not found in DB");
 
-        notificationRepository.delete(optionalNotification.get());
+        Notification notification = optionalNotification.get();
+        notificationRepository.delete(notification);
+        if (isUnread(notification))
+            unreadCounterService.adjust(notification.getUserId(), -1);
     }
 
     /**
@@ -125,6 +243,7 @@ public class NotificationService implements INotificationService {
     public Page<NotificationDto> retrieveAllNotifications(Pageable pageable) {
         try {
             Page<Notification> notificationPage = notificationRepository.findByUserId(SUPER_ADMIN_ROLE, pageable);
+            prepareForRead(notificationPage.getContent());
             return notificationPage.map(notification -> modelMapper.map(notification, NotificationDto.class));
         } catch (MappingException e) {
             throw new ModelMappingException(MAPPING_ERROR + e.getMessage());
@@ -142,6 +261,7 @@ public class NotificationService implements INotificationService {
     public Page<NotificationDto> retrieveAllNotificationsPerUserId(String userId, Pageable pageable){
         try{
             Page<Notification> notificationPage = notificationRepository.findByUserId(userId, pageable);
+            prepareForRead(notificationPage.getContent());
             return notificationPage.map(notification -> modelMapper.map(notification, NotificationDto.class));
         } catch (MappingException e) {
             throw new ModelMappingException(MAPPING_ERROR + e.getMessage());
@@ -158,8 +278,12 @@ public class NotificationService implements INotificationService {
     public List<NotificationDto> retrieveUnreadNotificationsPerUserId(String userId) {
         try{
             Page<Notification> notificationsPage = notificationRepository.findByUserIdAndNotificationStatus(userId, NotificationStatus.UNREAD.toString(), Pageable.unpaged());
-            List<Notification> notifications = notificationsPage.getContent();
-            return notifications.stream().map(notification -> modelMapper.map(notification, NotificationDto.class)).toList();
+            List<Notification> notifications = prepareForRead(notificationsPage.getContent());
+            // Notifications marked as read after the query was served are still unread in DB
+            return notifications.stream()
+                    .filter(notification -> !NotificationStatus.READ.toString().equals(notification.getNotificationStatus()))
+                    .map(notification -> modelMapper.map(notification, NotificationDto.class))
+                    .toList();
         } catch (MappingException e) {
             throw new ModelMappingException(MAPPING_ERROR + e.getMessage());
         }
@@ -176,6 +300,7 @@ public class NotificationService implements INotificationService {
     public Page<NotificationDto> retrieveAllNotificationsPerNotificationType(String notificationType, Pageable pageable) {
         try{
             Page<Notification> notificationsPage = notificationRepository.findByNotificationType(notificationType, pageable);
+            prepareForRead(notificationsPage.getContent());
             return notificationsPage.map(notification -> modelMapper.map(notification, NotificationDto.class));
         } catch (MappingException e) {
             throw new ModelMappingException(MAPPING_ERROR + e.getMessage());
@@ -194,6 +319,7 @@ public class NotificationService implements INotificationService {
     public Page<NotificationDto> retrieveAllNotificationsPerNotificationTypeAndUserId(String notificationType, String userId, Pageable pageable) {
         try{
             Page<Notification> notificationsPage = notificationRepository.findByNotificationTypeAndUserId(notificationType, userId, pageable);
+            prepareForRead(notificationsPage.getContent());
             return notificationsPage.map(notification -> modelMapper.map(notification, NotificationDto.class));
         } catch (MappingException e) {
             throw new ModelMappingException(MAPPING_ERROR + e.getMessage());
@@ -212,6 +338,7 @@ public class NotificationService implements INotificationService {
             Optional<Notification> optionalNotification = notificationRepository.findById(notificationId);
             if (optionalNotification.isEmpty())
                 throw new DataNotFoundException("Notification with id: " + notificationId + " not found in DB");
+            prepareForRead(List.of(optionalNotification.get()));
             return modelMapper.map(optionalNotification.get(), NotificationDto.class);
         } catch (MappingException e) {
             throw new ModelMappingException("Error mapping Notification to Dto - Error: " + e.getMessage());
@@ -219,205 +346,246 @@ public class NotificationService implements INotificationService {
     }
 
     /**
-     * Retrieve all user ids for a specific Pilot from User Manager Service
+     * Retrieve all user ids for a specific Pilot - From the User Directory
      *
      * @return List<String> : List with user Ids
      */
     @Override
     public List<String> retrieveUserIdsPerPilot(String pilot) {
-        // Retrieve Component's JWT Token - Client credentials
-        String token = retrieveComponentJwtToken();
-        if (token == null){
-            log.error(JWT_ERROR);
-            return Collections.emptyList();
-        }
-
-        // Retrieve User Ids
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(token);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            String requestUrl =  userManagerUrl.concat("/api/users/pilot/").concat(pilot);
-            log.debug("Making request to User Manager to retrieve Users for pilot - URL: {}", requestUrl);
-            ResponseEntity<BaseAppResponse<List<UserDto>>> response = restTemplate.exchange(
-                    requestUrl,
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<BaseAppResponse<List<UserDto>>>() {
-                    }
-            );
-
-            return Optional.of(response)
-                    .filter(resp -> resp.getStatusCode().is2xxSuccessful())
-                    .map(ResponseEntity::getBody)
-                    .map(BaseAppResponse::getData)
-                    .map(dataList -> dataList.stream()
-                            .map(UserDto::getUserId)
-                            .filter(Objects::nonNull)
-                            .collect(Collectors.toList()))
-                    .orElse(new ArrayList<>());
-        } catch (RestClientException e) {
-            log.error("Unable to retrieve user IDs for pilot {} -  Error: {}", pilot, e.getMessage());
-            return Collections.emptyList();
-        }
+        return new ArrayList<>(userDirectoryCache.getUserIdsPerPilot(pilot));
     }
 
     /**
-     * Retrieve user ids per role
+     * Retrieve user ids per role - From the User Directory
      *
      * @param roles: User Roles correlated with an event
      * @return List<String> : List with user Ids
      */
     @Override
     public List<String> retrieveUserIdsPerRoles(List<String> roles){
-        // Retrieve Component's JWT Token - Client credentials
-        String token = retrieveComponentJwtToken();
-        if (token == null){
-            return Collections.emptyList();
-        }
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(token);
-
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-        // Retrieve User Ids per role in parallel
-        List<String> allUserIds = new ArrayList<>();
-        return roles.parallelStream()
-                .map(role -> {
-                    try {
-                        String requestUrl = userManagerUrl.concat("/api/users/role/").concat(role);
-                        log.debug("Making request to User Manager to retrieve Users for Role '{}' - URL: {}", role, requestUrl);
-
-                        ResponseEntity<BaseAppResponse<List<UserDto>>> response = restTemplate.exchange(
-                                requestUrl,
-                                HttpMethod.GET,
-                                entity,
-                                new ParameterizedTypeReference<BaseAppResponse<List<UserDto>>>() {});
-
-                        return Optional.of(response)
-                                .filter(resp -> resp.getStatusCode().is2xxSuccessful())
-                                .map(ResponseEntity::getBody)
-                                .map(BaseAppResponse::getData)
-                                .map(dataList -> dataList.stream()
-                                        .map(UserDto::getUserId)
-                                        .filter(Objects::nonNull)
-                                        .collect(Collectors.toList()))
-                                .orElse(new ArrayList<>());
-                    } catch (RestClientException e) {
-                        log.error("Unable to locate User IDs for Role: {} - Error: {}", role, e.getMessage());
-                        return new ArrayList<String>();
-                    }
-                })
-                .flatMap(List::stream)
-                .distinct()
-                .collect(Collectors.toList());
+        // Roles missing from the directory are looked up concurrently on virtual threads, within a shared deadline
+        return new ArrayList<>(userDirectoryCache.getUserIdsPerRoles(roles));
     }
 
     /**
-     * Retrieve user full name by user ID
+     * Retrieve user full name by user ID - From the User Directory
      *
      * @param userId: User ID
      * @return String: User full name or null if not found
      */
     @Override
     public String retrieveUserFullName(String userId) {
-        // Retrieve Component's JWT Token - Client credentials
-        String token = retrieveComponentJwtToken();
-        if (token == null) {
-            log.error(JWT_ERROR);
-            return null;
-        }
+        return userDirectoryCache.getUserFullName(userId);
+    }
 
-        // Retrieve User full name
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(token);
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<BaseAppResponse<UserDto>> response = restTemplate.exchange(
-                    userManagerUrl.concat("/api/users/search?userId=").concat(userId),
-                    HttpMethod.GET,
-                    entity,
-                    new ParameterizedTypeReference<BaseAppResponse<UserDto>>() {
-                    }
-            );
-
-            return Optional.of(response)
-                    .filter(resp -> resp.getStatusCode().is2xxSuccessful())
-                    .map(ResponseEntity::getBody)
-                    .map(BaseAppResponse::getData)
-                    .map(userDto -> {
-                        if (userDto.getFirstName() != null && userDto.getLastName() != null) {
-                            return userDto.getFirstName() + " " + userDto.getLastName();
-                        } else if (userDto.getFirstName() != null) {
-                            return userDto.getFirstName();
-                        } else if (userDto.getLastName() != null) {
-                            return userDto.getLastName();
-                        } else {
-                            return userDto.getUsername();
-                        }
-                    })
-                    .orElse(null);
-        } catch (RestClientException e) {
-            log.error("Unable to retrieve user full name for userId {} - Error: {}", userId, e.getMessage());
-            return null;
-        }
+    /**
+     * Retrieve the full names of multiple users - From the User Directory
+     *
+     * @param userIds: User IDs
+     * @return Map<String, String>: User full name per User ID - Users not found are omitted
+     */
+    @Override
+    public Map<String, String> retrieveUserFullNames(Collection<String> userIds) {
+        return userDirectoryCache.getUserFullNames(userIds);
     }
 
     /**
      * Update notification status (From Unread to Read) for a specific notification
+     * The existence of the notification is checked without loading it, and the mark is buffered and stored with the next bulk partial update - Reads see it immediately
      *
      * @param notificationId : ID of notification
+     * @throws DataNotFoundException : If the notification does not exist
      */
     @Override
     public void updateNotificationStatusToRead(String notificationId) {
-        Optional<Notification> optionalNotification = notificationRepository.findById(notificationId);
-        if (optionalNotification.isEmpty())
+        if (!notificationRepository.existsById(notificationId))
             throw new DataNotFoundException("Notification with id: " + notificationId + " not found in DB");
 
-        Notification notification = optionalNotification.get();
-        notification.setNotificationStatus(NotificationStatus.READ.toString());
-        notificationRepository.save(notification);
+        readStatusBuffer.markRead(notificationId);
     }
 
     /**
-     * Generate a JWT Token to access Keycloak resources
+     * Mark all unread notifications of a user as read - Sliced update by query, optionally scoped by notification type and module
      *
-     * @return Token
+     * @param userId : ID of user
+     * @param notificationType : Notification Type - Null for all types
+     * @param module : Module - Null for all modules
+     * @return long : Number of notifications marked as read
      */
-    public String retrieveComponentJwtToken(){
+    @Override
+    public long markAllNotificationsAsRead(String userId, String notificationType, String module) {
+        NativeQuery unreadQuery = NativeQuery.builder()
+                .withQuery(q -> q.bool(b -> {
+                    b.filter(f -> f.term(t -> t.field("userId").value(userId)));
+                    b.filter(f -> f.term(t -> t.field("notificationStatus").value(NotificationStatus.UNREAD.toString())));
+                    if (notificationType != null)
+                        b.filter(f -> f.term(t -> t.field("notificationType").value(notificationType)));
+                    if (module != null)
+                        b.filter(f -> f.term(t -> t.field("module").value(module)));
+                    return b;
+                }))
+                .build();
+
+        // Version conflicts with concurrent read marks are skipped, as both write the same status
+        UpdateQuery markAllRead = UpdateQuery.builder(unreadQuery)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withScript(MARK_READ_SCRIPT)
+                .withParams(Map.of("status", NotificationStatus.READ.toString(),
+                        "readAt", OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MILLIS).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)))
+                .withSlices(updateByQuerySlices)
+                .withAbortOnVersionConflict(false)
+                .withRefreshPolicy(RefreshPolicy.IMMEDIATE)
+                .build();
+        long updated = elasticsearchOperations.updateByQuery(markAllRead, IndexCoordinates.of(NOTIFICATIONS_INDEX)).getUpdated();
+        unreadCounterService.adjust(userId, -updated);
+        return updated;
+    }
+
+    /**
+     * Retrieve the number of unread notifications of a user - Served from the incrementally maintained counters
+     *
+     * @param userId : ID of user
+     * @return long : Unread notifications
+     */
+    @Override
+    public long retrieveUnreadNotificationCount(String userId) {
+        return unreadCounterService.getUnreadCount(userId);
+    }
+
+    /*
+     * Helper method to store the body shared by the notifications of a fan-out - Returns the ID of the body
+     * The body is stored before the receipts, so that a receipt never refers to a missing body.
+     * Bodies are created only if they do not exist yet, so re-deliveries keep the occurrences of the stored body.
+     * The request completes once the body is searchable, so that occurrence increments by query always find it
+     */
+    private String storeSharedBody(Notification template) {
+        NotificationBody body = new NotificationBody();
+        body.setId(template.getRelatedEvent() != null ? DeterministicIdUtils.notificationBodyId(template.getRelatedEvent()) : UUID.randomUUID().toString());
+        body.setDescription(template.getDescription());
+        body.setModule(template.getModule());
+        body.setModuleName(template.getModuleName());
+        body.setTimestamp(template.getTimestamp());
+        body.setPriority(template.getPriority());
+        body.setNotificationType(template.getNotificationType());
+        body.setSourceComponent(template.getSourceComponent());
+        body.setSmartService(template.getSmartService());
+        body.setRelatedEvent(template.getRelatedEvent());
+        body.setRelatedAssignment(template.getRelatedAssignment());
+        body.setMessageStatus(template.getMessageStatus());
+        body.setOccurrences(template.getOccurrences());
+
+        IndexQuery createBody = new IndexQueryBuilder()
+                .withId(body.getId())
+                .withObject(body)
+                .withOpType(IndexQuery.OpType.CREATE)
+                .build();
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-
-            MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
-            map.add("client_id", client);
-            map.add("client_secret", clientSecret);
-            map.add("grant_type", "client_credentials");
-
-            HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(map, headers);
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                    tokenUri,
-                    HttpMethod.POST,
-                    entity,
-                    new ParameterizedTypeReference<>() {
-                    }
-            );
-
-            return Optional.of(response)
-                    .filter(resp -> resp.getStatusCode().is2xxSuccessful())
-                    .map(ResponseEntity::getBody)
-                    .filter(body -> body.get(TOKEN) != null)
-                    .map(body -> body.get(TOKEN).toString())
-                    .orElse(null);
-        }  catch (RestClientException e) {
-            log.error("Rest Client error during authenticating the client: Error: {}", e.getMessage());
-            return null;
+            elasticsearchOperations.withRefreshPolicy(RefreshPolicy.WAIT_UNTIL).index(createBody, IndexCoordinates.of(NOTIFICATION_BODIES_INDEX));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Body: {} is already stored - Re-delivered event", body.getId());
+        }
+        return body.getId();
+    }
+
+    /*
+     * Helper method to render the full copy of a notification for a recipient
+     */
+    private static Notification renderCopy(Notification template, NotificationRecipient recipient) {
+        Notification notification = new Notification();
+        notification.setId(recipient.notificationId());
+        notification.setUserId(recipient.userId());
+        notification.setUser(recipient.user());
+        notification.setDescription(template.getDescription());
+        notification.setModule(template.getModule());
+        notification.setModuleName(template.getModuleName());
+        notification.setTimestamp(template.getTimestamp());
+        notification.setPriority(template.getPriority());
+        notification.setNotificationType(template.getNotificationType());
+        notification.setNotificationStatus(template.getNotificationStatus());
+        notification.setSourceComponent(template.getSourceComponent());
+        notification.setSmartService(template.getSmartService());
+        notification.setRelatedEvent(template.getRelatedEvent());
+        notification.setRelatedAssignment(template.getRelatedAssignment());
+        notification.setMessageStatus(template.getMessageStatus());
+        notification.setOccurrences(template.getOccurrences());
+        return notification;
+    }
+
+    /*
+     * Helper method to render the receipt of a shared-body notification for a recipient
+     * Receipts keep the fields that the read endpoints filter and sort on
+     */
+    private static Notification renderReceipt(Notification template, String bodyId, NotificationRecipient recipient) {
+        Notification receipt = new Notification();
+        receipt.setId(recipient.notificationId());
+        receipt.setUserId(recipient.userId());
+        receipt.setUser(recipient.user());
+        receipt.setNotificationStatus(template.getNotificationStatus());
+        receipt.setNotificationType(template.getNotificationType());
+        receipt.setRelatedEvent(template.getRelatedEvent());
+        receipt.setModule(template.getModule());
+        receipt.setTimestamp(template.getTimestamp());
+        receipt.setBody(bodyId);
+        return receipt;
+    }
+
+    /*
+     * Helper method to check whether a stored notification counts as unread
+     */
+    private static boolean isUnread(Notification notification) {
+        return NotificationStatus.UNREAD.toString().equals(notification.getNotificationStatus());
+    }
+
+    /*
+     * Helper method to prepare notifications retrieved from DB for a read - Shared bodies are joined and read marks not yet stored are applied
+     */
+    private List<Notification> prepareForRead(List<Notification> notifications) {
+        return readStatusBuffer.applyPendingReads(joinSharedBodies(notifications));
+    }
+
+    /*
+     * Helper method to fill the receipts of shared-body notifications with their bodies - Bodies are retrieved with a single request
+     * Full copies are returned as they are
+     */
+    private List<Notification> joinSharedBodies(List<Notification> notifications) {
+        Set<String> bodyIds = notifications.stream()
+                .map(Notification::getBody)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (bodyIds.isEmpty())
+            return notifications;
+
+        Map<String, NotificationBody> bodies = new HashMap<>();
+        notificationBodyRepository.findAllById(bodyIds).forEach(body -> bodies.put(body.getId(), body));
+        for (Notification notification : notifications) {
+            NotificationBody body = bodies.get(notification.getBody());
+            if (body == null) {
+                log.warn("Body: {} of Notification: {} not found in DB", notification.getBody(), notification.getId());
+                continue;
+            }
+            notification.setDescription(body.getDescription());
+            notification.setModule(body.getModule());
+            notification.setModuleName(body.getModuleName());
+            notification.setPriority(body.getPriority());
+            notification.setSourceComponent(body.getSourceComponent());
+            notification.setSmartService(body.getSmartService());
+            notification.setRelatedAssignment(body.getRelatedAssignment());
+            notification.setMessageStatus(body.getMessageStatus());
+            notification.setOccurrences(body.getOccurrences());
+            if (notification.getTimestamp() == null)
+                notification.setTimestamp(body.getTimestamp());
         }
+        return notifications;
+    }
+
+    /**
+     * Retrieve the JWT Token of the component to access Keycloak resources - Cached until it expires
+     *
+     * @return Token
+     */
+    public String retrieveComponentJwtToken(){
+        return componentTokenManager.getToken();
     }
 
     /**
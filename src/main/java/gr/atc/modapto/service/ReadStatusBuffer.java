@@ -0,0 +1,270 @@
+package gr.atc.modapto.service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import co.elastic.clients.json.JsonData;
+import gr.atc.modapto.enums.NotificationStatus;
+import gr.atc.modapto.model.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind buffer of notification read marks - Marks are collected per notification ID, so repeated marks of the same
+ * notification are coalesced, and flushed periodically (or once the buffer is full) as a single bulk update of the read status.
+ * Marks stay visible to reads until they are stored, so a read right after a mark already sees the notification as read.
+ * Marks rejected with a transient status (429, 5xx) are kept for the next flush
+ */
+@Slf4j
+@Component
+public class ReadStatusBuffer {
+
+    private static final String NOTIFICATIONS_INDEX = "notifications";
+
+    private static final String USER_ID_FIELD = "userId";
+
+    private static final String MARK_READ_SCRIPT =
+            "if (ctx._source.notificationStatus == params.status) { ctx.op = 'noop' } else { ctx._source.notificationStatus = params.status; ctx._source.readAt = params.readAt }";
+
+    private static final String MARKS_METRIC = "modapto.notifications.read-buffer.marks";
+
+    private static final String COALESCED_METRIC = "modapto.notifications.read-buffer.coalesced";
+
+    private static final String FLUSHED_METRIC = "modapto.notifications.read-buffer.flushed";
+
+    private static final String PENDING_METRIC = "modapto.notifications.read-buffer.pending";
+
+    private final ElasticsearchAsyncWriter asyncWriter;
+
+    private final UnreadCounterService unreadCounterService;
+
+    private final int maxPendingMarks;
+
+    // Read time per notification ID - Marks not yet sent and marks of the flush in flight
+    private final Map<String, OffsetDateTime> pendingReads = new ConcurrentHashMap<>();
+
+    private final Map<String, OffsetDateTime> flushingReads = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushInFlight = new AtomicBoolean();
+
+    private volatile CompletableFuture<Void> lastFlush = CompletableFuture.completedFuture(null);
+
+    private final Counter marks;
+
+    private final Counter coalescedMarks;
+
+    private final Counter flushedMarks;
+
+    public ReadStatusBuffer(ElasticsearchAsyncWriter asyncWriter,
+                            UnreadCounterService unreadCounterService,
+                            MeterRegistry meterRegistry,
+                            @Value("${notification.read-buffer.max-pending:500}") int maxPendingMarks) {
+        this.asyncWriter = asyncWriter;
+        this.unreadCounterService = unreadCounterService;
+        this.maxPendingMarks = Math.max(1, maxPendingMarks);
+
+        this.marks = Counter.builder(MARKS_METRIC)
+                .description("Number of notification read marks received")
+                .register(meterRegistry);
+        this.coalescedMarks = Counter.builder(COALESCED_METRIC)
+                .description("Number of read marks of notifications already pending in the buffer")
+                .register(meterRegistry);
+        this.flushedMarks = Counter.builder(FLUSHED_METRIC)
+                .description("Number of read marks stored with bulk partial updates")
+                .register(meterRegistry);
+        Gauge.builder(PENDING_METRIC, this, buffer -> buffer.pendingReads.size() + buffer.flushingReads.size())
+                .description("Number of read marks not yet stored")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Mark a notification as read - The mark is stored with the next flush
+     *
+     * @param notificationId : ID of notification
+     */
+    public void markRead(String notificationId) {
+        marks.increment();
+        if (flushingReads.containsKey(notificationId) || pendingReads.putIfAbsent(notificationId, OffsetDateTime.now(ZoneOffset.UTC)) != null) {
+            coalescedMarks.increment();
+            return;
+        }
+
+        if (pendingReads.size() >= maxPendingMarks)
+            flush();
+    }
+
+    /**
+     * Check whether a read mark of a notification is not yet stored
+     *
+     * @param notificationId : ID of notification
+     * @return True if the notification is marked as read in the buffer
+     */
+    public boolean isPending(String notificationId) {
+        return pendingReads.containsKey(notificationId) || flushingReads.containsKey(notificationId);
+    }
+
+    /**
+     * Discard the read mark of a notification that is being deleted - A mark of the flush in flight is awaited, so that once this returns
+     * the notification is neither marked in the buffer nor changed by a later flush, and its stored status is final
+     *
+     * @param notificationId : ID of notification
+     */
+    public void discard(String notificationId) {
+        pendingReads.remove(notificationId);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flushingReads.containsKey(notificationId) && System.nanoTime() < deadline) {
+            try {
+                lastFlush.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                break;
+            }
+            Thread.onSpinWait();
+        }
+        // Marks of a failed flush are kept for the next one
+        pendingReads.remove(notificationId);
+    }
+
+    /**
+     * Apply the read marks not yet stored to notifications retrieved from DB (read-your-writes)
+     *
+     * @param notifications : Notifications retrieved from DB
+     * @return List<Notification> : Same notifications, marked as read where a mark is pending
+     */
+    public List<Notification> applyPendingReads(List<Notification> notifications) {
+        if (pendingReads.isEmpty() && flushingReads.isEmpty())
+            return notifications;
+
+        for (Notification notification : notifications) {
+            OffsetDateTime readAt = pendingReadAt(notification.getId());
+            if (readAt == null || NotificationStatus.READ.toString().equals(notification.getNotificationStatus()))
+                continue;
+            notification.setNotificationStatus(NotificationStatus.READ.toString());
+            notification.setReadAt(readAt);
+        }
+        return notifications;
+    }
+
+    /**
+     * Periodic flush of the read marks collected in the last window
+     */
+    @Scheduled(initialDelayString = "${notification.read-buffer.flush-interval:200}", fixedDelayString = "${notification.read-buffer.flush-interval:200}", timeUnit = TimeUnit.MILLISECONDS)
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * Store the pending read marks with a single bulk update - Skipped while a previous flush is in flight
+     * Only the status and read time are written, and notifications already read are left unchanged, so that the unread counters
+     * of their users are decreased only for the notifications that were actually unread
+     *
+     * @return CompletableFuture<Void> : Completed once the flush is stored
+     */
+    public CompletableFuture<Void> flush() {
+        if (pendingReads.isEmpty() || !flushInFlight.compareAndSet(false, true))
+            return lastFlush;
+
+        // Marks are moved to the in-flight set before they leave the pending one, so reads never miss them
+        Map<String, OffsetDateTime> batch = new LinkedHashMap<>();
+        Map<String, Map<String, JsonData>> paramsPerId = new LinkedHashMap<>();
+        for (String notificationId : List.copyOf(pendingReads.keySet())) {
+            OffsetDateTime readAt = pendingReads.get(notificationId);
+            if (readAt == null)
+                continue;
+            flushingReads.put(notificationId, readAt);
+            pendingReads.remove(notificationId);
+            batch.put(notificationId, readAt);
+            paramsPerId.put(notificationId, Map.of(
+                    "status", JsonData.of(NotificationStatus.READ.toString()),
+                    "readAt", JsonData.of(readAt.truncatedTo(ChronoUnit.MILLIS).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))));
+        }
+
+        CompletableFuture<ElasticsearchAsyncWriter.ScriptedUpdateResult> request;
+        try {
+            request = asyncWriter.bulkScriptedUpdate(NOTIFICATIONS_INDEX, paramsPerId, MARK_READ_SCRIPT, List.of(USER_ID_FIELD));
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        lastFlush = request.handle((result, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause != null)
+                log.error("Unable to store {} notification read marks - Retrying with the next flush - Error: {}", batch.size(), cause.getMessage());
+
+            Map<String, Long> readPerUser = new HashMap<>();
+            batch.forEach((notificationId, readAt) -> {
+                BulkFailureException.FailureDetails details = cause != null
+                        ? new BulkFailureException.FailureDetails(null, cause.getMessage())
+                        : result.failures().get(notificationId);
+                if (details == null) {
+                    flushedMarks.increment();
+                    Map<String, JsonData> changedDocument = result.changedDocuments().get(notificationId);
+                    if (changedDocument != null && changedDocument.get(USER_ID_FIELD) != null)
+                        readPerUser.merge(changedDocument.get(USER_ID_FIELD).to(String.class), 1L, Long::sum);
+                } else if (isTransient(details.status()))
+                    pendingReads.putIfAbsent(notificationId, readAt);
+                else
+                    log.warn("Read mark of Notification: {} could not be stored - Error: {}", notificationId, details.errorMessage());
+                flushingReads.remove(notificationId);
+            });
+            flushInFlight.set(false);
+            readPerUser.forEach((userId, read) -> unreadCounterService.adjust(userId, -read));
+            return null;
+        });
+        return lastFlush;
+    }
+
+    /*
+     * Flush the remaining read marks on shutdown
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            lastFlush.get(5, TimeUnit.SECONDS);
+            flush().get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Unable to flush {} notification read marks on shutdown - Error: {}", pendingReads.size() + flushingReads.size(),
+                    e instanceof TimeoutException ? "Timed out" : e.getMessage());
+        }
+    }
+
+    /*
+     * Helper method to retrieve the read time of a mark not yet stored
+     */
+    private OffsetDateTime pendingReadAt(String notificationId) {
+        OffsetDateTime readAt = flushingReads.get(notificationId);
+        return readAt != null ? readAt : pendingReads.get(notificationId);
+    }
+
+    /*
+     * Helper method to decide whether a failed mark may succeed if re-sent - Requests without status failed as a whole
+     */
+    private static boolean isTransient(Integer status) {
+        return status == null || status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,145 @@
+package gr.atc.modapto.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import gr.atc.modapto.events.EventMappingsChangedEvent;
+import gr.atc.modapto.events.UserDirectoryChangedEvent;
+import gr.atc.modapto.pipeline.NotificationPipeline;
+import gr.atc.modapto.service.interfaces.IEventService;
+import gr.atc.modapto.service.interfaces.INotificationService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Materialized view of Topic -> Recipients (User Roles of the Event Mapping and resolved User IDs).
+ * Entries are computed once per topic and reused for every event, until the Event Mapping of the topic
+ * changes or the User Directory reports changed users
+ */
+@Slf4j
+@Component
+public class TopicRecipientsView {
+
+    private static final String GLOBAL_EVENT_MAPPINGS = "ALL";
+    private static final String SUPER_ADMIN_ROLE = "SUPER_ADMIN";
+
+    private final IEventService eventService;
+
+    private final INotificationService notificationService;
+
+    private final NotificationPipeline notificationPipeline;
+
+    // Entries in computation are shared, so that concurrent lookups of a topic resolve its recipients once
+    private final ConcurrentMap<String, CompletableFuture<TopicRecipients>> recipientsPerTopic = new ConcurrentHashMap<>();
+
+    @Value("${use-case.pilot}")
+    private String pilot;
+
+    /**
+     * User Roles and User IDs that receive the notifications of a topic - No User Roles if the topic has no Event Mapping
+     */
+    public record TopicRecipients(List<String> userRoles, List<String> userIds) {}
+
+    public TopicRecipientsView(IEventService eventService, INotificationService notificationService, NotificationPipeline notificationPipeline) {
+        this.eventService = eventService;
+        this.notificationService = notificationService;
+        this.notificationPipeline = notificationPipeline;
+    }
+
+    /**
+     * Retrieve the recipients of a topic - Computed only if the topic is not present in the view
+     *
+     * @param topic : Topic Name
+     * @return TopicRecipients : User Roles and User IDs of the topic
+     */
+    public TopicRecipients getRecipients(String topic) {
+        CompletableFuture<TopicRecipients> entry = recipientsPerTopic.get(topic);
+        if (entry == null) {
+            CompletableFuture<TopicRecipients> computation = new CompletableFuture<>();
+            entry = recipientsPerTopic.putIfAbsent(topic, computation);
+            if (entry == null) {
+                entry = computation;
+                compute(topic, computation);
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            // Failures of the computation are propagated as thrown by the lookups
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Invalidate the recipients of a topic once its Event Mapping is created, updated or deleted
+     */
+    @EventListener
+    public void onEventMappingsChanged(EventMappingsChangedEvent event) {
+        log.debug("Event Mapping of topic '{}' changed - Recipients will be recomputed", event.getTopic());
+        recipientsPerTopic.remove(event.getTopic());
+    }
+
+    /**
+     * Invalidate all recipients once users of a role or pilot changed in the User Directory
+     */
+    @EventListener(UserDirectoryChangedEvent.class)
+    public void onUserDirectoryChanged() {
+        log.debug("User Directory changed - Recipients of all topics will be recomputed");
+        invalidateAll();
+    }
+
+    /**
+     * Invalidate the recipients of all topics
+     */
+    public void invalidateAll() {
+        recipientsPerTopic.clear();
+    }
+
+    /*
+     * Helper method to compute the recipients of a topic - Failures are not kept in the view
+     */
+    private void compute(String topic, CompletableFuture<TopicRecipients> computation) {
+        try {
+            List<String> userRoles = eventService.retrieveUserRolesPerTopic(topic);
+            computation.complete(new TopicRecipients(List.copyOf(userRoles), List.copyOf(determineRecipients(topic, userRoles))));
+        } catch (RuntimeException e) {
+            recipientsPerTopic.remove(topic, computation);
+            computation.completeExceptionally(e);
+        }
+    }
+
+    /*
+     * Helper method to locate the UserIDs that will receive the Notifications of a topic
+     */
+    private List<String> determineRecipients(String topic, List<String> userRoles) {
+        List<String> relatedUserIds = new ArrayList<>();
+
+        // Include Super-Admin UserID
+        relatedUserIds.add(SUPER_ADMIN_ROLE);
+
+        // Handle empty mappings case - Creating mapping and retrieve all pilot users
+        if (userRoles.isEmpty()) {
+            log.debug("No mappings exist for topic '{}'. All users in {} plant will be informed!", topic, pilot.toUpperCase());
+
+            // Request creation of mapping - Async. The view is invalidated once the mapping is stored
+            notificationPipeline.submitDefaultMappingCreation(topic);
+
+            relatedUserIds.addAll(notificationService.retrieveUserIdsPerPilot(pilot.toUpperCase()));
+        } else if (userRoles.contains(GLOBAL_EVENT_MAPPINGS)) { // Handle "ALL" role mapping - Send notification globally to pilot users
+            relatedUserIds.addAll(notificationService.retrieveUserIdsPerPilot(pilot.toUpperCase()));
+        } else { // Handle specific roles
+            relatedUserIds.addAll(notificationService.retrieveUserIdsPerRoles(userRoles));
+        }
+
+        return relatedUserIds;
+    }
+}
@@ -0,0 +1,251 @@
+package gr.atc.modapto.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import gr.atc.modapto.dto.UnreadCountDto;
+import gr.atc.modapto.enums.NotificationStatus;
+import gr.atc.modapto.model.Notification;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Unread notifications per user, kept in memory so that badge counts never load the notifications themselves.
+ * Counters are adjusted incrementally when notifications are stored, marked as read or deleted, and every change is pushed
+ * as a delta on the WebSocket topic of the user. Pushes run on a dedicated thread in the order of the changes, so callers never
+ * wait for them. Counters are rebuilt from a composite aggregation once the application is ready and resynchronized periodically.
+ * Until the first rebuild completes, users are counted on demand
+ */
+@Slf4j
+@Service
+public class UnreadCounterService {
+
+    private static final String USER_ID_FIELD = "userId";
+
+    private static final String UNREAD_PER_USER_AGGREGATION = "unreadPerUser";
+
+    private static final int AGGREGATION_PAGE_SIZE = 1000;
+
+    private static final String TRACKED_USERS_METRIC = "modapto.notifications.unread-counter.users";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+
+    private final WebSocketService webSocketService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, AtomicLong> unreadCounts = new ConcurrentHashMap<>();
+
+    private final Executor pushExecutor;
+
+    private volatile boolean rebuilt = false;
+
+    @Autowired
+    public UnreadCounterService(@Qualifier("elasticsearchTemplate") ElasticsearchOperations elasticsearchOperations,
+                                WebSocketService webSocketService,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this(elasticsearchOperations, webSocketService, objectMapper, meterRegistry,
+                Executors.newSingleThreadExecutor(Thread.ofVirtual().name("unread-counter-push").factory()));
+    }
+
+    UnreadCounterService(ElasticsearchOperations elasticsearchOperations, WebSocketService webSocketService, ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry, Executor pushExecutor) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.webSocketService = webSocketService;
+        this.objectMapper = objectMapper;
+        this.pushExecutor = pushExecutor;
+
+        Gauge.builder(TRACKED_USERS_METRIC, unreadCounts, Map::size)
+                .description("Number of users with a maintained unread notifications counter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieve the number of unread notifications of a user
+     *
+     * @param userId : ID of user
+     * @return long : Unread notifications
+     */
+    public long getUnreadCount(String userId) {
+        AtomicLong unreadCount = unreadCounts.get(userId);
+        if (unreadCount != null)
+            return unreadCount.get();
+        if (rebuilt)
+            return 0;
+
+        // Counted on demand and not kept until the counters are rebuilt - A change applied between the count and caching it would be lost
+        return elasticsearchOperations.count(NativeQuery.builder().withQuery(unreadQuery(userId)).build(), Notification.class);
+    }
+
+    /**
+     * Adjust the number of unread notifications of a user and push the change over WebSocket
+     *
+     * @param userId : ID of user
+     * @param delta : Change of unread notifications - Positive for new notifications, negative for read or deleted ones
+     */
+    public void adjust(String userId, long delta) {
+        Map<String, Long> deltaPerUser = new HashMap<>();
+        deltaPerUser.put(userId, delta);
+        adjustAll(deltaPerUser);
+    }
+
+    /**
+     * Adjust the number of unread notifications of several users and push one change per user over WebSocket
+     *
+     * @param deltasPerUser : Change of unread notifications per user ID - Positive for new notifications, negative for read or deleted ones
+     */
+    public void adjustAll(Map<String, Long> deltasPerUser) {
+        List<UnreadCountDto> changes = new ArrayList<>(deltasPerUser.size());
+        deltasPerUser.forEach((userId, delta) -> {
+            if (userId == null || delta == null || delta == 0)
+                return;
+
+            // Users without counter before the first rebuild are counted on demand - Their stored notifications already include the change
+            AtomicLong unreadCount = rebuilt ? unreadCounts.computeIfAbsent(userId, id -> new AtomicLong()) : unreadCounts.get(userId);
+            Long updatedCount = unreadCount != null ? unreadCount.updateAndGet(count -> Math.max(0, count + delta)) : null;
+            changes.add(UnreadCountDto.builder()
+                    .type(UnreadCountDto.UNREAD_COUNT_CHANGED)
+                    .userId(userId)
+                    .delta(delta)
+                    .unreadCount(updatedCount)
+                    .build());
+        });
+        if (changes.isEmpty())
+            return;
+
+        try {
+            pushExecutor.execute(() -> changes.forEach(this::publishChange));
+        } catch (RejectedExecutionException e) {
+            log.warn("Unable to push {} unread count changes - Service is shutting down", changes.size());
+        }
+    }
+
+    /**
+     * Rebuild the counters of all users from the stored unread notifications - Once the application is ready, in the background
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        Thread.ofPlatform().daemon().name("unread-counter-rebuild").start(this::rebuild);
+    }
+
+    /**
+     * Resynchronize the counters with the stored unread notifications
+     */
+    @Scheduled(initialDelayString = "${notification.unread-counter.resync-interval:600}", fixedDelayString = "${notification.unread-counter.resync-interval:600}", timeUnit = TimeUnit.SECONDS)
+    public void resync() {
+        rebuild();
+    }
+
+    /**
+     * Stop the thread that pushes the changes - Changes that are already queued are still pushed
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (pushExecutor instanceof ExecutorService executorService)
+            executorService.shutdown();
+    }
+
+    /**
+     * Count the unread notifications per user with a paged composite aggregation and replace the counters
+     * Changes that happen while the aggregation runs may be counted twice or missed until the next resynchronization
+     */
+    void rebuild() {
+        try {
+            Map<String, Long> countsPerUser = new HashMap<>();
+            Map<String, FieldValue> afterKey = null;
+            do {
+                CompositeAggregate page = unreadPerUser(afterKey);
+                for (CompositeBucket bucket : page.buckets().array())
+                    countsPerUser.put(bucket.key().get(USER_ID_FIELD).stringValue(), bucket.docCount());
+                afterKey = page.buckets().array().size() < AGGREGATION_PAGE_SIZE || page.afterKey().isEmpty() ? null : page.afterKey();
+            } while (afterKey != null);
+
+            countsPerUser.forEach((userId, count) -> unreadCounts.computeIfAbsent(userId, id -> new AtomicLong()).set(count));
+            unreadCounts.keySet().removeIf(userId -> !countsPerUser.containsKey(userId));
+            rebuilt = true;
+            log.info("Unread notification counters rebuilt for {} users", countsPerUser.size());
+        } catch (RuntimeException e) {
+            log.warn("Unable to rebuild unread notification counters - Users are counted on demand - Error: {}", e.getMessage());
+        }
+    }
+
+    /*
+     * Helper method to retrieve a page of the unread notifications per user
+     */
+    private CompositeAggregate unreadPerUser(Map<String, FieldValue> afterKey) {
+        Aggregation aggregation = Aggregation.of(a -> a.composite(c -> {
+            c.size(AGGREGATION_PAGE_SIZE).sources(List.of(Map.of(USER_ID_FIELD, CompositeAggregationSource.of(s -> s.terms(t -> t.field(USER_ID_FIELD))))));
+            if (afterKey != null)
+                c.after(afterKey);
+            return c;
+        }));
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(unreadQuery(null))
+                .withAggregation(UNREAD_PER_USER_AGGREGATION, aggregation)
+                .withMaxResults(0)
+                .build();
+
+        SearchHits<Notification> searchHits = elasticsearchOperations.search(query, Notification.class);
+        ElasticsearchAggregations aggregations = (ElasticsearchAggregations) searchHits.getAggregations();
+        if (aggregations == null || aggregations.get(UNREAD_PER_USER_AGGREGATION) == null)
+            throw new IllegalStateException("Aggregation of unread notifications per user is missing from the response");
+        return aggregations.get(UNREAD_PER_USER_AGGREGATION).aggregation().getAggregate().composite();
+    }
+
+    /*
+     * Helper method to build the query of unread notifications - Of all users if no User ID is given
+     */
+    private static Query unreadQuery(String userId) {
+        return Query.of(q -> q.bool(b -> {
+            b.filter(f -> f.term(t -> t.field("notificationStatus").value(NotificationStatus.UNREAD.toString())));
+            if (userId != null)
+                b.filter(f -> f.term(t -> t.field(USER_ID_FIELD).value(userId)));
+            return b;
+        }));
+    }
+
+    /*
+     * Helper method to push the change of the unread notifications on the WebSocket topic of the user
+     */
+    private void publishChange(UnreadCountDto change) {
+        try {
+            webSocketService.notifyUsersAndRolesViaWebSocket(objectMapper.writeValueAsString(change), change.getUserId());
+        } catch (JsonProcessingException e) {
+            log.error("Error processing Unread Count change to JSON - Error: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error pushing Unread Count change of user {} - Error: {}", change.getUserId(), e.getMessage());
+        }
+    }
+}
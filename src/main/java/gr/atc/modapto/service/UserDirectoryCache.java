@@ -0,0 +1,319 @@
+package gr.atc.modapto.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import gr.atc.modapto.dto.EventMappingsDto;
+import gr.atc.modapto.events.UserDirectoryChangedEvent;
+import gr.atc.modapto.service.interfaces.IEventService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory directory of the User Manager: Role -> User IDs, Pilot -> User IDs and User ID -> Display name.
+ * Members of roles and pilots are held as compressed bitmaps of interned User IDs (see UserIdRegistry).
+ * Entries are bounded in size and expire after their TTL. Once an entry is older than the refresh interval,
+ * the cached value keeps being served while it is reloaded in the background (stale-while-revalidate).
+ * The directory is warmed at startup with the users of the pilot and of the roles used in the Event Mappings.
+ * The last known users of each role and pilot outlive the TTL, so that recipients can still be resolved
+ * while the User Manager is unavailable (degraded mode). Roles and pilots are also reloaded periodically
+ * and a UserDirectoryChangedEvent is published whenever their users change.
+ * Background reloads call the User Manager on dedicated virtual threads, never on the common fork-join pool.
+ */
+@Slf4j
+@Component
+public class UserDirectoryCache {
+
+    private static final String GLOBAL_EVENT_MAPPINGS = "ALL";
+
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+    private final IEventService eventService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final UserIdRegistry userIdRegistry;
+
+    // Members of roles and pilots are held as bitmaps of interned User IDs
+    private final LoadingCache<String, RoaringBitmap> membersPerRole;
+
+    private final LoadingCache<String, RoaringBitmap> membersPerPilot;
+
+    private final LoadingCache<String, Optional<String>> userNames;
+
+    // Last successfully loaded members - Few roles and pilots exist, so they are kept unbounded
+    private final Map<String, RoaringBitmap> lastKnownMembersPerRole = new ConcurrentHashMap<>();
+
+    private final Map<String, RoaringBitmap> lastKnownMembersPerPilot = new ConcurrentHashMap<>();
+
+    private final Executor refreshExecutor;
+
+    @Value("${use-case.pilot}")
+    private String pilot;
+
+    @Autowired
+    public UserDirectoryCache(UserManagerClient userManagerClient,
+                              UserIdRegistry userIdRegistry,
+                              IEventService eventService,
+                              MeterRegistry meterRegistry,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${user.directory.cache.ttl:600}") long ttlSeconds,
+                              @Value("${user.directory.cache.refresh:60}") long refreshSeconds,
+                              @Value("${user.directory.cache.max-size:10000}") long maxSize) {
+        this(userManagerClient, userIdRegistry, eventService, meterRegistry, eventPublisher, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(refreshSeconds), maxSize,
+                Ticker.systemTicker(), Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("user-directory-refresh-", 0).factory()));
+    }
+
+    UserDirectoryCache(UserManagerClient userManagerClient, UserIdRegistry userIdRegistry, IEventService eventService, MeterRegistry meterRegistry,
+                       ApplicationEventPublisher eventPublisher, Duration ttl, Duration refresh, long maxSize, Ticker ticker, Executor refreshExecutor) {
+        this.userIdRegistry = userIdRegistry;
+        this.eventService = eventService;
+        this.eventPublisher = eventPublisher;
+        this.refreshExecutor = refreshExecutor;
+        this.membersPerRole = buildCache(ttl, refresh, maxSize, ticker, refreshExecutor, new CacheLoader<>() {
+            @Override
+            public RoaringBitmap load(String role) {
+                RoaringBitmap members = userIdRegistry.internAll(userManagerClient.retrieveUserIdsPerRole(role));
+                recordLoadedMembers(lastKnownMembersPerRole, Map.of(role, members));
+                return members;
+            }
+
+            // Roles missing from the directory are looked up concurrently - Roles that could not be loaded are omitted
+            @Override
+            public Map<String, RoaringBitmap> loadAll(Set<? extends String> roles) {
+                Map<String, RoaringBitmap> membersPerLoadedRole = new HashMap<>();
+                userManagerClient.retrieveUserIdsPerRoles(Set.copyOf(roles))
+                        .forEach((role, userIds) -> membersPerLoadedRole.put(role, userIdRegistry.internAll(userIds)));
+                recordLoadedMembers(lastKnownMembersPerRole, membersPerLoadedRole);
+                return membersPerLoadedRole;
+            }
+        });
+        this.membersPerPilot = buildCache(ttl, refresh, maxSize, ticker, refreshExecutor, pilotCode -> {
+            RoaringBitmap members = userIdRegistry.internAll(userManagerClient.retrieveUserIdsPerPilot(pilotCode));
+            recordLoadedMembers(lastKnownMembersPerPilot, Map.of(pilotCode, members));
+            return members;
+        });
+        this.userNames = buildCache(ttl, refresh, maxSize, ticker, refreshExecutor, new CacheLoader<>() {
+            @Override
+            public Optional<String> load(String userId) {
+                return userManagerClient.retrieveUserFullName(userId);
+            }
+
+            // Names missing from the directory are resolved together
+            @Override
+            public Map<String, Optional<String>> loadAll(Set<? extends String> userIds) {
+                return userManagerClient.retrieveUserFullNames(Set.copyOf(userIds));
+            }
+        });
+
+        CaffeineCacheMetrics.monitor(meterRegistry, membersPerRole, "user-directory-roles");
+        CaffeineCacheMetrics.monitor(meterRegistry, membersPerPilot, "user-directory-pilots");
+        CaffeineCacheMetrics.monitor(meterRegistry, userNames, "user-directory-names");
+    }
+
+    /**
+     * Retrieve the user ids of a User Role
+     *
+     * @param role : User Role
+     * @return List<String> : User IDs - Last known User IDs or empty if they could not be retrieved
+     */
+    public List<String> getUserIdsPerRole(String role) {
+        return userIdRegistry.resolve(getMembersPerRole(role));
+    }
+
+    /**
+     * Retrieve the user ids of multiple User Roles - Roles missing from the directory are loaded together
+     *
+     * @param roles : User Roles
+     * @return List<String> : Distinct User IDs - Last known User IDs are used for roles that could not be retrieved
+     */
+    public List<String> getUserIdsPerRoles(Collection<String> roles) {
+        return userIdRegistry.resolve(getMembersPerRoles(roles));
+    }
+
+    /**
+     * Retrieve the members of multiple User Roles as the union of their bitmaps
+     *
+     * @param roles : User Roles
+     * @return RoaringBitmap : Interned User IDs - Last known members are used for roles that could not be retrieved
+     */
+    public RoaringBitmap getMembersPerRoles(Collection<String> roles) {
+        Map<String, RoaringBitmap> loadedMembers;
+        try {
+            loadedMembers = membersPerRole.getAll(roles);
+        } catch (RuntimeException e) {
+            log.error("Unable to locate User IDs for Roles: {} - Serving last known users - Error: {}", roles, e.getMessage());
+            loadedMembers = Map.of();
+        }
+
+        RoaringBitmap[] members = new RoaringBitmap[roles.size()];
+        int index = 0;
+        for (String role : roles) {
+            RoaringBitmap roleMembers = loadedMembers.get(role);
+            if (roleMembers == null) {
+                log.warn("User IDs for Role: {} could not be retrieved - Serving last known users", role);
+                roleMembers = lastKnownMembersPerRole.getOrDefault(role, EMPTY);
+            }
+            members[index++] = roleMembers;
+        }
+        return FastAggregation.or(members);
+    }
+
+    /**
+     * Retrieve the user ids of a Pilot
+     *
+     * @param pilot : Pilot code
+     * @return List<String> : User IDs - Last known User IDs or empty if they could not be retrieved
+     */
+    public List<String> getUserIdsPerPilot(String pilot) {
+        try {
+            return userIdRegistry.resolve(membersPerPilot.get(pilot));
+        } catch (RuntimeException e) {
+            log.error("Unable to retrieve user IDs for pilot {} - Serving last known users - Error: {}", pilot, e.getMessage());
+            return userIdRegistry.resolve(lastKnownMembersPerPilot.getOrDefault(pilot, EMPTY));
+        }
+    }
+
+    /**
+     * Retrieve the display name of a user
+     *
+     * @param userId : User ID
+     * @return String : User full name or null if not found
+     */
+    public String getUserFullName(String userId) {
+        try {
+            return userNames.get(userId).orElse(null);
+        } catch (RuntimeException e) {
+            log.error("Unable to retrieve user full name for userId {} - Error: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Retrieve the display names of multiple users - Names missing from the directory are resolved together
+     *
+     * @param userIds : User IDs
+     * @return Map<String, String> : User full name per User ID - Users not found are omitted
+     */
+    public Map<String, String> getUserFullNames(Collection<String> userIds) {
+        try {
+            Map<String, String> fullNames = new HashMap<>();
+            userNames.getAll(userIds).forEach((userId, fullName) -> fullName.ifPresent(name -> fullNames.put(userId, name)));
+            return fullNames;
+        } catch (RuntimeException e) {
+            log.error("Unable to retrieve user full names for {} users - Error: {}", userIds.size(), e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Reload the users of all cached roles and pilots in the background, so that recipient changes are detected
+     * even if the entries are only read through the Topic Recipients view
+     */
+    @Scheduled(initialDelayString = "${user.directory.cache.refresh:60}", fixedDelayString = "${user.directory.cache.refresh:60}", timeUnit = TimeUnit.SECONDS)
+    public void refreshRecipients() {
+        membersPerRole.refreshAll(membersPerRole.asMap().keySet());
+        membersPerPilot.refreshAll(membersPerPilot.asMap().keySet());
+    }
+
+    /**
+     * Warm the directory once the application is ready - In the background
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        Thread.ofPlatform().daemon().name("user-directory-warm-up").start(this::warmUp);
+    }
+
+    /**
+     * Load the users of the pilot and of the roles used in the Event Mappings along with their display names
+     */
+    void warmUp() {
+        try {
+            Set<String> userIds = new LinkedHashSet<>(getUserIdsPerPilot(pilot.toUpperCase()));
+            List<String> roles = eventService.retrieveAllEventMappings().stream()
+                    .map(EventMappingsDto::getUserRoles)
+                    .filter(Objects::nonNull)
+                    .flatMap(Collection::stream)
+                    .filter(role -> !GLOBAL_EVENT_MAPPINGS.equals(role))
+                    .distinct()
+                    .toList();
+            userIds.addAll(getUserIdsPerRoles(roles));
+            getUserFullNames(userIds);
+            log.info("User directory warmed up with {} users", userIds.size());
+        } catch (RuntimeException e) {
+            log.warn("Unable to warm up user directory - Entries will be loaded on demand - Error: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService)
+            executorService.shutdown();
+    }
+
+    /*
+     * Helper method to retrieve the members of a role - Last known members are served if they could not be retrieved
+     */
+    private RoaringBitmap getMembersPerRole(String role) {
+        try {
+            return membersPerRole.get(role);
+        } catch (RuntimeException e) {
+            log.error("Unable to locate User IDs for Role: {} - Serving last known users - Error: {}", role, e.getMessage());
+            return lastKnownMembersPerRole.getOrDefault(role, EMPTY);
+        }
+    }
+
+    /*
+     * Helper method to keep the last known members of roles or pilots - Changed members are announced, so that the recipients are recomputed
+     */
+    private void recordLoadedMembers(Map<String, RoaringBitmap> lastKnownMembers, Map<String, RoaringBitmap> loadedMembers) {
+        boolean changed = false;
+        for (Map.Entry<String, RoaringBitmap> entry : loadedMembers.entrySet())
+            changed |= !entry.getValue().equals(lastKnownMembers.put(entry.getKey(), entry.getValue()));
+        if (changed)
+            eventPublisher.publishEvent(new UserDirectoryChangedEvent(this));
+    }
+
+    private static <V> LoadingCache<String, V> buildCache(Duration ttl, Duration refresh, long maxSize, Ticker ticker, Executor refreshExecutor,
+                                                          CacheLoader<String, V> loader) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .executor(refreshExecutor)
+                .recordStats();
+        // Refresh interval must be shorter than the TTL to serve stale entries while they are reloaded
+        if (refresh.compareTo(ttl) < 0 && !refresh.isZero() && !refresh.isNegative())
+            builder.refreshAfterWrite(refresh);
+        return builder.build(loader);
+    }
+}
@@ -0,0 +1,96 @@
+package gr.atc.modapto.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Interning table of User IDs - Each User ID is mapped to a dense int, so that sets of users can be held as compressed bitmaps.
+ * IDs are never reassigned: the table grows with the number of distinct users seen since startup
+ */
+@Component
+public class UserIdRegistry {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ConcurrentMap<String, Integer> idsPerUser = new ConcurrentHashMap<>();
+
+    // Reverse lookup - Only grown under the lock, published through the volatile reference
+    private volatile String[] usersPerId = new String[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    /**
+     * Retrieve the dense int of a User ID - Assigned on first use
+     *
+     * @param userId : User ID
+     * @return int : Interned ID
+     */
+    public int intern(String userId) {
+        Integer id = idsPerUser.get(userId);
+        return id != null ? id : idsPerUser.computeIfAbsent(userId, this::assign);
+    }
+
+    /**
+     * Intern a collection of User IDs into a bitmap
+     *
+     * @param userIds : User IDs
+     * @return RoaringBitmap : Interned IDs of the users
+     */
+    public RoaringBitmap internAll(Collection<String> userIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (String userId : userIds)
+            bitmap.add(intern(userId));
+        bitmap.runOptimize();
+        return bitmap;
+    }
+
+    /**
+     * Retrieve the User ID of an interned ID
+     *
+     * @param id : Interned ID
+     * @return String : User ID
+     */
+    public String userId(int id) {
+        return usersPerId[id];
+    }
+
+    /**
+     * Resolve the User IDs of a bitmap, in ascending order of their interned IDs
+     *
+     * @param bitmap : Interned IDs
+     * @return List<String> : User IDs
+     */
+    public List<String> resolve(RoaringBitmap bitmap) {
+        String[] users = usersPerId;
+        List<String> userIds = new ArrayList<>(bitmap.getCardinality());
+        IntIterator ids = bitmap.getIntIterator();
+        while (ids.hasNext())
+            userIds.add(users[ids.next()]);
+        return userIds;
+    }
+
+    /*
+     * Helper method to assign the next ID - Invoked once per User ID
+     */
+    private synchronized int assign(String userId) {
+        if (size == usersPerId.length) {
+            String[] grown = Arrays.copyOf(usersPerId, size * 2);
+            grown[size] = userId;
+            usersPerId = grown;
+        } else {
+            String[] users = usersPerId;
+            users[size] = userId;
+            // Publish the new entry through the volatile write
+            usersPerId = users;
+        }
+        return size++;
+    }
+}
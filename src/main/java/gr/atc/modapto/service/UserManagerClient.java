@@ -0,0 +1,321 @@
+package gr.atc.modapto.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import gr.atc.modapto.controller.BaseAppResponse;
+import gr.atc.modapto.dto.UserDto;
+import gr.atc.modapto.security.ComponentTokenManager;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client of the User Manager component - Requests are authorized with the component's JWT Token.
+ * Failures are propagated as RestClientExceptions, so that callers can tell them apart from empty results.
+ * Requests pass through the 'userManager' circuit breaker, so that they fail fast while the User Manager is unavailable
+ */
+@Slf4j
+@Component
+public class UserManagerClient {
+
+    private static final String JWT_ERROR = "Unable to retrieve Component's JWT Token - Client credentials";
+
+    static final String CIRCUIT_BREAKER = "userManager";
+
+    private final RestTemplate restTemplate;
+
+    private final ComponentTokenManager componentTokenManager;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final int lookupParallelism;
+
+    private final Duration lookupDeadline;
+
+    @Value("${user.manager.component.url}")
+    private String userManagerUrl;
+
+    @Value("${user.manager.bulk-lookup.path:}")
+    private String bulkLookupPath;
+
+    // Disabled once the User Manager reports that the bulk lookup endpoint is not available
+    private volatile boolean bulkLookupSupported = true;
+
+    public UserManagerClient(RestTemplate outboundRestTemplate,
+                             ComponentTokenManager componentTokenManager,
+                             CircuitBreakerRegistry circuitBreakerRegistry,
+                             @Value("${user.manager.lookup.parallelism:8}") int lookupParallelism,
+                             @Value("${user.manager.lookup.deadline:4000}") long lookupDeadlineMillis) {
+        this.restTemplate = outboundRestTemplate;
+        this.componentTokenManager = componentTokenManager;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        this.lookupParallelism = Math.max(1, lookupParallelism);
+        this.lookupDeadline = Duration.ofMillis(Math.max(1, lookupDeadlineMillis));
+    }
+
+    /**
+     * Retrieve all user ids for a specific Pilot
+     *
+     * @param pilot : Pilot code
+     * @return List<String> : List with user Ids
+     * @throws RestClientException : If the User Manager could not be reached or rejected the request
+     */
+    public List<String> retrieveUserIdsPerPilot(String pilot) {
+        log.debug("Making request to User Manager to retrieve Users for pilot: {}", pilot);
+        return extractUserIds(exchangeWithComponentToken(userManagerUrl.concat("/api/users/pilot/{pilot}"),
+                new ParameterizedTypeReference<>() {}, pilot));
+    }
+
+    /**
+     * Retrieve all user ids for a specific User Role
+     *
+     * @param role : User Role
+     * @return List<String> : List with user Ids
+     * @throws RestClientException : If the User Manager could not be reached or rejected the request
+     */
+    public List<String> retrieveUserIdsPerRole(String role) {
+        log.debug("Making request to User Manager to retrieve Users for Role: {}", role);
+        return extractUserIds(exchangeWithComponentToken(userManagerUrl.concat("/api/users/role/{role}"),
+                new ParameterizedTypeReference<>() {}, role));
+    }
+
+    /**
+     * Retrieve the user ids of multiple User Roles concurrently, within the lookup deadline
+     *
+     * @param roles : User Roles
+     * @return Map<String, List<String>> : User IDs per Role - Roles whose lookup failed or exceeded the deadline are omitted
+     */
+    public Map<String, List<String>> retrieveUserIdsPerRoles(Collection<String> roles) {
+        if (roles.isEmpty())
+            return Map.of();
+        return lookUpConcurrently(roles, this::retrieveUserIdsPerRole, "user IDs per role");
+    }
+
+    /**
+     * Retrieve the full name of a user
+     *
+     * @param userId : User ID
+     * @return Optional<String> : User full name (or username if no name is set) - Empty if the user was not found
+     * @throws RestClientException : If the User Manager could not be reached or rejected the request
+     */
+    public Optional<String> retrieveUserFullName(String userId) {
+        ResponseEntity<BaseAppResponse<UserDto>> response = exchangeWithComponentToken(
+                userManagerUrl.concat("/api/users/search?userId={userId}"),
+                new ParameterizedTypeReference<>() {}, userId);
+
+        return Optional.of(response)
+                .filter(resp -> resp.getStatusCode().is2xxSuccessful())
+                .map(ResponseEntity::getBody)
+                .map(BaseAppResponse::getData)
+                .map(UserManagerClient::formatFullName);
+    }
+
+    /**
+     * Retrieve the full names of multiple users
+     * A single request is performed if the User Manager exposes a bulk lookup endpoint, otherwise
+     * users are looked up concurrently with bounded parallelism
+     *
+     * @param userIds : User IDs
+     * @return Map<String, Optional<String>> : User full name per User ID - Empty if the user was not found.
+     *         Users whose lookup failed are omitted
+     * @throws RestClientException : If the bulk lookup could not be performed
+     */
+    public Map<String, Optional<String>> retrieveUserFullNames(Collection<String> userIds) {
+        if (userIds.isEmpty())
+            return Map.of();
+
+        if (bulkLookupPath != null && !bulkLookupPath.isBlank() && bulkLookupSupported) {
+            try {
+                return retrieveUserFullNamesInBulk(userIds);
+            } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+                log.warn("User Manager does not support bulk user lookups - Falling back to concurrent lookups");
+                bulkLookupSupported = false;
+            }
+        }
+        return retrieveUserFullNamesConcurrently(userIds);
+    }
+
+    /*
+     * Helper method to retrieve the users of the given IDs in a single request
+     */
+    private Map<String, Optional<String>> retrieveUserFullNamesInBulk(Collection<String> userIds) {
+        String requestUrl = userManagerUrl.concat(bulkLookupPath);
+        log.debug("Making request to User Manager to retrieve {} Users - URL: {}", userIds.size(), requestUrl);
+        ResponseEntity<BaseAppResponse<List<UserDto>>> response = exchangeWithComponentToken(requestUrl, HttpMethod.POST,
+                new ArrayList<>(userIds), new ParameterizedTypeReference<>() {});
+
+        List<UserDto> users = Optional.of(response)
+                .filter(resp -> resp.getStatusCode().is2xxSuccessful())
+                .map(ResponseEntity::getBody)
+                .map(BaseAppResponse::getData)
+                .orElse(List.of());
+
+        // Users not included in the response do not exist
+        Map<String, Optional<String>> fullNames = new HashMap<>();
+        userIds.forEach(userId -> fullNames.put(userId, Optional.empty()));
+        users.stream()
+                .filter(user -> user.getUserId() != null)
+                .forEach(user -> fullNames.put(user.getUserId(), Optional.of(formatFullName(user))));
+        return fullNames;
+    }
+
+    /*
+     * Helper method to look up users one by one, concurrently
+     */
+    private Map<String, Optional<String>> retrieveUserFullNamesConcurrently(Collection<String> userIds) {
+        return lookUpConcurrently(userIds, this::retrieveUserFullName, "user full name");
+    }
+
+    /*
+     * Helper method to perform lookups as virtual thread subtasks that share a single deadline
+     * At most 'lookupParallelism' requests are in flight, regardless of the number of cores.
+     * Subtasks still running at the deadline are cancelled - Results of failed or cancelled lookups are omitted
+     */
+    private <V> Map<String, V> lookUpConcurrently(Collection<String> keys, Function<String, V> lookup, String description) {
+        Semaphore permits = new Semaphore(lookupParallelism);
+        List<String> orderedKeys = List.copyOf(keys);
+        List<Callable<V>> subtasks = orderedKeys.stream()
+                .<Callable<V>>map(key -> () -> {
+                    permits.acquire();
+                    try {
+                        return lookup.apply(key);
+                    } finally {
+                        permits.release();
+                    }
+                })
+                .toList();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<V>> results = executor.invokeAll(subtasks, lookupDeadline.toMillis(), TimeUnit.MILLISECONDS);
+            Map<String, V> values = new HashMap<>();
+            for (int i = 0; i < orderedKeys.size(); i++) {
+                String key = orderedKeys.get(i);
+                Future<V> result = results.get(i);
+                if (result.isCancelled()) {
+                    log.warn("Lookup of {} for '{}' did not complete within {} ms - Skipping", description, key, lookupDeadline.toMillis());
+                    continue;
+                }
+                try {
+                    values.put(key, result.get());
+                } catch (ExecutionException e) {
+                    log.error("Unable to retrieve {} for '{}' - Error: {}", description, key, e.getCause().getMessage());
+                }
+            }
+            return values;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RestClientException("Interrupted while looking up " + description, e);
+        } finally {
+            // Cancelled subtasks are not awaited
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Helper method to format the display name of a user
+     */
+    static String formatFullName(UserDto userDto) {
+        if (userDto.getFirstName() != null && userDto.getLastName() != null) {
+            return userDto.getFirstName() + " " + userDto.getLastName();
+        } else if (userDto.getFirstName() != null) {
+            return userDto.getFirstName();
+        } else if (userDto.getLastName() != null) {
+            return userDto.getLastName();
+        } else {
+            return userDto.getUsername();
+        }
+    }
+
+    /*
+     * Helper method to extract the user ids of a response
+     */
+    private static List<String> extractUserIds(ResponseEntity<BaseAppResponse<List<UserDto>>> response) {
+        return Optional.of(response)
+                .filter(resp -> resp.getStatusCode().is2xxSuccessful())
+                .map(ResponseEntity::getBody)
+                .map(BaseAppResponse::getData)
+                .map(dataList -> dataList.stream()
+                        .map(UserDto::getUserId)
+                        .filter(Objects::nonNull)
+                        .toList())
+                .orElse(List.of());
+    }
+
+    /*
+     * Helper method to perform a GET request to the User Manager with the component's JWT Token
+     */
+    private <T> ResponseEntity<T> exchangeWithComponentToken(String urlTemplate, ParameterizedTypeReference<T> responseType, Object... uriVariables) {
+        return exchangeWithComponentToken(urlTemplate, HttpMethod.GET, null, responseType, uriVariables);
+    }
+
+    /*
+     * Helper method to perform a request to the User Manager through the circuit breaker
+     * While the circuit is open, requests are rejected without reaching the User Manager
+     */
+    private <T> ResponseEntity<T> exchangeWithComponentToken(String urlTemplate, HttpMethod method, Object body,
+                                                             ParameterizedTypeReference<T> responseType, Object... uriVariables) {
+        try {
+            return circuitBreaker.executeSupplier(() -> performExchange(urlTemplate, method, body, responseType, uriVariables));
+        } catch (CallNotPermittedException e) {
+            throw new RestClientException("User Manager requests are suspended - Circuit breaker is " + circuitBreaker.getState(), e);
+        }
+    }
+
+    /*
+     * Helper method to perform a request to the User Manager with the component's JWT Token
+     * URLs are expanded from templates, so that request metrics are tagged per endpoint instead of per user
+     * If the token is rejected (HTTP 401), it is refreshed and the request is retried once
+     */
+    private <T> ResponseEntity<T> performExchange(String urlTemplate, HttpMethod method, Object body,
+                                                  ParameterizedTypeReference<T> responseType, Object... uriVariables) {
+        String token = componentTokenManager.getToken();
+        if (token == null)
+            throw new RestClientException(JWT_ERROR);
+
+        try {
+            return restTemplate.exchange(urlTemplate, method, componentTokenEntity(token, body), responseType, uriVariables);
+        } catch (HttpClientErrorException.Unauthorized e) {
+            log.warn("Component's JWT Token was rejected by User Manager - Refreshing token and retrying request");
+            String refreshedToken = componentTokenManager.refreshRejectedToken(token);
+            if (refreshedToken == null)
+                throw e;
+            return restTemplate.exchange(urlTemplate, method, componentTokenEntity(refreshedToken, body), responseType, uriVariables);
+        }
+    }
+
+    private static HttpEntity<Object> componentTokenEntity(String token, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+}
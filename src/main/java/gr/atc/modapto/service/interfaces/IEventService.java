@@ -1,6 +1,7 @@
 package gr.atc.modapto.service.interfaces;
 
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +13,10 @@ public interface IEventService {
 
     String storeIncomingEvent(EventDto event);
 
+    List<String> storeIncomingEvents(List<EventDto> events);
+
+    Set<String> retrieveExistingEventIds(List<String> eventIds);
+
     String storeEventMapping(EventMappingsDto eventMapping);
 
     EventDto retrieveEventById(String eventId);
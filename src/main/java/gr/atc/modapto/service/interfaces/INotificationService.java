@@ -1,6 +1,8 @@
 package gr.atc.modapto.service.interfaces;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import gr.atc.modapto.dto.AssignmentDto;
@@ -8,10 +10,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.dto.NotificationRecipient;
 
 public interface INotificationService {
     String storeNotification(NotificationDto eventNotification);
 
+    List<String> storeNotifications(NotificationDto template, List<NotificationRecipient> recipients);
+
     Page<NotificationDto> retrieveAllNotifications(Pageable pageable);
 
     Page<NotificationDto> retrieveAllNotificationsPerUserId(String userId, Pageable pageable);
@@ -30,8 +35,16 @@ public interface INotificationService {
 
     void updateNotificationStatusToRead(String notificationId);
 
+    long markAllNotificationsAsRead(String userId, String notificationType, String module);
+
+    long retrieveUnreadNotificationCount(String userId);
+
+    long incrementNotificationOccurrences(String relatedEventId, int delta);
+
     String retrieveUserFullName(String userId);
 
+    Map<String, String> retrieveUserFullNames(Collection<String> userIds);
+
     void deleteNotificationById(String notificationId);
 
     CompletableFuture<Void> createNotificationAndNotifyUser(AssignmentDto assignmentDto);
@@ -0,0 +1,50 @@
+package gr.atc.modapto.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/*
+ * Utility class to derive deterministic document IDs, so that re-delivered events and their notifications are never duplicated
+ */
+public class DeterministicIdUtils {
+    private static final String SEPARATOR = ":";
+
+    private DeterministicIdUtils() {}
+
+    /**
+     * Util to derive the ID of an event from the Kafka coordinates it was originally consumed from
+     *
+     * @param topic Kafka topic
+     * @param partition Kafka partition
+     * @param offset Kafka offset
+     * @return Event ID
+     */
+    public static String eventId(String topic, int partition, long offset) {
+        return nameBasedId("event" + SEPARATOR + topic + SEPARATOR + partition + SEPARATOR + offset);
+    }
+
+    /**
+     * Util to derive the ID of the notification of an event for a specific user
+     *
+     * @param eventId Event ID
+     * @param userId User ID
+     * @return Notification ID
+     */
+    public static String notificationId(String eventId, String userId) {
+        return nameBasedId("notification" + SEPARATOR + eventId + SEPARATOR + userId);
+    }
+
+    /**
+     * Util to derive the ID of the notification body shared by all recipients of an event
+     *
+     * @param eventId Event ID
+     * @return Notification Body ID
+     */
+    public static String notificationBodyId(String eventId) {
+        return nameBasedId("notification-body" + SEPARATOR + eventId);
+    }
+
+    private static String nameBasedId(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
@@ -0,0 +1,64 @@
+package gr.atc.modapto.util;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Utility class to access raw JSON payloads kept as bytes, without building the JSON tree unless it is needed
+ */
+public class RawJsonUtils {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private RawJsonUtils() {}
+
+    /**
+     * Util to build the JSON tree of a raw payload
+     *
+     * @param rawJson Raw JSON bytes
+     * @return JSON tree or null if there is no payload
+     */
+    public static JsonNode readTree(byte[] rawJson) {
+        if (rawJson == null)
+            return null;
+
+        try {
+            return MAPPER.readTree(rawJson);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid raw JSON payload - " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Util to extract a top-level field of a raw JSON object as text by streaming, skipping all other fields
+     *
+     * @param rawJson Raw JSON bytes
+     * @param fieldName Name of the top-level field
+     * @return Text value of the field or null if it is missing, null or a nested structure
+     */
+    public static String extractTextField(byte[] rawJson, String fieldName) {
+        if (rawJson == null)
+            return null;
+
+        try (JsonParser parser = FACTORY.createParser(rawJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                return null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String currentField = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                if (currentField.equals(fieldName))
+                    return valueToken.isScalarValue() && valueToken != JsonToken.VALUE_NULL ? parser.getText() : null;
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid raw JSON payload - " + e.getMessage(), e);
+        }
+    }
+}
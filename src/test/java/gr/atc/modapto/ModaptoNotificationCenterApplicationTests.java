@@ -3,6 +3,7 @@ package gr.atc.modapto;
 import gr.atc.modapto.repository.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.ApplicationContext;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
@@ -23,6 +24,12 @@ class ModaptoNotificationCenterApplicationTests {
 	@MockitoBean
 	private NotificationRepository notificationRepository;
 
+	@MockitoBean
+	private NotificationBodyRepository notificationBodyRepository;
+
+	@MockitoBean
+	private ElasticsearchAsyncClient elasticsearchAsyncClient;
+
 	@MockitoBean
 	private AssignmentRepository assignmentRepository;
 
@@ -0,0 +1,223 @@
+package gr.atc.modapto.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import gr.atc.modapto.config.ModelMapperConfig;
+import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.dto.NotificationRecipient;
+import gr.atc.modapto.enums.NotificationStatus;
+import gr.atc.modapto.enums.NotificationType;
+import gr.atc.modapto.model.Notification;
+import gr.atc.modapto.repository.NotificationBodyRepository;
+import gr.atc.modapto.repository.NotificationRepository;
+import gr.atc.modapto.security.ComponentTokenManager;
+import gr.atc.modapto.service.ElasticsearchAsyncWriter;
+import gr.atc.modapto.service.NotificationBulkWriter;
+import gr.atc.modapto.service.NotificationService;
+import gr.atc.modapto.service.ReadStatusBuffer;
+import gr.atc.modapto.service.UnreadCounterService;
+import gr.atc.modapto.service.UserDirectoryCache;
+import gr.atc.modapto.service.WebSocketService;
+import gr.atc.modapto.util.DeterministicIdUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Notification fan-out benchmark: the notification of an event is stored for N recipients with the former
+ * sequential approach (one mutable DTO updated, mapped and indexed per recipient) and with immutable recipients
+ * rendered from a shared template in chunks and stored with bulk requests through the asynchronous write path.
+ * Elasticsearch is replaced by a stub with a fixed latency per index and per bulk request - Bulk responses complete
+ * on a timer, so no thread waits on them. Results are written as JSON for regression tracking.
+ *
+ * Run with: mvn test -Pbenchmark [-Dbenchmark.fan-out.index-latency-ms=2 -Dbenchmark.fan-out.bulk-latency-ms=20 -Dbenchmark.report.fan-out=...]
+ */
+@Tag("benchmark")
+class FanOutBenchmark {
+
+    private static final long INDEX_LATENCY_MS = Long.getLong("benchmark.fan-out.index-latency-ms", 2);
+
+    private static final long BULK_LATENCY_MS = Long.getLong("benchmark.fan-out.bulk-latency-ms", 20);
+
+    private static final int CHUNK_SIZE = Integer.getInteger("benchmark.fan-out.chunk-size", 500);
+
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("benchmark.fan-out.max-in-flight", 4);
+
+    private static final int REPETITIONS = Integer.getInteger("benchmark.fan-out.repetitions", 3);
+
+    private static final Path REPORT_PATH = Path.of(System.getProperty("benchmark.report.fan-out", "target/benchmark/fan-out.json"));
+
+    private static final Map<String, Object> REPORT = new LinkedHashMap<>();
+
+    private final ModelMapper modelMapper = new ModelMapperConfig().modelMapper();
+
+    private final NotificationRepository notificationRepository = mock(NotificationRepository.class);
+
+    private final ElasticsearchOperations elasticsearchOperations = mock(ElasticsearchOperations.class);
+
+    private final ElasticsearchAsyncClient asyncClient = mock(ElasticsearchAsyncClient.class);
+
+    private NotificationService notificationService;
+
+    static Stream<Arguments> recipients() {
+        return Stream.of(Arguments.of(100), Arguments.of(1000), Arguments.of(2500));
+    }
+
+    @BeforeEach
+    void setup() {
+        // Elasticsearch stand-in - Fixed latency per request
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> {
+            Thread.sleep(INDEX_LATENCY_MS);
+            return invocation.getArgument(0);
+        });
+        when(asyncClient.bulk(any(BulkRequest.class))).thenAnswer(invocation -> CompletableFuture.supplyAsync(
+                () -> BulkResponse.of(response -> response.errors(false).took(BULK_LATENCY_MS).items(List.of())),
+                CompletableFuture.delayedExecutor(BULK_LATENCY_MS, TimeUnit.MILLISECONDS)));
+        when(elasticsearchOperations.getElasticsearchConverter()).thenReturn(new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext()));
+
+        ElasticsearchAsyncWriter asyncWriter = new ElasticsearchAsyncWriter(asyncClient, elasticsearchOperations, new SimpleMeterRegistry(), MAX_IN_FLIGHT, Integer.MAX_VALUE);
+        NotificationBulkWriter notificationBulkWriter = new NotificationBulkWriter(asyncWriter, new SimpleMeterRegistry(), CHUNK_SIZE, 0, 0);
+        notificationService = new NotificationService(notificationRepository, modelMapper, mock(WebSocketService.class), new ObjectMapper(),
+                elasticsearchOperations, mock(ComponentTokenManager.class), mock(UserDirectoryCache.class), notificationBulkWriter,
+                mock(NotificationBodyRepository.class), mock(ReadStatusBuffer.class),
+                mock(UnreadCounterService.class));
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        if (REPORT.isEmpty())
+            return;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("benchmark", "fan-out");
+        report.put("timestamp", OffsetDateTime.now(ZoneOffset.UTC).toString());
+        report.put("indexLatencyMs", INDEX_LATENCY_MS);
+        report.put("bulkLatencyMs", BULK_LATENCY_MS);
+        report.put("chunkSize", CHUNK_SIZE);
+        report.put("maxInFlight", MAX_IN_FLIGHT);
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("scenarios", REPORT);
+
+        Files.createDirectories(REPORT_PATH.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT_PATH.toFile(), report);
+        System.out.println("Fan-out benchmark report written to " + REPORT_PATH.toAbsolutePath());
+    }
+
+    @DisplayName("Fan-out Benchmark: Sequential per-recipient storage against parallel rendering and bulk storage")
+    @ParameterizedTest(name = "{0} recipients")
+    @MethodSource("recipients")
+    void givenRecipients_whenFanOut_thenMeasureSequentialAgainstBulk(int recipients) {
+        // Given
+        List<String> userIds = IntStream.range(0, recipients).mapToObj(i -> "user-" + i).toList();
+        NotificationDto template = buildNotification();
+
+        // When - The first run of each approach warms up the JIT
+        long[] sequential = new long[REPETITIONS];
+        long[] bulk = new long[REPETITIONS];
+        fanOutSequentially(template, userIds);
+        fanOutInBulk(template, userIds);
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            int stored = fanOutSequentially(template, userIds);
+            sequential[i] = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(recipients, stored);
+
+            start = System.nanoTime();
+            stored = fanOutInBulk(template, userIds);
+            bulk[i] = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(recipients, stored);
+        }
+
+        // Then
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sequentialMs", median(sequential));
+        result.put("bulkMs", median(bulk));
+        result.put("bulkRequests", (recipients + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        result.put("bulkLatencyBoundMs", ((recipients + CHUNK_SIZE - 1) / CHUNK_SIZE + MAX_IN_FLIGHT - 1) / MAX_IN_FLIGHT * BULK_LATENCY_MS);
+        REPORT.put(recipients + "-recipients", result);
+    }
+
+    /*
+     * Former fan-out: a single DTO is updated, mapped and indexed per recipient
+     */
+    private int fanOutSequentially(NotificationDto template, List<String> userIds) {
+        NotificationDto notification = buildNotification();
+        int stored = 0;
+        for (String userId : userIds) {
+            notification.setUserId(userId);
+            notification.setId(DeterministicIdUtils.notificationId(template.getRelatedEvent(), userId));
+            notification.setUser("User " + userId);
+            if (notificationRepository.save(modelMapper.map(notification, Notification.class)) != null)
+                stored++;
+        }
+        return stored;
+    }
+
+    /*
+     * Current fan-out: immutable recipients rendered from the shared template in chunks and stored in bulk
+     */
+    private int fanOutInBulk(NotificationDto template, List<String> userIds) {
+        List<NotificationRecipient> recipients = new ArrayList<>(userIds.size());
+        for (String userId : userIds)
+            recipients.add(new NotificationRecipient(DeterministicIdUtils.notificationId(template.getRelatedEvent(), userId), userId, "User " + userId));
+        return notificationService.storeNotifications(template, recipients).size();
+    }
+
+    private static NotificationDto buildNotification() {
+        return NotificationDto.builder()
+                .notificationType(NotificationType.EVENT.toString())
+                .notificationStatus(NotificationStatus.UNREAD.toString())
+                .messageStatus("Benchmark Event")
+                .sourceComponent("Benchmark")
+                .module("module-1")
+                .moduleName("Module 1")
+                .smartService("Benchmark Service")
+                .relatedEvent("benchmark-event")
+                .timestamp(LocalDateTime.now().withNano(0).atOffset(ZoneOffset.UTC))
+                .priority("HIGH")
+                .description("Benchmark notification")
+                .occurrences(1)
+                .build();
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,394 @@
+package gr.atc.modapto.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import gr.atc.modapto.config.KafkaConfig;
+import gr.atc.modapto.config.ObjectMapperConfig;
+import gr.atc.modapto.dto.EventDto;
+import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.dto.NotificationRecipient;
+import gr.atc.modapto.enums.MessagePriority;
+import gr.atc.modapto.events.AppEventListener;
+import gr.atc.modapto.kafka.EventCoalescingWindow;
+import gr.atc.modapto.kafka.FailedEventPublisher;
+import gr.atc.modapto.kafka.KafkaMessageHandler;
+import gr.atc.modapto.kafka.OrderedProcessingLanes;
+import gr.atc.modapto.pipeline.NotificationPipeline;
+import gr.atc.modapto.service.ModaptoModuleService;
+import gr.atc.modapto.service.TopicRecipientsView;
+import gr.atc.modapto.service.WebSocketService;
+import gr.atc.modapto.service.interfaces.IEventService;
+import gr.atc.modapto.service.interfaces.INotificationService;
+import gr.atc.modapto.util.DeterministicIdUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * End-to-end ingest benchmark: events are produced to an embedded Kafka broker and flow through the real
+ * listener, processing lanes and notification pipeline. Elasticsearch is replaced by in-memory stores and the
+ * User Manager by a stub with configurable latency. Latency is measured from the Kafka record timestamp until
+ * the first WebSocket send of the event's notification. Results are written as JSON for regression tracking.
+ *
+ * Run with: mvn test -Pbenchmark [-Dbenchmark.events=20000 -Dbenchmark.user-manager.latency-ms=0 -Dbenchmark.report=...]
+ */
+@Tag("benchmark")
+@SpringJUnitConfig(classes = {
+        KafkaConfig.class,
+        ObjectMapperConfig.class,
+        KafkaMessageHandler.class,
+        OrderedProcessingLanes.class,
+        EventCoalescingWindow.class,
+        NotificationPipeline.class,
+        FailedEventPublisher.class,
+        AppEventListener.class,
+        TopicRecipientsView.class,
+        SimpleMeterRegistry.class
+})
+@TestPropertySource(properties = {
+        "kafka.topics=" + IngestThroughputBenchmark.BENCHMARK_TOPIC,
+        "use-case.pilot=BENCHMARK",
+        "spring.kafka.consumer.group-id=benchmark-group",
+        "spring.kafka.consumer.auto-offset-reset=earliest",
+        "kafka.retry.topic=benchmark-events-failed",
+        "kafka.listener.concurrency=${benchmark.listener-concurrency:2}",
+        "kafka.processing.lanes=${benchmark.processing-lanes:8}",
+        "kafka.coalescing.window=${benchmark.coalescing-window:0}",
+        "notification.pipeline.store.workers=${benchmark.store-workers:8}",
+        "notification.pipeline.push.workers=${benchmark.push-workers:2}"
+})
+@EmbeddedKafka(partitions = 4, topics = IngestThroughputBenchmark.BENCHMARK_TOPIC,
+        bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+class IngestThroughputBenchmark {
+
+    static final String BENCHMARK_TOPIC = "modapto-benchmark-events";
+
+    private static final int EVENTS = Integer.getInteger("benchmark.events", 20000);
+
+    private static final int WARMUP_EVENTS = Integer.getInteger("benchmark.warmup-events", 2000);
+
+    private static final int RECIPIENTS = Integer.getInteger("benchmark.recipients", 5);
+
+    private static final long USER_MANAGER_LATENCY_MS = Long.getLong("benchmark.user-manager.latency-ms", 0);
+
+    private static final long COMPLETION_TIMEOUT_SECONDS = Long.getLong("benchmark.timeout-seconds", 300);
+
+    private static final Path REPORT_PATH = Path.of(System.getProperty("benchmark.report", "target/benchmark/ingest-throughput.json"));
+
+    private static final DateTimeFormatter EVENT_TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final Map<String, Object> REPORT = new LinkedHashMap<>();
+
+    private static boolean warmedUp = false;
+
+    @MockitoBean
+    private IEventService eventService;
+
+    @MockitoBean
+    private INotificationService notificationService;
+
+    @MockitoBean
+    private ModaptoModuleService modaptoModuleService;
+
+    @MockitoBean
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // In-memory stand-in of the Elasticsearch indexes
+    private final Map<String, EventDto> storedEvents = new ConcurrentHashMap<>();
+
+    private final Set<String> storedNotifications = ConcurrentHashMap.newKeySet();
+
+    // Produced events and the time of their first WebSocket send
+    private final Map<String, ProducedEvent> producedEvents = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> pushedAt = new ConcurrentHashMap<>();
+
+    /*
+     * Event produced to Kafka along with its record timestamp
+     */
+    private record ProducedEvent(MessagePriority priority, long recordTimestamp) {}
+
+    /*
+     * Event mix of a benchmark scenario - Shares of HIGH, MID and LOW events and number of distinct modules
+     */
+    record EventMix(String name, int highShare, int midShare, int lowShare, int modules) {}
+
+    static Stream<Arguments> eventMixes() {
+        return Stream.of(
+                Arguments.of(new EventMix("low-only", 0, 0, 100, 50)),
+                Arguments.of(new EventMix("mixed", 10, 30, 60, 50)),
+                Arguments.of(new EventMix("high-burst", 70, 20, 10, 50)),
+                Arguments.of(new EventMix("hot-modules", 10, 30, 60, 2))
+        );
+    }
+
+    @BeforeEach
+    void setup() {
+        // Elasticsearch stand-in
+        when(eventService.retrieveExistingEventIds(anyList())).thenAnswer(invocation -> {
+            List<String> eventIds = invocation.getArgument(0);
+            return eventIds.stream().filter(storedEvents::containsKey).collect(Collectors.toSet());
+        });
+        when(eventService.storeIncomingEvents(anyList())).thenAnswer(invocation -> {
+            List<EventDto> events = invocation.getArgument(0);
+            events.forEach(event -> storedEvents.put(event.getId(), event));
+            return events.stream().map(EventDto::getId).toList();
+        });
+        when(eventService.retrieveUserRolesPerTopic(anyString())).thenReturn(List.of("OPERATOR"));
+        when(notificationService.storeNotifications(any(NotificationDto.class), anyList())).thenAnswer(invocation -> {
+            List<NotificationRecipient> recipients = invocation.getArgument(1);
+            recipients.forEach(recipient -> storedNotifications.add(recipient.notificationId()));
+            return recipients.stream().map(NotificationRecipient::notificationId).toList();
+        });
+        when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenAnswer(invocation -> "Module " + invocation.getArgument(0));
+
+        // User Manager stub
+        when(notificationService.retrieveUserIdsPerRoles(anyList())).thenAnswer(invocation -> {
+            simulateUserManagerLatency();
+            return IntStream.range(0, RECIPIENTS).mapToObj(i -> "user-" + i).toList();
+        });
+        when(notificationService.retrieveUserFullNames(anyCollection())).thenAnswer(invocation -> {
+            simulateUserManagerLatency();
+            Collection<String> userIds = invocation.getArgument(0);
+            return userIds.stream().collect(Collectors.toMap(Function.identity(), userId -> "User " + userId));
+        });
+
+        // WebSocket send - Only the first send of each event is measured
+        doAnswer(invocation -> {
+            long now = System.currentTimeMillis();
+            String relatedEvent = objectMapper.readTree((String) invocation.getArgument(0)).path("relatedEvent").asText(null);
+            if (relatedEvent != null)
+                pushedAt.putIfAbsent(relatedEvent, now);
+            return null;
+        }).when(webSocketService).notifyUsersAndRolesViaWebSocket(anyString(), anyString());
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        if (REPORT.isEmpty())
+            return;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("benchmark", "ingest-throughput");
+        report.put("timestamp", OffsetDateTime.now(ZoneOffset.UTC).toString());
+        report.put("events", EVENTS);
+        report.put("recipients", RECIPIENTS);
+        report.put("userManagerLatencyMs", USER_MANAGER_LATENCY_MS);
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("scenarios", REPORT);
+
+        Files.createDirectories(REPORT_PATH.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT_PATH.toFile(), report);
+        System.out.println("Ingest benchmark report written to " + REPORT_PATH.toAbsolutePath());
+    }
+
+    @DisplayName("Ingest Benchmark: Throughput and latency from Kafka record to WebSocket send")
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("eventMixes")
+    void givenEventMix_whenProducedToKafka_thenMeasureThroughputAndLatency(EventMix mix) throws Exception {
+        try (TestProducer producer = new TestProducer(embeddedKafka.getBrokersAsString())) {
+            // Given - JIT and connections are warmed up once, before the first measured scenario
+            if (!warmedUp) {
+                runScenario(producer, new EventMix("warmup", 10, 30, 60, 50), WARMUP_EVENTS);
+                warmedUp = true;
+            }
+
+            // When
+            Map<String, Object> result = runScenario(producer, mix, EVENTS);
+
+            // Then
+            assertEquals(EVENTS, result.get("deliveredEvents"));
+            REPORT.put(mix.name(), result);
+        }
+    }
+
+    /*
+     * Produce the events of a scenario and wait until all of them are sent through WebSockets
+     */
+    private Map<String, Object> runScenario(TestProducer producer, EventMix mix, int events) throws Exception {
+        producedEvents.clear();
+        pushedAt.clear();
+        storedNotifications.clear();
+
+        long start = System.currentTimeMillis();
+        List<MessagePriority> priorities = new ArrayList<>(events);
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            MessagePriority priority = pickPriority(mix);
+            String module = "module-" + (i % mix.modules());
+            priorities.add(priority);
+            sends.add(producer.send(module, buildEvent(module, priority, i)));
+        }
+        producer.flush();
+        for (int i = 0; i < events; i++) {
+            RecordMetadata metadata = sends.get(i).get(30, TimeUnit.SECONDS).getRecordMetadata();
+            String eventId = DeterministicIdUtils.eventId(metadata.topic(), metadata.partition(), metadata.offset());
+            producedEvents.put(eventId, new ProducedEvent(priorities.get(i), metadata.timestamp()));
+        }
+        long produced = System.currentTimeMillis();
+
+        await().atMost(COMPLETION_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .pollInterval(50, TimeUnit.MILLISECONDS)
+                .until(() -> pushedAt.keySet().containsAll(producedEvents.keySet()));
+        long end = pushedAt.values().stream().mapToLong(Long::longValue).max().orElse(System.currentTimeMillis());
+
+        // Latency per priority class and overall
+        Map<MessagePriority, List<Long>> latencies = new HashMap<>();
+        producedEvents.forEach((eventId, event) -> latencies.computeIfAbsent(event.priority(), priority -> new ArrayList<>())
+                .add(pushedAt.get(eventId) - event.recordTimestamp()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("deliveredEvents", (int) producedEvents.keySet().stream().filter(pushedAt::containsKey).count());
+        result.put("durationMs", end - start);
+        result.put("produceDurationMs", produced - start);
+        result.put("throughputEventsPerSecond", Math.round(events * 1000.0 / Math.max(1, end - start)));
+        result.put("latencyMs", percentiles(latencies.values().stream().flatMap(List::stream).toList()));
+        Map<String, Object> perPriority = new LinkedHashMap<>();
+        for (MessagePriority priority : MessagePriority.values()) {
+            if (latencies.containsKey(priority))
+                perPriority.put(priority.name(), percentiles(latencies.get(priority)));
+        }
+        result.put("latencyMsPerPriority", perPriority);
+        result.put("storedNotifications", storedNotifications.size());
+        return result;
+    }
+
+    /*
+     * p50 / p99 / p999 / max of a list of latencies (ms)
+     */
+    private static Map<String, Object> percentiles(List<Long> latencies) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("count", sorted.length);
+        percentiles.put("p50", percentile(sorted, 0.50));
+        percentiles.put("p99", percentile(sorted, 0.99));
+        percentiles.put("p999", percentile(sorted, 0.999));
+        percentiles.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        percentiles.put("mean", Arrays.stream(sorted).average().orElse(0));
+        return percentiles;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static MessagePriority pickPriority(EventMix mix) {
+        int total = mix.highShare() + mix.midShare() + mix.lowShare();
+        int draw = ThreadLocalRandom.current().nextInt(total);
+        if (draw < mix.highShare())
+            return MessagePriority.HIGH;
+        return draw < mix.highShare() + mix.midShare() ? MessagePriority.MID : MessagePriority.LOW;
+    }
+
+    private String buildEvent(String module, MessagePriority priority, int sequence) throws IOException {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("module", module);
+        event.put("priority", priority.name());
+        event.put("eventType", "Benchmark Event " + sequence);
+        event.put("sourceComponent", "Benchmark");
+        event.put("smartService", "Benchmark Service");
+        event.put("topic", BENCHMARK_TOPIC);
+        event.put("timestamp", LocalDateTime.now(ZoneOffset.UTC).format(EVENT_TIMESTAMP_FORMAT));
+        event.put("results", Map.of("sequence", sequence, "values", List.of(1, 2, 3)));
+        return objectMapper.writeValueAsString(event);
+    }
+
+    private static void simulateUserManagerLatency() throws InterruptedException {
+        if (USER_MANAGER_LATENCY_MS > 0)
+            Thread.sleep(USER_MANAGER_LATENCY_MS);
+    }
+
+    /*
+     * Producer of raw JSON events, as published by the MODAPTO modules
+     */
+    private static final class TestProducer implements AutoCloseable {
+
+        private final DefaultKafkaProducerFactory<String, String> producerFactory;
+
+        private final KafkaTemplate<String, String> kafkaTemplate;
+
+        TestProducer(String brokers) {
+            Map<String, Object> props = new HashMap<>();
+            props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+            props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+            props.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+            this.producerFactory = new DefaultKafkaProducerFactory<>(props);
+            this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        }
+
+        CompletableFuture<SendResult<String, String>> send(String key, String value) {
+            return kafkaTemplate.send(BENCHMARK_TOPIC, key, value);
+        }
+
+        void flush() {
+            kafkaTemplate.flush();
+        }
+
+        @Override
+        public void close() {
+            producerFactory.destroy();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package gr.atc.modapto.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import gr.atc.modapto.service.UserIdRegistry;
+
+/*
+ * Recipient resolution micro-benchmark: the recipients of a topic mapped to several overlapping roles are
+ * resolved with the former list-based approach (a list of User IDs per role, concatenated and de-duplicated)
+ * and with bitmaps of interned User IDs (union of the role bitmaps, iterated as ints). Time and allocated bytes
+ * per resolution are measured on the calling thread. Results are written as JSON for regression tracking.
+ *
+ * Run with: mvn test -Pbenchmark [-Dbenchmark.resolutions=5000 -Dbenchmark.report.recipients=...]
+ */
+@Tag("benchmark")
+class RecipientResolutionBenchmark {
+
+    private static final int RESOLUTIONS = Integer.getInteger("benchmark.resolutions", 5000);
+
+    private static final int WARMUP_RESOLUTIONS = Integer.getInteger("benchmark.warmup-resolutions", 2000);
+
+    private static final Path REPORT_PATH = Path.of(System.getProperty("benchmark.report.recipients", "target/benchmark/recipient-resolution.json"));
+
+    private static final Map<String, Object> REPORT = new LinkedHashMap<>();
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Prevents the JIT from eliminating the measured work
+    private static long blackhole;
+
+    /*
+     * Directory of a benchmark scenario - Users of the pilot, roles of the topic and share of users per role
+     */
+    record Directory(String name, int users, int roles, int usersPerRoleShare) {}
+
+    static Stream<Arguments> directories() {
+        return Stream.of(
+                Arguments.of(new Directory("small-pilot", 100, 3, 40)),
+                Arguments.of(new Directory("medium-pilot", 2000, 5, 30)),
+                Arguments.of(new Directory("large-pilot", 20000, 8, 25)),
+                Arguments.of(new Directory("large-pilot-all-roles", 20000, 20, 50))
+        );
+    }
+
+    @AfterAll
+    static void writeReport() throws IOException {
+        if (REPORT.isEmpty())
+            return;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("benchmark", "recipient-resolution");
+        report.put("timestamp", OffsetDateTime.now(ZoneOffset.UTC).toString());
+        report.put("resolutions", RESOLUTIONS);
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("scenarios", REPORT);
+
+        Files.createDirectories(REPORT_PATH.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT_PATH.toFile(), report);
+        System.out.println("Recipient resolution benchmark report written to " + REPORT_PATH.toAbsolutePath());
+    }
+
+    @DisplayName("Recipient Resolution Benchmark: List-based union against bitmaps of interned User IDs")
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("directories")
+    void givenOverlappingRoles_whenResolveRecipients_thenMeasureListsAgainstBitmaps(Directory directory) {
+        // Given - Members of each role, as returned by the User Manager and as interned bitmaps
+        SplittableRandom random = new SplittableRandom(42);
+        UserIdRegistry registry = new UserIdRegistry();
+        List<List<String>> usersPerRole = new ArrayList<>();
+        RoaringBitmap[] membersPerRole = new RoaringBitmap[directory.roles()];
+        for (int role = 0; role < directory.roles(); role++) {
+            List<String> users = new ArrayList<>();
+            for (int user = 0; user < directory.users(); user++) {
+                if (random.nextInt(100) < directory.usersPerRoleShare())
+                    users.add("user-" + user);
+            }
+            usersPerRole.add(users);
+            membersPerRole[role] = registry.internAll(users);
+        }
+
+        ToIntFunction<Void> lists = ignored -> {
+            // Former approach: the users of every role are concatenated and de-duplicated per resolution
+            List<String> recipients = usersPerRole.stream().flatMap(List::stream).distinct().toList();
+            int hash = 0;
+            for (String userId : recipients)
+                hash += userId.length();
+            return recipients.size() + hash;
+        };
+        ToIntFunction<Void> bitmaps = ignored -> {
+            RoaringBitmap recipients = FastAggregation.or(membersPerRole);
+            int hash = 0;
+            IntIterator ids = recipients.getIntIterator();
+            while (ids.hasNext())
+                hash += registry.userId(ids.next()).length();
+            return recipients.getCardinality() + hash;
+        };
+
+        // When
+        measure(lists, WARMUP_RESOLUTIONS);
+        measure(bitmaps, WARMUP_RESOLUTIONS);
+        Map<String, Object> listResult = measure(lists, RESOLUTIONS);
+        Map<String, Object> bitmapResult = measure(bitmaps, RESOLUTIONS);
+
+        // Then - Both approaches resolve the same recipients
+        assertEquals(lists.applyAsInt(null), bitmaps.applyAsInt(null));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", directory.users());
+        result.put("roles", directory.roles());
+        result.put("recipients", FastAggregation.or(membersPerRole).getCardinality());
+        result.put("listBytesRetained", usersPerRole.stream().mapToLong(users -> 16L + 4L * users.size()).sum());
+        result.put("bitmapBytesRetained", Stream.of(membersPerRole).mapToLong(RoaringBitmap::getLongSizeInBytes).sum());
+        result.put("list", listResult);
+        result.put("bitmap", bitmapResult);
+        REPORT.put(directory.name(), result);
+    }
+
+    /*
+     * Time and allocated bytes per resolution on the calling thread
+     */
+    private static Map<String, Object> measure(ToIntFunction<Void> resolution, int resolutions) {
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < resolutions; i++)
+            blackhole += resolution.applyAsInt(null);
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nsPerResolution", elapsed / resolutions);
+        result.put("bytesAllocatedPerResolution", allocated / resolutions);
+        return result;
+    }
+}
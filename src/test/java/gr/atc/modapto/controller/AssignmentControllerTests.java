@@ -18,6 +18,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.Page;
@@ -71,6 +72,12 @@ class AssignmentControllerTests {
     @MockitoBean
     private NotificationRepository notificationRepository;
 
+    @MockitoBean
+    private NotificationBodyRepository notificationBodyRepository;
+
+    @MockitoBean
+    private ElasticsearchAsyncClient elasticsearchAsyncClient;
+
     @MockitoBean
     private AssignmentRepository assignmentRepository;
 
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -41,6 +42,7 @@ import gr.atc.modapto.dto.EventDto;
 import gr.atc.modapto.dto.EventMappingsDto;
 import gr.atc.modapto.enums.MessagePriority;
 import gr.atc.modapto.exception.CustomExceptions;
+import gr.atc.modapto.service.EventReplayService;
 import gr.atc.modapto.service.interfaces.IEventService;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
@@ -61,6 +63,12 @@ class EventControllerTests {
     @MockitoBean
     private NotificationRepository notificationRepository;
 
+    @MockitoBean
+    private NotificationBodyRepository notificationBodyRepository;
+
+    @MockitoBean
+    private ElasticsearchAsyncClient elasticsearchAsyncClient;
+
     @MockitoBean
     private AssignmentRepository assignmentRepository;
 
@@ -82,6 +90,9 @@ class EventControllerTests {
     @MockitoBean
     private IEventService eventService;
 
+    @MockitoBean
+    private EventReplayService eventReplayService;
+
     private static List<EventDto> events;
     private static EventDto testEvent;
     private static EventMappingsDto testEventMapping;
@@ -309,4 +320,22 @@ class EventControllerTests {
                 .andExpect(jsonPath("$.success", is(false)))
                 .andExpect(jsonPath("$.message", is("Validation failed")));
     }
+
+    @DisplayName("Replay Dead-Letter Events: Success")
+    @WithMockUser(roles = "SUPER_ADMIN")
+    @Test
+    void givenSuperAdmin_whenReplayDeadLetterEvents_thenReturnReplayedEvents() throws Exception {
+        // Given
+        given(eventReplayService.replayDeadLetterEvents(50)).willReturn(3);
+
+        // When
+        mockMvc.perform(post("/api/events/dead-letters/replay")
+                        .with(csrf())
+                        .param("batchSize", "50"))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.message", is("Dead-letter events replayed successfully!")))
+                .andExpect(jsonPath("$.data", is(3)));
+    }
 }
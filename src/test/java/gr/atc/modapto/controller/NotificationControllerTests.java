@@ -17,8 +17,11 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.data.domain.Page;
@@ -63,6 +66,12 @@ class NotificationControllerTests {
     @MockitoBean
     private NotificationRepository notificationRepository;
 
+    @MockitoBean
+    private NotificationBodyRepository notificationBodyRepository;
+
+    @MockitoBean
+    private ElasticsearchAsyncClient elasticsearchAsyncClient;
+
     @MockitoBean
     private AssignmentRepository assignmentRepository;
 
@@ -403,6 +412,23 @@ class NotificationControllerTests {
                 .andExpect(jsonPath("$.message", is("An unexpected error occurred")));
     }
 
+    @DisplayName("Get Unread Notification Count by User ID: Success")
+    @WithMockUser
+    @Test
+    void givenUserId_whenGetUnreadNotificationCount_thenReturnCount() throws Exception {
+        // Given
+        given(notificationService.retrieveUnreadNotificationCount("12345")).willReturn(3L);
+
+        // When
+        mockMvc.perform(get("/api/notifications/user/12345/unread/count")
+                        .contentType(MediaType.APPLICATION_JSON))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data", is(3)))
+                .andExpect(jsonPath("$.message", is("Unread notifications count retrieved successfully!")));
+    }
+
     @DisplayName("Update Notification Status to 'Read': Success")
     @WithMockUser
     @Test
@@ -416,4 +442,59 @@ class NotificationControllerTests {
                 .andExpect(jsonPath("$.success", is(true)))
                 .andExpect(jsonPath("$.message", is("Notification status updated successfully")));
     }
-}
\ No newline at end of file
+
+    @DisplayName("Update Notification Status to 'Read': Not Found")
+    @WithMockUser
+    @Test
+    void givenUnknownNotificationId_whenUpdateNotificationStatus_thenReturnNotFound() throws Exception {
+        // Given
+        doThrow(new CustomExceptions.DataNotFoundException("Notification with id: 12345 not found in DB"))
+                .when(notificationService).updateNotificationStatusToRead("12345");
+
+        // When
+        mockMvc.perform(put("/api/notifications/12345/notificationStatus")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON))
+                // Then
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success", is(false)))
+                .andExpect(jsonPath("$.message", is("Requested resource not found in DB")));
+    }
+
+    @DisplayName("Mark All Notifications as Read: Success with optional scope")
+    @WithMockUser
+    @Test
+    void givenUserIdAndScope_whenMarkAllNotificationsAsRead_thenReturnUpdatedCount() throws Exception {
+        // Given
+        given(notificationService.markAllNotificationsAsRead("12345", NotificationType.EVENT.toString(), "module-1")).willReturn(7L);
+
+        // When
+        mockMvc.perform(put("/api/notifications/user/12345/notificationStatus")
+                        .param("notificationType", "EVENT")
+                        .param("module", "module-1")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON))
+                // Then
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data", is(7)))
+                .andExpect(jsonPath("$.message", is("Notifications marked as read successfully")));
+    }
+
+    @DisplayName("Mark All Notifications as Read: Invalid notification type")
+    @WithMockUser
+    @Test
+    void givenInvalidNotificationType_whenMarkAllNotificationsAsRead_thenReturnBadRequest() throws Exception {
+        // When
+        mockMvc.perform(put("/api/notifications/user/12345/notificationStatus")
+                        .param("notificationType", "INVALID")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON))
+                // Then
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success", is(false)))
+                .andExpect(jsonPath("$.message", is("Invalid notification type")));
+
+        verify(notificationService, never()).markAllNotificationsAsRead(anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,127 @@
+package gr.atc.modapto.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import gr.atc.modapto.dto.EventDto;
+
+class EventCoalescingWindowTests {
+
+    @DisplayName("Register Event: Repeats within the window refer to the first event")
+    @Test
+    void givenRepeatedEvents_whenRegister_thenCoalesceIntoFirstEvent() {
+        // Given
+        EventCoalescingWindow coalescingWindow = new EventCoalescingWindow(60000);
+
+        // When
+        EventCoalescingWindow.Occurrence first = coalescingWindow.register(event("event-1", "Machine Fault"));
+        EventCoalescingWindow.Occurrence repeat = coalescingWindow.register(event("event-2", "Machine Fault"));
+        EventCoalescingWindow.Occurrence other = coalescingWindow.register(event("event-3", "Machine Recovered"));
+
+        // Then
+        assertTrue(first.leader());
+        assertFalse(repeat.leader());
+        assertEquals("event-1", repeat.leaderEventId());
+        assertEquals(2, repeat.occurrences());
+        assertTrue(other.leader());
+    }
+
+    @DisplayName("Register Event: Every event is notified when coalescing is disabled")
+    @Test
+    void givenDisabledWindow_whenRegister_thenEveryEventLeads() {
+        // Given
+        EventCoalescingWindow coalescingWindow = new EventCoalescingWindow(0);
+
+        // When
+        coalescingWindow.register(event("event-1", "Machine Fault"));
+        EventCoalescingWindow.Occurrence repeat = coalescingWindow.register(event("event-2", "Machine Fault"));
+
+        // Then
+        assertTrue(repeat.leader());
+        assertEquals("event-2", repeat.leaderEventId());
+    }
+
+    @DisplayName("Register Event: Events of a different priority are never coalesced")
+    @Test
+    void givenRepeatedEventWithHigherPriority_whenRegister_thenOpenOwnWindow() {
+        // Given
+        EventCoalescingWindow coalescingWindow = new EventCoalescingWindow(60000);
+
+        // When
+        coalescingWindow.register(event("event-1", "Machine Fault", "LOW"));
+        EventCoalescingWindow.Occurrence high = coalescingWindow.register(event("event-2", "Machine Fault", "HIGH"));
+        EventCoalescingWindow.Occurrence highRepeat = coalescingWindow.register(event("event-3", "Machine Fault", "HIGH"));
+
+        // Then
+        assertTrue(high.leader());
+        assertFalse(highRepeat.leader());
+        assertEquals("event-2", highRepeat.leaderEventId());
+    }
+
+    @DisplayName("Register Event: Events without event type are never coalesced")
+    @Test
+    void givenEventsWithoutEventType_whenRegister_thenEveryEventLeads() {
+        // Given
+        EventCoalescingWindow coalescingWindow = new EventCoalescingWindow(60000);
+
+        // When
+        coalescingWindow.register(event("event-1", null));
+        EventCoalescingWindow.Occurrence next = coalescingWindow.register(event("event-2", null));
+
+        // Then
+        assertTrue(next.leader());
+        assertEquals("event-2", next.leaderEventId());
+        assertEquals(1, next.occurrences());
+    }
+
+    @DisplayName("Release Window: The next repeat after a failed leading event opens a new window")
+    @Test
+    void givenReleasedWindow_whenRegisterRepeat_thenLeadNewWindow() {
+        // Given
+        EventCoalescingWindow coalescingWindow = new EventCoalescingWindow(60000);
+        EventCoalescingWindow.Occurrence first = coalescingWindow.register(event("event-1", "Machine Fault"));
+
+        // When
+        coalescingWindow.release(first.key(), first.leaderEventId());
+        EventCoalescingWindow.Occurrence repeat = coalescingWindow.register(event("event-2", "Machine Fault"));
+
+        // Then
+        assertTrue(repeat.leader());
+        assertEquals("event-2", repeat.leaderEventId());
+        assertEquals(1, repeat.occurrences());
+    }
+
+    @DisplayName("Release Window: A window opened by another event is kept")
+    @Test
+    void givenWindowOfAnotherLeader_whenRelease_thenKeepWindow() {
+        // Given
+        EventCoalescingWindow coalescingWindow = new EventCoalescingWindow(60000);
+        EventCoalescingWindow.Occurrence first = coalescingWindow.register(event("event-1", "Machine Fault"));
+
+        // When
+        coalescingWindow.release(first.key(), "event-0");
+        EventCoalescingWindow.Occurrence repeat = coalescingWindow.register(event("event-2", "Machine Fault"));
+
+        // Then
+        assertFalse(repeat.leader());
+        assertEquals("event-1", repeat.leaderEventId());
+    }
+
+    private EventDto event(String id, String eventType) {
+        return event(id, eventType, "HIGH");
+    }
+
+    private EventDto event(String id, String eventType, String priority) {
+        return EventDto.builder()
+                .id(id)
+                .module("Test Module")
+                .eventType(eventType)
+                .priority(priority)
+                .topic("test-topic")
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package gr.atc.modapto.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import gr.atc.modapto.dto.EventDto;
+
+class EventDtoDeserializerTests {
+
+    private final EventDtoDeserializer deserializer = new EventDtoDeserializer();
+
+    @DisplayName("Deserialize Event: Envelope fields parsed and results kept raw")
+    @Test
+    void givenEventWithResults_whenDeserialize_thenParseEnvelopeAndKeepResultsRaw() {
+        // Given
+        String json = """
+                {"module":"MODULE-001","priority":"High","topic":"modapto-module-creation","timestamp":"2025-01-10T10:15:30",
+                 "unknown":{"nested":[1,2,3]},"results":{"dt":{"properties":[{"a":1},{"b":"text"}]},"name":"Robot Cell"}}""";
+
+        // When
+        EventDto event = deserializer.deserialize("modapto-module-creation", json.getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertEquals("MODULE-001", event.getModule());
+        assertEquals("High", event.getPriority());
+        assertEquals("modapto-module-creation", event.getTopic());
+        assertEquals(OffsetDateTime.of(2025, 1, 10, 10, 15, 30, 0, ZoneOffset.UTC), event.getTimestamp());
+        assertNotNull(event.getRawResults());
+        assertEquals("Robot Cell", event.extractResultsField("name"));
+        // Tree is only built when results are accessed
+        assertEquals("text", event.getResults().get("dt").get("properties").get(1).get("b").asText());
+        assertNull(event.getRawResults());
+    }
+
+    @DisplayName("Deserialize Event: Missing or null results")
+    @Test
+    void givenEventWithNullResults_whenDeserialize_thenResultsAreNull() {
+        // Given
+        String json = "{\"module\":\"MODULE-001\",\"priority\":\"Low\",\"topic\":\"test-topic\",\"results\":null}";
+
+        // When
+        EventDto event = deserializer.deserialize("test-topic", json.getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertNull(event.getResults());
+        assertNull(event.extractResultsField("name"));
+    }
+
+    @DisplayName("Deserialize Event: Invalid JSON")
+    @Test
+    void givenInvalidJson_whenDeserialize_thenThrowSerializationException() {
+        // Given
+        byte[] data = "{\"module\":".getBytes(StandardCharsets.UTF_8);
+
+        // When - Then
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("test-topic", data));
+    }
+
+    @DisplayName("Deserialize Event: Object value of an envelope field is rejected instead of truncating the envelope")
+    @Test
+    void givenObjectValueOfEnvelopeField_whenDeserialize_thenThrowSerializationException() {
+        // Given
+        byte[] data = "{\"module\": {\"id\": \"x\"}, \"priority\": \"HIGH\", \"topic\": \"test-topic\"}".getBytes(StandardCharsets.UTF_8);
+
+        // When - Then
+        SerializationException exception = assertThrows(SerializationException.class, () -> deserializer.deserialize("test-topic", data));
+        assertTrue(exception.getMessage().contains("Field 'module' must be a scalar value"));
+    }
+
+    @DisplayName("Deserialize Event: Results accessed concurrently are parsed once and shared")
+    @Test
+    void givenRawResults_whenAccessedConcurrently_thenAllReadersSeeSameResults() throws Exception {
+        // Given
+        String json = "{\"module\":\"MODULE-001\",\"priority\":\"Low\",\"topic\":\"test-topic\",\"results\":{\"name\":\"Robot Cell\"}}";
+        EventDto event = deserializer.deserialize("test-topic", json.getBytes(StandardCharsets.UTF_8));
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<JsonNode>> readers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 16; i++) {
+                boolean streamed = i % 2 == 0;
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    if (streamed)
+                        assertEquals("Robot Cell", event.extractResultsField("name"));
+                    return event.getResults();
+                }));
+            }
+            start.countDown();
+
+            // Then
+            JsonNode results = readers.getFirst().get();
+            assertEquals("Robot Cell", results.get("name").asText());
+            for (Future<JsonNode> reader : readers)
+                assertSame(results, reader.get());
+        }
+        assertNull(event.getRawResults());
+    }
+}
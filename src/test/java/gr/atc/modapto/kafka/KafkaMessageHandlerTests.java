@@ -3,19 +3,26 @@ package gr.atc.modapto.kafka;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import org.mockito.InjectMocks;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,32 +30,48 @@ import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import gr.atc.modapto.dto.EventDto;
+import gr.atc.modapto.dto.NotificationOccurrencesDto;
 import gr.atc.modapto.enums.MessagePriority;
+import gr.atc.modapto.exception.CustomExceptions.EventProcessingException;
+import gr.atc.modapto.pipeline.NotificationPipeline;
 import gr.atc.modapto.service.ModaptoModuleService;
+import gr.atc.modapto.service.TopicRecipientsView;
 import gr.atc.modapto.service.WebSocketService;
 import static org.awaitility.Awaitility.await;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import gr.atc.modapto.service.interfaces.IEventService;
 import gr.atc.modapto.service.interfaces.INotificationService;
+import gr.atc.modapto.util.DeterministicIdUtils;
 
 @EnableKafka
 @SpringJUnitConfig(classes = {
         KafkaMessageHandler.class,
+        OrderedProcessingLanes.class,
+        EventCoalescingWindow.class,
+        NotificationPipeline.class,
+        TopicRecipientsView.class,
+        SimpleMeterRegistry.class,
         KafkaAutoConfiguration.class,
 })
 @TestPropertySource(properties = {
         "kafka.topics=topic1,topic2",
-        "spring.kafka.consumer.group-id=test-group"
+        "spring.kafka.consumer.group-id=test-group",
+        "spring.kafka.listener.type=batch",
+        "spring.kafka.listener.ack-mode=manual",
+        "kafka.coalescing.window=60000"
 })
 @EmbeddedKafka(partitions = 1, topics = "test-topic", brokerProperties = {
         "listeners=PLAINTEXT://localhost:9092", "port=9092"
@@ -77,13 +100,31 @@ class KafkaMessageHandlerTests {
     @MockitoBean
     private KafkaAdmin kafkaAdmin;
 
-    @InjectMocks
+    @MockitoBean
+    private FailedEventPublisher failedEventPublisher;
+
+    @MockitoBean
+    private Acknowledgment acknowledgment;
+
     @Autowired
     private KafkaMessageHandler kafkaMessageHandler;
 
+    @MockitoSpyBean
+    private NotificationPipeline notificationPipeline;
+
+    @Autowired
+    private EventCoalescingWindow coalescingWindow;
+
+    @Autowired
+    private TopicRecipientsView topicRecipientsView;
+
     @BeforeEach
     void setup() {
         ReflectionTestUtils.setField(kafkaMessageHandler, "pilot", "TEST");
+        // Start every test with no open coalescing windows
+        coalescingWindow.clear();
+        // Recipients are resolved again with the stubs of each test
+        topicRecipientsView.invalidateAll();
     }
 
     @AfterEach
@@ -112,16 +153,16 @@ class KafkaMessageHandlerTests {
         event.setSmartService("Test Smart Service");
 
         when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
-        when(eventService.storeIncomingEvent(any(EventDto.class))).thenReturn("event-123");
+        when(eventService.storeIncomingEvents(anyList())).thenReturn(List.of("event-123"));
         when(eventService.retrieveUserRolesPerTopic(anyString())).thenReturn(List.of("ADMIN"));
         when(notificationService.retrieveUserIdsPerRoles(anyList())).thenReturn(new ArrayList<>(List.of("user1", "user2")));
 
         // Act
-        kafkaMessageHandler.consume(event, "test-topic", null);
+        kafkaMessageHandler.consume(List.of(new ConsumerRecord<>("test-topic", 0, 0L, null, event)), acknowledgment);
 
         // Assert
         await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
-            verify(eventService).storeIncomingEvent(any(EventDto.class));
+            verify(eventService).storeIncomingEvents(anyList());
             verify(notificationService).retrieveUserIdsPerRoles(anyList());
             verify(webSocketService).notifyUsersAndRolesViaWebSocket(any(), eq("ADMIN"));
         });
@@ -139,11 +180,11 @@ class KafkaMessageHandlerTests {
         event.setSmartService("Test Smart Service");
 
         when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
-        when(eventService.storeIncomingEvent(any())).thenReturn("event-456");
+        when(eventService.storeIncomingEvents(anyList())).thenReturn(List.of("event-456"));
         when(eventService.retrieveUserRolesPerTopic(anyString())).thenReturn(List.of());
         when(notificationService.retrieveUserIdsPerPilot(anyString())).thenReturn(new ArrayList<>(List.of("test-user")));
 
-        kafkaMessageHandler.consume(event, "unmapped-topic", null);
+        kafkaMessageHandler.consume(List.of(new ConsumerRecord<>("unmapped-topic", 0, 0L, null, event)), acknowledgment);
 
         await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
             verify(webSocketService).notifyUsersAndRolesViaWebSocket(any(), eq("TEST"));
@@ -170,16 +211,16 @@ class KafkaMessageHandlerTests {
         when(jsonNode.get("name").asText()).thenReturn("Test Module Name");
         event.setResults(jsonNode);
 
-        when(eventService.storeIncomingEvent(any(EventDto.class))).thenReturn("event-789");
+        when(eventService.storeIncomingEvents(anyList())).thenReturn(List.of("event-789"));
         when(eventService.retrieveUserRolesPerTopic(anyString())).thenReturn(List.of("OPERATOR"));
         when(notificationService.retrieveUserIdsPerRoles(anyList())).thenReturn(new ArrayList<>(List.of("user1")));
 
         // When
-        kafkaMessageHandler.consume(event, "modapto-module-creation", null);
+        kafkaMessageHandler.consume(List.of(new ConsumerRecord<>("modapto-module-creation", 0, 0L, null, event)), acknowledgment);
 
         // Then
         await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
-            verify(eventService).storeIncomingEvent(any(EventDto.class));
+            verify(eventService).storeIncomingEvents(anyList());
             verify(modaptoModuleService, never()).retrieveModaptoModuleName(anyString());
         });
     }
@@ -197,13 +238,190 @@ class KafkaMessageHandlerTests {
         when(modaptoModuleService.retrieveModaptoModuleName("INVALID-MODULE")).thenReturn(null);
 
         // When
-        kafkaMessageHandler.consume(event, "test-topic", null);
+        kafkaMessageHandler.consume(List.of(new ConsumerRecord<>("test-topic", 0, 0L, null, event)), acknowledgment);
 
         // Then
         await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
             verify(modaptoModuleService).retrieveModaptoModuleName("INVALID-MODULE");
             // No event is stored
-            verify(eventService, never()).storeIncomingEvent(any(EventDto.class));
+            verify(eventService, never()).storeIncomingEvents(anyList());
+        });
+    }
+
+    @Test
+    @DisplayName("Kafka Consumer: Batch of events is stored in bulk and recipients are resolved once per topic")
+    void givenBatchOfEvents_whenConsumed_thenStoreInBulkAndResolveRecipientsOncePerTopic() throws Exception {
+        // Given
+        List<ConsumerRecord<String, EventDto>> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            EventDto event = new EventDto();
+            event.setPriority(MessagePriority.LOW.toString());
+            event.setModule("Test Module");
+            event.setTopic("test-topic");
+            event.setEventType("Test Event Type " + i);
+            event.setDescription("Test Description " + i);
+            records.add(new ConsumerRecord<>("test-topic", 0, i, null, event));
+        }
+
+        when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
+        when(eventService.storeIncomingEvents(anyList())).thenReturn(List.of("event-1", "event-2", "event-3"));
+        when(eventService.retrieveUserRolesPerTopic("test-topic")).thenReturn(List.of("OPERATOR"));
+        when(notificationService.retrieveUserIdsPerRoles(anyList())).thenReturn(new ArrayList<>(List.of("user1")));
+
+        // When
+        kafkaMessageHandler.consume(records, acknowledgment);
+
+        // Then
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            verify(eventService, times(1)).storeIncomingEvents(anyList());
+            verify(eventService, times(1)).retrieveUserRolesPerTopic("test-topic");
+            verify(notificationService, times(1)).retrieveUserIdsPerRoles(anyList());
+            verify(webSocketService, times(3)).notifyUsersAndRolesViaWebSocket(any(), eq("OPERATOR"));
         });
+        // Batch is acknowledged once
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Kafka Consumer: Event that cannot be stored is diverted to retry topics")
+    void givenStorageFailure_whenConsumed_thenDivertEventToRetryTopics() throws Exception {
+        // Given
+        EventDto event = new EventDto();
+        event.setPriority(MessagePriority.HIGH.toString());
+        event.setModule("Test Module");
+        event.setTopic("test-topic");
+        event.setDescription("Test Description");
+        ConsumerRecord<String, EventDto> consumerRecord = new ConsumerRecord<>("test-topic", 0, 5L, null, event);
+
+        when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
+        when(eventService.storeIncomingEvents(anyList())).thenThrow(new IllegalStateException("Elasticsearch unavailable"));
+        when(failedEventPublisher.publish(eq(consumerRecord), any(IllegalStateException.class))).thenReturn(true);
+
+        // When
+        kafkaMessageHandler.consume(List.of(consumerRecord), acknowledgment);
+
+        // Then
+        verify(failedEventPublisher).publish(eq(consumerRecord), any(IllegalStateException.class));
+        verify(eventService, never()).retrieveUserRolesPerTopic(anyString());
+    }
+
+    @Test
+    @DisplayName("Kafka Consumer: Failure of a retried event is propagated to the retry topic chain")
+    void givenStorageFailure_whenProcessRetriedRecord_thenThrowFailure() {
+        // Given
+        EventDto event = new EventDto();
+        event.setPriority(MessagePriority.HIGH.toString());
+        event.setModule("Test Module");
+        event.setTopic("test-topic");
+        event.setDescription("Test Description");
+
+        when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
+        when(eventService.storeIncomingEvents(anyList())).thenReturn(Collections.singletonList(null));
+
+        // When - Then
+        ConsumerRecord<String, EventDto> retriedRecord = new ConsumerRecord<>("test-topic", 0, 5L, null, event);
+        assertThrows(EventProcessingException.class, () -> kafkaMessageHandler.processRetriedRecord(retriedRecord));
+        verify(failedEventPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    @DisplayName("Kafka Consumer: Re-delivered event is not stored again and not pushed again")
+    void givenAlreadyStoredEvent_whenConsumed_thenUpsertNotificationsWithoutPush() throws Exception {
+        // Given
+        EventDto event = new EventDto();
+        event.setPriority(MessagePriority.HIGH.toString());
+        event.setModule("Test Module");
+        event.setTopic("test-topic");
+        event.setDescription("Test Description");
+        String eventId = DeterministicIdUtils.eventId("test-topic", 0, 7L);
+
+        when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
+        when(eventService.retrieveExistingEventIds(List.of(eventId))).thenReturn(Set.of(eventId));
+        when(eventService.retrieveUserRolesPerTopic(anyString())).thenReturn(List.of("OPERATOR"));
+        when(notificationService.retrieveUserIdsPerRoles(anyList())).thenReturn(new ArrayList<>(List.of("user1")));
+
+        // When
+        kafkaMessageHandler.consume(List.of(new ConsumerRecord<>("test-topic", 0, 7L, null, event)), acknowledgment);
+
+        // Then
+        verify(eventService, never()).storeIncomingEvents(anyList());
+        verify(notificationService).retrieveUserIdsPerRoles(anyList());
+        await().during(500, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).untilAsserted(() ->
+            verify(webSocketService, never()).notifyUsersAndRolesViaWebSocket(any(), anyString()));
+    }
+
+    @Test
+    @DisplayName("Kafka Consumer: Repeated events within the coalescing window only increase occurrences of the first notification")
+    void givenRepeatedEvents_whenConsumed_thenCoalesceIntoFirstNotification() throws Exception {
+        // Given
+        List<ConsumerRecord<String, EventDto>> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            EventDto event = new EventDto();
+            event.setPriority(MessagePriority.HIGH.toString());
+            event.setModule("Test Module");
+            event.setEventType("Machine Fault");
+            event.setTopic("test-topic");
+            records.add(new ConsumerRecord<>("test-topic", 0, i, null, event));
+        }
+        String leaderEventId = DeterministicIdUtils.eventId("test-topic", 0, 0L);
+
+        when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
+        when(eventService.storeIncomingEvents(anyList())).thenAnswer(invocation ->
+                ((List<EventDto>) invocation.getArgument(0)).stream().map(EventDto::getId).toList());
+        when(eventService.retrieveUserRolesPerTopic("test-topic")).thenReturn(List.of("OPERATOR"));
+        when(notificationService.retrieveUserIdsPerRoles(anyList())).thenReturn(new ArrayList<>(List.of("user1")));
+        when(objectMapper.writeValueAsString(any(NotificationOccurrencesDto.class))).thenReturn("occurrences-changed");
+
+        // When
+        kafkaMessageHandler.consume(records, acknowledgment);
+
+        // Then - All events are stored, but only the first one is notified
+        verify(notificationService).incrementNotificationOccurrences(leaderEventId, 4);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            verify(webSocketService, times(1)).notifyUsersAndRolesViaWebSocket(eq("occurrences-changed"), eq("OPERATOR"));
+            verify(webSocketService, times(2)).notifyUsersAndRolesViaWebSocket(any(), eq("OPERATOR"));
+        });
+    }
+
+    @Test
+    @DisplayName("Kafka Consumer: Repeats of a leading event whose notifications fail are diverted along with it and its window is released")
+    void givenLeaderStoreFailure_whenConsumed_thenDivertRepeatsAndReleaseWindow() throws Exception {
+        // Given
+        List<ConsumerRecord<String, EventDto>> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            records.add(new ConsumerRecord<>("test-topic", 0, i, null, repeatedEvent()));
+
+        when(modaptoModuleService.retrieveModaptoModuleName(anyString())).thenReturn("Test Module Name");
+        when(eventService.storeIncomingEvents(anyList())).thenAnswer(invocation ->
+                ((List<EventDto>) invocation.getArgument(0)).stream().map(EventDto::getId).toList());
+        when(eventService.retrieveUserRolesPerTopic("test-topic")).thenReturn(List.of("OPERATOR"));
+        when(notificationService.retrieveUserIdsPerRoles(anyList())).thenReturn(new ArrayList<>(List.of("user1")));
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("Elasticsearch unavailable")))
+                .when(notificationPipeline).submitNotification(any(), anyList(), any(), anyList());
+        when(failedEventPublisher.publish(any(), any())).thenReturn(true);
+
+        // When
+        kafkaMessageHandler.consume(records, acknowledgment);
+
+        // Then - The leader and its repeats are diverted, and no occurrences are added to the missing notification
+        verify(failedEventPublisher).publish(eq(records.get(0)), any(IllegalStateException.class));
+        verify(failedEventPublisher).publish(eq(records.get(1)), any(EventProcessingException.class));
+        verify(failedEventPublisher).publish(eq(records.get(2)), any(EventProcessingException.class));
+        verify(notificationService, never()).incrementNotificationOccurrences(anyString(), anyInt());
+        verify(acknowledgment, times(1)).acknowledge();
+
+        // The next repeat opens a new window
+        EventDto nextRepeat = repeatedEvent();
+        nextRepeat.setId("next-repeat");
+        assertTrue(coalescingWindow.register(nextRepeat).leader());
+    }
+
+    private EventDto repeatedEvent() {
+        EventDto event = new EventDto();
+        event.setPriority(MessagePriority.HIGH.toString());
+        event.setModule("Test Module");
+        event.setEventType("Machine Fault");
+        event.setTopic("test-topic");
+        return event;
     }
-}
\ No newline at end of file
+}
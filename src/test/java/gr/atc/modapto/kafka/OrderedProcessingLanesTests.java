@@ -0,0 +1,68 @@
+package gr.atc.modapto.kafka;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OrderedProcessingLanesTests {
+
+    private OrderedProcessingLanes processingLanes;
+
+    @BeforeEach
+    void setup() {
+        processingLanes = new OrderedProcessingLanes(4);
+    }
+
+    @AfterEach
+    void cleanup() {
+        processingLanes.shutdown();
+    }
+
+    @DisplayName("Process Lanes: Items with the same key keep their order")
+    @Test
+    void givenItemsWithSameKey_whenProcess_thenKeepOriginalOrder() {
+        // Given
+        List<String> keys = List.of("module-1", "module-2", "module-1", "module-3", "module-1", "module-2");
+        Map<String, List<Integer>> processedPerKey = new ConcurrentHashMap<>();
+
+        // When
+        Map<Integer, RuntimeException> unprocessed = processingLanes.process(keys.size(), keys::get,
+                index -> processedPerKey.computeIfAbsent(keys.get(index), key -> new CopyOnWriteArrayList<>()).add(index));
+
+        // Then
+        assertTrue(unprocessed.isEmpty());
+        assertEquals(List.of(0, 2, 4), processedPerKey.get("module-1"));
+        assertEquals(List.of(1, 5), processedPerKey.get("module-2"));
+        assertEquals(List.of(3), processedPerKey.get("module-3"));
+    }
+
+    @DisplayName("Process Lanes: Failure skips the rest of the lane and reports failed and skipped items")
+    @Test
+    void givenFailingItem_whenProcess_thenReportFailedAndSkippedItemsOfKey() {
+        // Given
+        List<String> keys = List.of("module-1", "module-2", "module-1", "module-1");
+        List<Integer> processed = new CopyOnWriteArrayList<>();
+
+        // When
+        Map<Integer, RuntimeException> unprocessed = processingLanes.process(keys.size(), keys::get, index -> {
+            if (index == 2)
+                throw new IllegalStateException("Test failure");
+            processed.add(index);
+        });
+
+        // Then
+        assertEquals(List.of(2, 3), List.copyOf(unprocessed.keySet()));
+        assertTrue(processed.containsAll(List.of(0, 1)));
+        assertFalse(processed.contains(3));
+    }
+}
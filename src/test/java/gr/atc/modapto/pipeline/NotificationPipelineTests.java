@@ -0,0 +1,226 @@
+package gr.atc.modapto.pipeline;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.events.NewNotificationEvent;
+import gr.atc.modapto.kafka.KafkaMessageHandler;
+import gr.atc.modapto.service.WebSocketService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationPipelineTests {
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer listenerContainer;
+
+    private NotificationPipeline notificationPipeline;
+
+    private final CountDownLatch releaseStorage = new CountDownLatch(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setup() {
+        notificationPipeline = new NotificationPipeline(eventPublisher, webSocketService, listenerRegistry, meterRegistry,
+                10, 4, 1, 4, 1, 0.5, 0.1);
+    }
+
+    @AfterEach
+    void cleanup() {
+        releaseStorage.countDown();
+        notificationPipeline.shutdown();
+    }
+
+    @DisplayName("Submit Notification: Stored per user and then pushed to WebSocket topics")
+    @Test
+    void givenNotification_whenSubmit_thenStoreAndPushToTopics() throws Exception {
+        // When
+        CompletableFuture<Void> stored = notificationPipeline.submitNotification(new NotificationDto(), List.of("user1"), "message", List.of("OPERATOR", "SUPER_ADMIN"));
+
+        // Then
+        stored.get(2, TimeUnit.SECONDS);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            verify(eventPublisher).publishEvent(any(NewNotificationEvent.class));
+            verify(webSocketService).notifyUsersAndRolesViaWebSocket("message", "OPERATOR");
+            verify(webSocketService).notifyUsersAndRolesViaWebSocket("message", "SUPER_ADMIN");
+        });
+    }
+
+    @DisplayName("Submit Notification: Storage failure completes the future exceptionally and skips the push")
+    @Test
+    void givenStorageFailure_whenSubmit_thenCompleteExceptionally() {
+        // Given
+        doThrow(new IllegalStateException("Storage failure")).when(eventPublisher).publishEvent(any(NewNotificationEvent.class));
+
+        // When
+        CompletableFuture<Void> stored = notificationPipeline.submitNotification(new NotificationDto(), List.of("user1"), "message", List.of("OPERATOR"));
+
+        // Then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> stored.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        verify(webSocketService, never()).notifyUsersAndRolesViaWebSocket(any(), any());
+    }
+
+    @DisplayName("Submit Notification: Listener is paused above high-water mark and resumed below low-water mark")
+    @Test
+    void givenSlowStorage_whenQueuesPassHighWaterMark_thenPauseAndResumeListener() {
+        // Given
+        when(listenerRegistry.getListenerContainer(KafkaMessageHandler.EVENT_LISTENER_ID)).thenReturn(listenerContainer);
+        doAnswer(invocation -> releaseStorage.await(5, TimeUnit.SECONDS)).when(eventPublisher).publishEvent(any(NewNotificationEvent.class));
+
+        // When - One task is taken by the blocked worker, the following ones are queued
+        for (int i = 0; i < 5; i++)
+            notificationPipeline.submitNotification(new NotificationDto(), List.of("user1"), "message", List.of("OPERATOR"));
+
+        // Then
+        verify(listenerContainer).pause();
+        assertEquals(4, notificationPipeline.getQueueDepths().get("store"));
+
+        releaseStorage.countDown();
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> verify(listenerContainer).resume());
+    }
+
+    @DisplayName("Submit Notification: Queued HIGH priority notifications are stored before LOW priority ones of other modules")
+    @Test
+    void givenQueuedLowPriorityNotifications_whenSubmitHighPriority_thenStoreHighPriorityFirst() throws Exception {
+        // Given
+        List<String> storedPriorities = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            NewNotificationEvent event = invocation.getArgument(0);
+            storedPriorities.add(event.getNotification().getPriority());
+            return releaseStorage.await(5, TimeUnit.SECONDS);
+        }).when(eventPublisher).publishEvent(any(NewNotificationEvent.class));
+
+        // When - The first task is taken by the blocked worker, the following ones are queued
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Low").module("module-1").build(), List.of("user1"), "message", List.of());
+        await().atMost(2, TimeUnit.SECONDS).until(() -> storedPriorities.size() == 1);
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Low").module("module-1").build(), List.of("user1"), "message", List.of());
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Mid").module("module-2").build(), List.of("user1"), "message", List.of());
+        CompletableFuture<Void> highStored = notificationPipeline.submitNotification(NotificationDto.builder().priority("High").module("module-3").build(), List.of("user1"), "message", List.of());
+        releaseStorage.countDown();
+
+        // Then
+        highStored.get(2, TimeUnit.SECONDS);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> storedPriorities.size() == 4);
+        assertEquals(List.of("Low", "High", "Mid", "Low"), storedPriorities);
+        assertEquals(1, meterRegistry.get("modapto.pipeline.latency").tag("stage", "store").tag("priority", "HIGH").timer().count());
+        assertEquals(2, meterRegistry.get("modapto.pipeline.latency").tag("stage", "store").tag("priority", "LOW").timer().count());
+    }
+
+    @DisplayName("Submit Notification: Queued HIGH priority notification overtakes the LOW priority backlog of a module with the same hash")
+    @Test
+    void givenLowPriorityBacklogOfModuleWithSameHash_whenSubmitHighPriority_thenStoreHighPriorityNext() throws Exception {
+        // Given - Modules whose ordering keys share a hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        List<String> storedModules = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            NewNotificationEvent event = invocation.getArgument(0);
+            storedModules.add(event.getNotification().getModule() + ":" + event.getNotification().getPriority());
+            return releaseStorage.await(5, TimeUnit.SECONDS);
+        }).when(eventPublisher).publishEvent(any(NewNotificationEvent.class));
+
+        // When - The first task is taken by the blocked worker, the following ones are queued
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Low").module("Aa").build(), List.of("user1"), "message", List.of());
+        await().atMost(2, TimeUnit.SECONDS).until(() -> storedModules.size() == 1);
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Low").module("Aa").build(), List.of("user1"), "message", List.of());
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Low").module("Aa").build(), List.of("user1"), "message", List.of());
+        CompletableFuture<Void> highStored = notificationPipeline.submitNotification(NotificationDto.builder().priority("High").module("BB").build(), List.of("user1"), "message", List.of());
+        releaseStorage.countDown();
+
+        // Then
+        highStored.get(2, TimeUnit.SECONDS);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> storedModules.size() == 4);
+        assertEquals(List.of("Aa:Low", "BB:High", "Aa:Low", "Aa:Low"), storedModules);
+    }
+
+    @DisplayName("Submit Push: Queued HIGH priority push overtakes the LOW priority backlog of a module with the same hash")
+    @Test
+    void givenLowPriorityPushBacklogOfModuleWithSameHash_whenSubmitHighPriorityPush_thenPushHighPriorityNext() {
+        // Given - Modules whose ordering keys share a hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        List<String> pushedMessages = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            pushedMessages.add(invocation.getArgument(0));
+            return releaseStorage.await(5, TimeUnit.SECONDS);
+        }).when(webSocketService).notifyUsersAndRolesViaWebSocket(any(), any());
+
+        // When - The first push is taken by the blocked worker, the following ones are queued
+        notificationPipeline.submitPush("low-1", "Low", "Aa", List.of("OPERATOR"));
+        await().atMost(2, TimeUnit.SECONDS).until(() -> pushedMessages.size() == 1);
+        notificationPipeline.submitPush("low-2", "Low", "Aa", List.of("OPERATOR"));
+        notificationPipeline.submitPush("low-3", "Low", "Aa", List.of("OPERATOR"));
+        notificationPipeline.submitPush("high", "High", "BB", List.of("OPERATOR"));
+        releaseStorage.countDown();
+
+        // Then
+        await().atMost(2, TimeUnit.SECONDS).until(() -> pushedMessages.size() == 4);
+        assertEquals(List.of("low-1", "high", "low-2", "low-3"), pushedMessages);
+    }
+
+    @DisplayName("Submit Notification: Notifications of the same module are stored and pushed in submission order regardless of priority")
+    @Test
+    void givenQueuedLowPriorityNotificationOfModule_whenSubmitHighPriorityOfSameModule_thenKeepSubmissionOrder() throws Exception {
+        // Given
+        List<String> storedPriorities = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            NewNotificationEvent event = invocation.getArgument(0);
+            storedPriorities.add(event.getNotification().getPriority());
+            return releaseStorage.await(5, TimeUnit.SECONDS);
+        }).when(eventPublisher).publishEvent(any(NewNotificationEvent.class));
+
+        // When - The first task is taken by the blocked worker, the following ones are queued
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Low").module("module-1").build(), List.of("user1"), "low-1", List.of("OPERATOR"));
+        await().atMost(2, TimeUnit.SECONDS).until(() -> storedPriorities.size() == 1);
+        notificationPipeline.submitNotification(NotificationDto.builder().priority("Low").module("module-1").build(), List.of("user1"), "low-2", List.of("OPERATOR"));
+        CompletableFuture<Void> highStored = notificationPipeline.submitNotification(NotificationDto.builder().priority("High").module("module-1").build(), List.of("user1"), "high", List.of("OPERATOR"));
+        releaseStorage.countDown();
+
+        // Then
+        highStored.get(2, TimeUnit.SECONDS);
+        assertEquals(List.of("Low", "Low", "High"), storedPriorities);
+        InOrder pushOrder = inOrder(webSocketService);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> verify(webSocketService).notifyUsersAndRolesViaWebSocket("high", "OPERATOR"));
+        pushOrder.verify(webSocketService).notifyUsersAndRolesViaWebSocket("low-1", "OPERATOR");
+        pushOrder.verify(webSocketService).notifyUsersAndRolesViaWebSocket("low-2", "OPERATOR");
+        pushOrder.verify(webSocketService).notifyUsersAndRolesViaWebSocket("high", "OPERATOR");
+    }
+}
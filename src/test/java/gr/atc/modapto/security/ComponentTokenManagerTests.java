@@ -0,0 +1,190 @@
+package gr.atc.modapto.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+class ComponentTokenManagerTests {
+
+    private static final String TOKEN_URL = "http://localhost:9080/api/token";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+    private final AtomicInteger issuedTokens = new AtomicInteger();
+
+    private ComponentTokenManager componentTokenManager;
+
+    private MutableClock clock;
+
+    /*
+     * Clock that can be moved forward by the tests
+     */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        componentTokenManager = new ComponentTokenManager(restTemplate, 30, 60);
+        clock = new MutableClock();
+        ReflectionTestUtils.setField(componentTokenManager, "clock", clock);
+        ReflectionTestUtils.setField(componentTokenManager, "tokenUri", TOKEN_URL);
+        ReflectionTestUtils.setField(componentTokenManager, "client", "client");
+        ReflectionTestUtils.setField(componentTokenManager, "clientSecret", "secret");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenKeycloakIssuesTokens(long expiresIn) {
+        when(restTemplate.exchange(eq(TOKEN_URL), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenAnswer(invocation -> ResponseEntity.ok(Map.of("access_token", "token-" + issuedTokens.incrementAndGet(), "expires_in", expiresIn)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyTokenRequests(int requests) {
+        verify(restTemplate, times(requests)).exchange(eq(TOKEN_URL), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+    }
+
+    @DisplayName("Get Token: Cached token is reused until it expires minus the skew")
+    @Test
+    void givenCachedToken_whenGetToken_thenReuseUntilExpiry() {
+        // Given
+        givenKeycloakIssuesTokens(300);
+
+        // When
+        String first = componentTokenManager.getToken();
+        clock.advance(Duration.ofSeconds(100));
+        String second = componentTokenManager.getToken();
+        clock.advance(Duration.ofSeconds(171));
+        String third = componentTokenManager.getToken();
+
+        // Then
+        assertEquals("token-1", first);
+        assertEquals("token-1", second);
+        assertEquals("token-2", third);
+        verifyTokenRequests(2);
+    }
+
+    @DisplayName("Get Token: Token is refreshed in the background before it expires")
+    @Test
+    void givenTokenCloseToExpiry_whenGetToken_thenRefreshInBackground() {
+        // Given
+        givenKeycloakIssuesTokens(300);
+        componentTokenManager.getToken();
+
+        // When - Past 80% of the usable lifetime (270 sec) but before expiry
+        clock.advance(Duration.ofSeconds(230));
+        String current = componentTokenManager.getToken();
+
+        // Then
+        assertEquals("token-1", current);
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertEquals("token-2", componentTokenManager.getToken()));
+        verifyTokenRequests(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Get Token: Concurrent callers share a single request to Keycloak")
+    @Test
+    void givenConcurrentCallers_whenGetToken_thenSingleRequest() throws Exception {
+        // Given
+        CountDownLatch releaseKeycloak = new CountDownLatch(1);
+        when(restTemplate.exchange(eq(TOKEN_URL), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenAnswer(invocation -> {
+                    releaseKeycloak.await(5, TimeUnit.SECONDS);
+                    return ResponseEntity.ok(Map.of("access_token", "token-" + issuedTokens.incrementAndGet(), "expires_in", 300));
+                });
+
+        // When
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            callers.add(CompletableFuture.supplyAsync(componentTokenManager::getToken));
+        Thread.sleep(200);
+        releaseKeycloak.countDown();
+
+        // Then
+        for (CompletableFuture<String> caller : callers)
+            assertEquals("token-1", caller.get(2, TimeUnit.SECONDS));
+        verifyTokenRequests(1);
+    }
+
+    @DisplayName("Refresh Rejected Token: A new token is requested once for the rejected token")
+    @Test
+    void givenRejectedToken_whenRefreshRejectedToken_thenRequestNewTokenOnce() {
+        // Given
+        givenKeycloakIssuesTokens(300);
+        String rejected = componentTokenManager.getToken();
+
+        // When
+        String refreshed = componentTokenManager.refreshRejectedToken(rejected);
+        String refreshedAgain = componentTokenManager.refreshRejectedToken(rejected);
+
+        // Then
+        assertEquals("token-2", refreshed);
+        assertEquals("token-2", refreshedAgain);
+        assertEquals("token-2", componentTokenManager.getToken());
+        verifyTokenRequests(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Get Token: Failure")
+    @Test
+    void givenKeycloakFailure_whenGetToken_thenReturnNull() {
+        // Given
+        when(restTemplate.exchange(eq(TOKEN_URL), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenThrow(new RestClientException("Connection refused"));
+
+        // When
+        String result = componentTokenManager.getToken();
+
+        // Then
+        assertNull(result);
+    }
+}
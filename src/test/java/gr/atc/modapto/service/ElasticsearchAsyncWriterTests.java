@@ -0,0 +1,213 @@
+package gr.atc.modapto.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import co.elastic.clients.elasticsearch.core.bulk.UpdateAction;
+import co.elastic.clients.elasticsearch.core.bulk.UpdateOperation;
+import co.elastic.clients.json.JsonData;
+import gr.atc.modapto.model.Event;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ElasticsearchAsyncWriterTests {
+
+    @Mock
+    private ElasticsearchAsyncClient asyncClient;
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ElasticsearchAsyncWriter asyncWriter;
+
+    @BeforeEach
+    void setup() {
+        lenient().when(elasticsearchOperations.getElasticsearchConverter()).thenReturn(new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext()));
+        asyncWriter = new ElasticsearchAsyncWriter(asyncClient, elasticsearchOperations, meterRegistry, 1, 1);
+    }
+
+    private static Event event(String id) {
+        Event event = new Event();
+        event.setId(id);
+        event.setDescription("Event " + id);
+        return event;
+    }
+
+    private static BulkResponse bulkResponse(BulkResponseItem... items) {
+        return BulkResponse.of(response -> response.errors(items.length > 0).took(1).items(List.of(items)));
+    }
+
+    @DisplayName("Bulk Index: Requests beyond the in-flight limit are queued until an earlier one completes")
+    @Test
+    void givenInFlightLimitReached_whenBulkIndex_thenQueueUntilCompletion() {
+        // Given
+        CompletableFuture<BulkResponse> firstResponse = new CompletableFuture<>();
+        when(asyncClient.bulk(any(BulkRequest.class))).thenReturn(firstResponse, CompletableFuture.completedFuture(bulkResponse()));
+
+        // When
+        CompletableFuture<Map<String, BulkFailureException.FailureDetails>> first = asyncWriter.bulkIndex("events", List.of(event("1")), Event::getId);
+        CompletableFuture<Map<String, BulkFailureException.FailureDetails>> second = asyncWriter.bulkIndex("events", List.of(event("2")), Event::getId);
+
+        // Then - The second request is sent only once the first one completes
+        verify(asyncClient, times(1)).bulk(any(BulkRequest.class));
+        assertEquals(1.0, meterRegistry.get("modapto.elasticsearch.async.in-flight").gauge().value());
+        assertEquals(1.0, meterRegistry.get("modapto.elasticsearch.async.queued").gauge().value());
+        assertFalse(second.isDone());
+
+        firstResponse.complete(bulkResponse());
+        verify(asyncClient, times(2)).bulk(any(BulkRequest.class));
+        assertTrue(first.join().isEmpty());
+        assertTrue(second.join().isEmpty());
+        assertEquals(0.0, meterRegistry.get("modapto.elasticsearch.async.in-flight").gauge().value());
+    }
+
+    @DisplayName("Bulk Index: Requests beyond the queue capacity are rejected without being sent")
+    @Test
+    void givenQueueFull_whenBulkIndex_thenRejectRequest() {
+        // Given
+        CompletableFuture<BulkResponse> firstResponse = new CompletableFuture<>();
+        when(asyncClient.bulk(any(BulkRequest.class))).thenReturn(firstResponse, CompletableFuture.completedFuture(bulkResponse()));
+
+        // When - One request in flight, one queued
+        CompletableFuture<Map<String, BulkFailureException.FailureDetails>> first = asyncWriter.bulkIndex("events", List.of(event("1")), Event::getId);
+        CompletableFuture<Map<String, BulkFailureException.FailureDetails>> second = asyncWriter.bulkIndex("events", List.of(event("2")), Event::getId);
+        CompletableFuture<Map<String, BulkFailureException.FailureDetails>> rejected = asyncWriter.bulkIndex("events", List.of(event("3")), Event::getId);
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertEquals(1.0, meterRegistry.get("modapto.elasticsearch.async.rejected").counter().count());
+
+        firstResponse.complete(bulkResponse());
+        assertTrue(first.join().isEmpty());
+        assertTrue(second.join().isEmpty());
+        verify(asyncClient, times(2)).bulk(any(BulkRequest.class));
+        assertEquals(0.0, meterRegistry.get("modapto.elasticsearch.async.queued").gauge().value());
+    }
+
+    @DisplayName("Bulk Index: Documents are sent with their IDs and rejected items are returned per ID")
+    @Test
+    void givenRejectedItem_whenBulkIndex_thenReturnFailureDetails() {
+        // Given
+        BulkResponseItem rejected = BulkResponseItem.of(item -> item.operationType(OperationType.Index).index("events").id("2").status(429)
+                .error(error -> error.type("es_rejected_execution_exception").reason("rejected execution")));
+        when(asyncClient.bulk(any(BulkRequest.class))).thenReturn(CompletableFuture.completedFuture(bulkResponse(rejected)));
+
+        // When
+        Map<String, BulkFailureException.FailureDetails> result = asyncWriter.bulkIndex("events", List.of(event("1"), event("2")), Event::getId).join();
+
+        // Then
+        assertEquals(Map.of("2", new BulkFailureException.FailureDetails(429, "rejected execution")), result);
+        ArgumentCaptor<BulkRequest> request = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(asyncClient).bulk(request.capture());
+        assertEquals(List.of("1", "2"), request.getValue().operations().stream().map(operation -> operation.index().id()).toList());
+        assertEquals("events", request.getValue().operations().getFirst().index().index());
+        assertEquals(Refresh.WaitFor, request.getValue().refresh());
+    }
+
+    @DisplayName("Bulk Index: A failed request releases its in-flight slot")
+    @Test
+    void givenFailedRequest_whenBulkIndex_thenCompleteExceptionallyAndReleaseSlot() {
+        // Given
+        when(asyncClient.bulk(any(BulkRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Connection refused")), CompletableFuture.completedFuture(bulkResponse()));
+
+        // When
+        CompletableFuture<Map<String, BulkFailureException.FailureDetails>> failed = asyncWriter.bulkIndex("events", List.of(event("1")), Event::getId);
+        CompletableFuture<Map<String, BulkFailureException.FailureDetails>> next = asyncWriter.bulkIndex("events", List.of(event("2")), Event::getId);
+
+        // Then
+        assertTrue(failed.isCompletedExceptionally());
+        assertTrue(next.join().isEmpty());
+        assertEquals(0.0, meterRegistry.get("modapto.elasticsearch.async.in-flight").gauge().value());
+    }
+
+    @DisplayName("Bulk Create: Documents are sent create-only and existing documents are neither failed nor created")
+    @Test
+    void givenExistingDocument_whenBulkCreate_thenReportCreatedAndFailedItemsOnly() {
+        // Given
+        BulkResponseItem created = BulkResponseItem.of(item -> item.operationType(OperationType.Create).index("events").id("1").status(201).result("created"));
+        BulkResponseItem existing = BulkResponseItem.of(item -> item.operationType(OperationType.Create).index("events").id("2").status(409)
+                .error(error -> error.type("version_conflict_engine_exception").reason("document already exists")));
+        BulkResponseItem rejected = BulkResponseItem.of(item -> item.operationType(OperationType.Create).index("events").id("3").status(429)
+                .error(error -> error.type("es_rejected_execution_exception").reason("rejected execution")));
+        when(asyncClient.bulk(any(BulkRequest.class))).thenReturn(CompletableFuture.completedFuture(bulkResponse(created, existing, rejected)));
+
+        // When
+        ElasticsearchAsyncWriter.CreateResult result = asyncWriter.bulkCreate("events", List.of(event("1"), event("2"), event("3")), Event::getId).join();
+
+        // Then
+        assertEquals(Map.of("3", new BulkFailureException.FailureDetails(429, "rejected execution")), result.failures());
+        assertEquals(Set.of("1"), result.createdIds());
+        ArgumentCaptor<BulkRequest> request = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(asyncClient).bulk(request.capture());
+        assertTrue(request.getValue().operations().stream().allMatch(BulkOperation::isCreate));
+        assertEquals(Refresh.WaitFor, request.getValue().refresh());
+        assertEquals(List.of("1", "2", "3"), request.getValue().operations().stream().map(operation -> operation.create().id()).toList());
+    }
+
+    @DisplayName("Bulk Scripted Update: Only documents changed by the script are reported with their returned fields")
+    @Test
+    void givenChangedAndUnchangedDocuments_whenBulkScriptedUpdate_thenReportChangedDocuments() {
+        // Given
+        BulkResponseItem changed = BulkResponseItem.of(item -> item.operationType(OperationType.Update).index("notifications").id("1").status(200)
+                .result("updated").get(get -> get.found(true).seqNo(1L).primaryTerm(1L).source(Map.of("userId", JsonData.of("user-1")))));
+        BulkResponseItem unchanged = BulkResponseItem.of(item -> item.operationType(OperationType.Update).index("notifications").id("2").status(200)
+                .result("noop"));
+        BulkResponseItem missing = BulkResponseItem.of(item -> item.operationType(OperationType.Update).index("notifications").id("3").status(404)
+                .error(error -> error.type("document_missing_exception").reason("document missing")));
+        when(asyncClient.bulk(any(BulkRequest.class))).thenReturn(CompletableFuture.completedFuture(bulkResponse(changed, unchanged, missing)));
+        Map<String, Map<String, JsonData>> paramsPerId = new LinkedHashMap<>();
+        List.of("1", "2", "3").forEach(id -> paramsPerId.put(id, Map.of("status", JsonData.of("Read"))));
+
+        // When
+        ElasticsearchAsyncWriter.ScriptedUpdateResult result = asyncWriter.bulkScriptedUpdate("notifications", paramsPerId, "ctx.op = 'noop'", List.of("userId")).join();
+
+        // Then
+        assertEquals(Map.of("3", new BulkFailureException.FailureDetails(404, "document missing")), result.failures());
+        assertEquals(List.of("1"), List.copyOf(result.changedDocuments().keySet()));
+        assertEquals("user-1", result.changedDocuments().get("1").get("userId").to(String.class));
+        ArgumentCaptor<BulkRequest> request = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(asyncClient).bulk(request.capture());
+        UpdateOperation<?, ?> update = request.getValue().operations().getFirst().update();
+        assertEquals("1", update.id());
+        assertEquals(List.of("userId"), ((UpdateAction<?, ?>) update.action()).source().filter().includes());
+    }
+}
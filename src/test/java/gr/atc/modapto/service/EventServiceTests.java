@@ -3,7 +3,10 @@ package gr.atc.modapto.service;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -14,7 +17,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.reset;
@@ -26,6 +32,7 @@ import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.BulkFailureException;
 
 import gr.atc.modapto.dto.EventDto;
 import gr.atc.modapto.dto.EventMappingsDto;
@@ -36,6 +43,9 @@ import gr.atc.modapto.model.Event;
 import gr.atc.modapto.model.EventMappings;
 import gr.atc.modapto.repository.EventMappingsRepository;
 import gr.atc.modapto.repository.EventRepository;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import gr.atc.modapto.events.EventMappingsChangedEvent;
 import org.springframework.test.context.ActiveProfiles;
 
 @ExtendWith(MockitoExtension.class)
@@ -51,6 +61,12 @@ class EventServiceTests {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ElasticsearchAsyncWriter asyncWriter;
+
     @InjectMocks
     private EventService eventService;
 
@@ -127,6 +143,52 @@ class EventServiceTests {
         });
     }
 
+    @DisplayName("Store Incoming Events: Bulk Success")
+    @Test
+    void givenValidEventDtos_whenStoreIncomingEvents_thenReturnEventIdsInOrder() {
+        // Given
+        Event secondEvent = new Event();
+        secondEvent.setId("2");
+        EventDto secondEventDto = EventDto.builder().id("2").build();
+        when(modelMapper.map(testEventDto, Event.class)).thenReturn(testEvent);
+        when(modelMapper.map(secondEventDto, Event.class)).thenReturn(secondEvent);
+        when(asyncWriter.bulkIndex(eq("events"), eq(List.of(testEvent, secondEvent)), any())).thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        // When
+        List<String> result = eventService.storeIncomingEvents(List.of(testEventDto, secondEventDto));
+
+        // Then
+        assertEquals(List.of("1", "2"), result);
+        verify(asyncWriter, times(1)).bulkIndex(eq("events"), anyList(), any());
+    }
+
+    @DisplayName("Store Incoming Events: Failed items fail the batch")
+    @Test
+    void givenRejectedEvent_whenStoreIncomingEvents_thenThrowBulkFailureException() {
+        // Given
+        when(modelMapper.map(testEventDto, Event.class)).thenReturn(testEvent);
+        when(asyncWriter.bulkIndex(eq("events"), eq(List.of(testEvent)), any()))
+                .thenReturn(CompletableFuture.completedFuture(Map.of("1", new BulkFailureException.FailureDetails(429, "es_rejected_execution_exception"))));
+        List<EventDto> eventDtos = List.of(testEventDto);
+
+        // When - Then
+        BulkFailureException exception = assertThrows(BulkFailureException.class, () -> eventService.storeIncomingEvents(eventDtos));
+        assertEquals(Map.of("1", new BulkFailureException.FailureDetails(429, "es_rejected_execution_exception")), exception.getFailedDocuments());
+    }
+
+    @DisplayName("Retrieve Existing Event IDs: Only stored IDs are returned")
+    @Test
+    void givenEventIds_whenRetrieveExistingEventIds_thenReturnStoredIds() {
+        // Given
+        when(eventRepository.findAllById(List.of("1", "2"))).thenReturn(List.of(testEvent));
+
+        // When
+        Set<String> result = eventService.retrieveExistingEventIds(List.of("1", "2"));
+
+        // Then
+        assertEquals(Set.of("1"), result);
+    }
+
     @DisplayName("Store Event Mapping: Success")
     @Test
     void givenValidEventMappingsDto_whenStoreEventMapping_thenReturnMappingId() {
@@ -266,6 +328,7 @@ class EventServiceTests {
         // Given
         EventMappings mapping = new EventMappings();
         mapping.setId("1");
+        mapping.setTopic("Test Topic");
 
         // When
         when(eventMappingsRepository.findById("1")).thenReturn(Optional.of(mapping));
@@ -274,6 +337,7 @@ class EventServiceTests {
 
         // Then
         verify(eventMappingsRepository, times(1)).deleteById(anyString());
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof EventMappingsChangedEvent changed && changed.getTopic().equals("Test Topic")));
     }
 
     @DisplayName("Delete Event Mapping: Not Found")
@@ -0,0 +1,218 @@
+package gr.atc.modapto.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.CreateOperation;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import gr.atc.modapto.enums.NotificationStatus;
+
+import gr.atc.modapto.exception.CustomExceptions.EventProcessingException;
+import gr.atc.modapto.model.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationBulkWriterTests {
+
+    @Mock
+    private ElasticsearchAsyncWriter asyncWriter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private NotificationBulkWriter notificationBulkWriter;
+
+    @BeforeEach
+    void setup() {
+        notificationBulkWriter = new NotificationBulkWriter(asyncWriter, meterRegistry, 2, 2, 0);
+        lenient().when(asyncWriter.bulkCreate(eq("notifications"), anyList(), any())).thenAnswer(invocation -> {
+            List<Notification> notifications = invocation.getArgument(1);
+            return CompletableFuture.completedFuture(new ElasticsearchAsyncWriter.CreateResult(Map.of(),
+                    notifications.stream().map(Notification::getId).collect(Collectors.toSet())));
+        });
+    }
+
+    private static List<Notification> notifications(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Notification notification = new Notification();
+            notification.setId("notification" + i);
+            notification.setUserId("user" + i);
+            return notification;
+        }).collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+    }
+
+    private static CompletableFuture<ElasticsearchAsyncWriter.CreateResult> rejected(Map<String, BulkFailureException.FailureDetails> failedDocuments) {
+        return CompletableFuture.completedFuture(new ElasticsearchAsyncWriter.CreateResult(failedDocuments, Set.of()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<String>> captureBulkRequestIds(int bulkRequests) {
+        ArgumentCaptor<List<Notification>> requests = ArgumentCaptor.forClass(List.class);
+        verify(asyncWriter, times(bulkRequests)).bulkCreate(eq("notifications"), requests.capture(), any());
+        return requests.getAllValues().stream()
+                .map(bulk -> bulk.stream().map(Notification::getId).sorted().toList())
+                .sorted((first, second) -> first.getFirst().compareTo(second.getFirst()))
+                .toList();
+    }
+
+    @DisplayName("Store All: Notifications are split into chunks of the configured size")
+    @Test
+    void givenMoreNotificationsThanChunkSize_whenStoreAll_thenSendOneBulkPerChunk() {
+        // When
+        NotificationBulkWriter.StoreResult result = notificationBulkWriter.storeAll(notifications(5));
+
+        // Then
+        assertEquals(List.of("notification0", "notification1", "notification2", "notification3", "notification4"), result.notificationIds());
+        assertEquals(Set.copyOf(result.notificationIds()), result.createdIds());
+        assertEquals(List.of(List.of("notification0", "notification1"), List.of("notification2", "notification3"), List.of("notification4")),
+                captureBulkRequestIds(3));
+        assertEquals(3, meterRegistry.get("modapto.notifications.bulk.latency").tag("outcome", "success").timer().count());
+    }
+
+    @DisplayName("Store All: Only items rejected with a transient status are retried")
+    @Test
+    void givenTransientItemFailure_whenStoreAll_thenRetryOnlyFailedItems() {
+        // Given
+        when(asyncWriter.bulkCreate(eq("notifications"), anyList(), any()))
+                .thenReturn(rejected(Map.of("notification1", new BulkFailureException.FailureDetails(429, "es_rejected_execution_exception"))))
+                .thenReturn(rejected(Map.of()));
+
+        // When
+        NotificationBulkWriter.StoreResult result = notificationBulkWriter.storeAll(notifications(2));
+
+        // Then
+        assertEquals(List.of("notification0", "notification1"), result.notificationIds());
+        assertEquals(List.of(List.of("notification0", "notification1"), List.of("notification1")), captureBulkRequestIds(2));
+        assertEquals(1, meterRegistry.get("modapto.notifications.bulk.retried.items").counter().count());
+    }
+
+    @DisplayName("Store All: Items rejected with a permanent status are not retried and fail the fan-out")
+    @Test
+    void givenPermanentItemFailure_whenStoreAll_thenThrowWithoutRetry() {
+        // Given
+        when(asyncWriter.bulkCreate(eq("notifications"), anyList(), any()))
+                .thenReturn(rejected(Map.of("notification0", new BulkFailureException.FailureDetails(400, "mapper_parsing_exception"))));
+        List<Notification> notifications = notifications(2);
+
+        // When - Then
+        assertThrows(EventProcessingException.class, () -> notificationBulkWriter.storeAll(notifications));
+        verify(asyncWriter, times(1)).bulkCreate(eq("notifications"), anyList(), any());
+        assertEquals(1, meterRegistry.get("modapto.notifications.bulk.failed.items").counter().count());
+    }
+
+    @DisplayName("Store All: Items still failing after all retries fail the fan-out")
+    @Test
+    void givenPersistentTransientFailure_whenStoreAll_thenThrowAfterRetries() {
+        // Given
+        when(asyncWriter.bulkCreate(eq("notifications"), anyList(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Connection refused")));
+        List<Notification> notifications = notifications(1);
+
+        // When - Then
+        assertThrows(EventProcessingException.class, () -> notificationBulkWriter.storeAll(notifications));
+        verify(asyncWriter, times(3)).bulkCreate(eq("notifications"), anyList(), any());
+    }
+
+    @DisplayName("Store All: Notifications without ID are assigned one before they are sent")
+    @Test
+    void givenNotificationWithoutId_whenStoreAll_thenAssignId() {
+        // Given
+        List<Notification> notifications = notifications(1);
+        notifications.getFirst().setId(null);
+
+        // When
+        NotificationBulkWriter.StoreResult result = notificationBulkWriter.storeAll(notifications);
+
+        // Then
+        assertNotNull(result.notificationIds().getFirst());
+        assertEquals(result.notificationIds().getFirst(), notifications.getFirst().getId());
+    }
+
+    @DisplayName("Store All: Re-delivered notifications keep the read status and occurrences of the stored ones")
+    @Test
+    void givenNotificationMarkedRead_whenRedelivered_thenKeepStoredNotification() {
+        // Given - Elasticsearch stand-in that honours create-only operations
+        Map<String, Map<String, Object>> index = new ConcurrentHashMap<>();
+        ElasticsearchAsyncClient asyncClient = mock(ElasticsearchAsyncClient.class);
+        when(asyncClient.bulk(any(BulkRequest.class))).thenAnswer(invocation -> {
+            BulkRequest request = invocation.getArgument(0);
+            List<BulkResponseItem> items = new ArrayList<>();
+            for (BulkOperation operation : request.operations()) {
+                CreateOperation<?> create = operation.create();
+                boolean created = index.putIfAbsent(create.id(), new HashMap<>((Document) create.document())) == null;
+                items.add(BulkResponseItem.of(item -> {
+                    item.operationType(OperationType.Create).index(create.index()).id(create.id());
+                    return created ? item.status(201).result("created")
+                            : item.status(409).error(error -> error.type("version_conflict_engine_exception").reason("document already exists"));
+                }));
+            }
+            return CompletableFuture.completedFuture(BulkResponse.of(response -> response.errors(items.stream().anyMatch(item -> item.error() != null)).took(1).items(items)));
+        });
+        ElasticsearchOperations elasticsearchOperations = mock(ElasticsearchOperations.class);
+        when(elasticsearchOperations.getElasticsearchConverter()).thenReturn(new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext()));
+        NotificationBulkWriter writer = new NotificationBulkWriter(new ElasticsearchAsyncWriter(asyncClient, elasticsearchOperations, meterRegistry, 2, 10),
+                meterRegistry, 2, 2, 0);
+
+        writer.storeAll(unreadNotifications(3));
+        index.get("notification1").put("notificationStatus", NotificationStatus.READ.toString());
+        index.get("notification1").put("occurrences", 4);
+
+        // When - The event is re-delivered, e.g. after a rebalance
+        NotificationBulkWriter.StoreResult result = writer.storeAll(unreadNotifications(3));
+
+        // Then
+        assertEquals(List.of("notification0", "notification1", "notification2"), result.notificationIds());
+        assertTrue(result.createdIds().isEmpty());
+        assertEquals(NotificationStatus.READ.toString(), index.get("notification1").get("notificationStatus"));
+        assertEquals(4, index.get("notification1").get("occurrences"));
+        assertEquals(NotificationStatus.UNREAD.toString(), index.get("notification0").get("notificationStatus"));
+        assertEquals(3, meterRegistry.get("modapto.notifications.bulk.existing.items").counter().count());
+        assertEquals(0, meterRegistry.get("modapto.notifications.bulk.failed.items").counter().count());
+    }
+
+    private static List<Notification> unreadNotifications(int count) {
+        List<Notification> notifications = notifications(count);
+        notifications.forEach(notification -> {
+            notification.setNotificationStatus(NotificationStatus.UNREAD.toString());
+            notification.setOccurrences(1);
+        });
+        return notifications;
+    }
+}
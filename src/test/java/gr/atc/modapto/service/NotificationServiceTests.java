@@ -2,24 +2,34 @@ package gr.atc.modapto.service;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import gr.atc.modapto.dto.AssignmentDto;
+import gr.atc.modapto.enums.NotificationStorageMode;
 import gr.atc.modapto.enums.NotificationType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
@@ -28,24 +38,32 @@ import static org.mockito.Mockito.*;
 
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.elasticsearch.VersionConflictException;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.ByQueryResponse;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 import gr.atc.modapto.dto.NotificationDto;
+import gr.atc.modapto.dto.NotificationRecipient;
 import gr.atc.modapto.enums.NotificationStatus;
 import gr.atc.modapto.exception.CustomExceptions.DataNotFoundException;
 import gr.atc.modapto.exception.CustomExceptions.ModelMappingException;
 import gr.atc.modapto.model.Notification;
+import gr.atc.modapto.model.NotificationBody;
+import gr.atc.modapto.repository.NotificationBodyRepository;
 import gr.atc.modapto.repository.NotificationRepository;
+import gr.atc.modapto.util.DeterministicIdUtils;
+import gr.atc.modapto.security.ComponentTokenManager;
 
 @ExtendWith(MockitoExtension.class)
 @ActiveProfiles(profiles = "test")
@@ -61,10 +79,28 @@ class NotificationServiceTests {
     private WebSocketService webSocketService;
 
     @Mock
-    private RestTemplate restTemplate;
+    private ObjectMapper objectMapper;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private ComponentTokenManager componentTokenManager;
+
+    @Mock
+    private UserDirectoryCache userDirectoryCache;
+
+    @Mock
+    private NotificationBulkWriter notificationBulkWriter;
+
+    @Mock
+    private NotificationBodyRepository notificationBodyRepository;
+
+    @Mock
+    private ReadStatusBuffer readStatusBuffer;
+
+    @Mock
+    private UnreadCounterService unreadCounterService;
 
     @InjectMocks
     private NotificationService notificationService;
@@ -74,18 +110,10 @@ class NotificationServiceTests {
     private Notification notification;
     private Notification superAdminNotification;
 
-    private static final String USER_MANAGER_URL = "http://localhost:8080/api/keycloak";
-    private static final String TOKEN_URL = "http://localhost:9080/api/token";
-    private static final String CLIENT = "client";
-    private static final String CLIENT_SECRET = "secret";
-
     @BeforeEach
     void setup() {
-        // Configure service properties
-        ReflectionTestUtils.setField(notificationService, "userManagerUrl", USER_MANAGER_URL);
-        ReflectionTestUtils.setField(notificationService, "tokenUri", TOKEN_URL);
-        ReflectionTestUtils.setField(notificationService, "client", CLIENT);
-        ReflectionTestUtils.setField(notificationService, "clientSecret", CLIENT_SECRET);
+        // No read marks pending unless a test buffers one
+        lenient().when(readStatusBuffer.applyPendingReads(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Initialize data
         notificationDto = NotificationDto.builder()
@@ -123,7 +151,7 @@ class NotificationServiceTests {
         superAdminNotification.setDescription("Test Notification");
 
         // Clear mock interactions
-        reset(notificationRepository, modelMapper, restTemplate);
+        reset(notificationRepository, modelMapper);
     }
 
     @DisplayName("Store Notification: Success")
@@ -138,6 +166,7 @@ class NotificationServiceTests {
 
         // Then
         assertEquals("1", result);
+        verify(unreadCounterService, times(1)).adjust("user1", 1);
     }
 
     @DisplayName("Store Notification: Mapping Exception")
@@ -152,6 +181,140 @@ class NotificationServiceTests {
         });
     }
 
+    /*
+     * Bulk writer stand-in that renders the notification of each recipient - Notifications with the given IDs are reported as already stored
+     */
+    private List<Notification> renderStoredNotifications(String... existingIds) {
+        List<Notification> rendered = new ArrayList<>();
+        when(notificationBulkWriter.storeAll(anyList(), any())).thenAnswer(invocation -> {
+            List<NotificationRecipient> recipients = invocation.getArgument(0);
+            Function<NotificationRecipient, Notification> renderer = invocation.getArgument(1);
+            recipients.forEach(recipient -> rendered.add(renderer.apply(recipient)));
+            List<String> notificationIds = rendered.stream().map(Notification::getId).toList();
+            Set<String> createdIds = new HashSet<>(notificationIds);
+            List.of(existingIds).forEach(createdIds::remove);
+            return new NotificationBulkWriter.StoreResult(notificationIds, createdIds);
+        });
+        return rendered;
+    }
+
+    @DisplayName("Store Notifications: A notification is rendered per recipient from the unmodified template")
+    @Test
+    void givenTemplateAndRecipients_whenStoreNotifications_thenRenderNotificationPerRecipient() {
+        // Given
+        when(modelMapper.map(notificationDto, Notification.class)).thenReturn(notification);
+        List<Notification> rendered = renderStoredNotifications();
+
+        // When
+        List<String> result = notificationService.storeNotifications(notificationDto, List.of(
+                new NotificationRecipient("1", "user1", "User One"),
+                new NotificationRecipient("2", "SUPER_ADMIN", "SUPER_ADMIN")));
+
+        // Then
+        assertEquals(List.of("1", "2"), result);
+        assertEquals(List.of("User One", "SUPER_ADMIN"), rendered.stream().map(Notification::getUser).toList());
+        rendered.forEach(copy -> assertEquals("Test Notification", copy.getDescription()));
+        assertEquals("user1", notificationDto.getUserId());
+        verify(modelMapper, times(1)).map(notificationDto, Notification.class);
+        verify(notificationRepository, never()).save(any(Notification.class));
+        verify(unreadCounterService, times(1)).adjustAll(Map.of("user1", 1L, "SUPER_ADMIN", 1L));
+    }
+
+    @DisplayName("Store Notifications: Unread counters only count the created notifications, once per user")
+    @Test
+    void givenRedeliveredFanOut_whenStoreNotifications_thenAdjustCountersByCreatedNotificationsPerUser() {
+        // Given
+        when(modelMapper.map(notificationDto, Notification.class)).thenReturn(notification);
+        renderStoredNotifications("2");
+
+        // When
+        notificationService.storeNotifications(notificationDto, List.of(
+                new NotificationRecipient("1", "user1", "User One"),
+                new NotificationRecipient("2", "SUPER_ADMIN", "SUPER_ADMIN"),
+                new NotificationRecipient("3", "user1", "User One")));
+
+        // Then
+        verify(unreadCounterService, times(1)).adjustAll(Map.of("user1", 2L));
+        verify(unreadCounterService, never()).adjust(anyString(), anyLong());
+    }
+
+    @DisplayName("Store Notifications: Shared-body mode stores the body once and a receipt per recipient")
+    @Test
+    void givenSharedBodyMode_whenStoreNotifications_thenStoreBodyOnceAndReceipts() {
+        // Given
+        ReflectionTestUtils.setField(notificationService, "storageMode", NotificationStorageMode.SHARED_BODY);
+        notification.setRelatedEvent("event-1");
+        when(elasticsearchOperations.withRefreshPolicy(RefreshPolicy.WAIT_UNTIL)).thenReturn(elasticsearchOperations);
+        when(modelMapper.map(notificationDto, Notification.class)).thenReturn(notification);
+        List<Notification> receipts = renderStoredNotifications();
+
+        // When
+        notificationService.storeNotifications(notificationDto, List.of(
+                new NotificationRecipient("1", "user1", "User One"),
+                new NotificationRecipient("2", "SUPER_ADMIN", "SUPER_ADMIN")));
+
+        // Then
+        ArgumentCaptor<IndexQuery> bodyQuery = ArgumentCaptor.forClass(IndexQuery.class);
+        verify(elasticsearchOperations, times(1)).index(bodyQuery.capture(), eq(IndexCoordinates.of("notification-bodies")));
+        NotificationBody body = (NotificationBody) bodyQuery.getValue().getObject();
+        assertEquals(IndexQuery.OpType.CREATE, bodyQuery.getValue().getOpType());
+        assertEquals(DeterministicIdUtils.notificationBodyId("event-1"), body.getId());
+        assertEquals("Test Notification", body.getDescription());
+
+        assertEquals(2, receipts.size());
+        receipts.forEach(receipt -> {
+            assertEquals(body.getId(), receipt.getBody());
+            assertNull(receipt.getDescription());
+        });
+    }
+
+    @DisplayName("Store Notifications: Shared body of a re-delivered event is left untouched")
+    @Test
+    void givenStoredSharedBody_whenStoreNotificationsAgain_thenKeepBodyAndStoreReceipts() {
+        // Given
+        ReflectionTestUtils.setField(notificationService, "storageMode", NotificationStorageMode.SHARED_BODY);
+        notification.setRelatedEvent("event-1");
+        when(elasticsearchOperations.withRefreshPolicy(RefreshPolicy.WAIT_UNTIL)).thenReturn(elasticsearchOperations);
+        when(modelMapper.map(notificationDto, Notification.class)).thenReturn(notification);
+        when(elasticsearchOperations.index(any(IndexQuery.class), eq(IndexCoordinates.of("notification-bodies"))))
+                .thenThrow(new VersionConflictException("Version conflict"));
+        List<Notification> receipts = renderStoredNotifications();
+
+        // When
+        List<String> result = notificationService.storeNotifications(notificationDto, List.of(new NotificationRecipient("1", "user1", "User One")));
+
+        // Then
+        assertEquals(List.of("1"), result);
+        assertEquals(DeterministicIdUtils.notificationBodyId("event-1"), receipts.getFirst().getBody());
+        verify(notificationBodyRepository, never()).save(any(NotificationBody.class));
+    }
+
+    @DisplayName("Retrieve Notifications per User: Receipts are joined with their shared bodies")
+    @Test
+    void givenReceipts_whenRetrieveAllNotificationsPerUserId_thenJoinSharedBodies() {
+        // Given
+        Notification receipt = new Notification();
+        receipt.setId("1");
+        receipt.setUserId("user1");
+        receipt.setBody("body-1");
+        NotificationBody body = new NotificationBody();
+        body.setId("body-1");
+        body.setDescription("Shared Description");
+        body.setPriority("HIGH");
+        when(notificationRepository.findByUserId("user1", Pageable.unpaged())).thenReturn(new PageImpl<>(List.of(receipt, notification)));
+        when(notificationBodyRepository.findAllById(Set.of("body-1"))).thenReturn(List.of(body));
+        when(modelMapper.map(any(Notification.class), eq(NotificationDto.class))).thenReturn(notificationDto);
+
+        // When
+        notificationService.retrieveAllNotificationsPerUserId("user1", Pageable.unpaged());
+
+        // Then
+        assertEquals("Shared Description", receipt.getDescription());
+        assertEquals("HIGH", receipt.getPriority());
+        assertEquals("Test Notification", notification.getDescription());
+        verify(notificationBodyRepository, times(1)).findAllById(Set.of("body-1"));
+    }
+
     @DisplayName("Retrieve All Notifications: Success")
     @Test
     void whenRetrieveAllNotifications_thenReturnListOfNotificationDtos() {
@@ -275,40 +438,41 @@ class NotificationServiceTests {
         assertEquals("Notification with id: invalid not found in DB", exception.getMessage());
     }
 
-    @DisplayName("Update Notification Status by ID: Success")
+    @DisplayName("Update Notification Status by ID: Success without reading the notification")
     @Test
     void givenValidNotificationId_whenUpdateNotificationStatus_thenReturnSuccess() {
         // Given
-        when(notificationRepository.findById(anyString())).thenReturn(Optional.of(notification));
+        when(notificationRepository.existsById("1")).thenReturn(true);
 
         // When
         notificationService.updateNotificationStatusToRead("1");
 
         // Then
-        verify(notificationRepository, times(1)).save(notification);
+        verify(readStatusBuffer, times(1)).markRead("1");
+        verify(notificationRepository, never()).findById(anyString());
+        verify(notificationRepository, never()).save(any());
     }
 
     @DisplayName("Update Notification Status by ID: Not Found")
     @Test
     void givenInvalidNotificationId_whenUpdateNotificationStatus_thenThrowDataNotFoundException() {
         // Given
-        when(notificationRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(notificationRepository.existsById("invalid")).thenReturn(false);
 
         // When - Then
         DataNotFoundException exception = assertThrows(DataNotFoundException.class, () -> {
-            notificationService.retrieveNotificationById("invalid");
+            notificationService.updateNotificationStatusToRead("invalid");
         });
 
         assertEquals("Notification with id: invalid not found in DB", exception.getMessage());
+        verify(readStatusBuffer, never()).markRead(anyString());
     }
 
-    @SuppressWarnings("unchecked")
     @DisplayName("Retrieve Component JWT Token: Failure")
     @Test
     void givenMockToken_whenRetrieveComponentJwtTokenFails_thenReturnNull() {
         // Given
-        lenient().when(restTemplate.exchange(eq(TOKEN_URL), eq(HttpMethod.POST), any(HttpEntity.class),
-            any(ParameterizedTypeReference.class))).thenThrow(RestClientException.class);
+        when(componentTokenManager.getToken()).thenReturn(null);
 
         // When
         String result = notificationService.retrieveComponentJwtToken();
@@ -317,6 +481,32 @@ class NotificationServiceTests {
         assertNull(result);
     }
 
+    @DisplayName("Retrieve User IDs per Roles: Users of all roles from the User Directory")
+    @Test
+    void givenRoles_whenRetrieveUserIdsPerRoles_thenReturnUsersFromDirectory() {
+        // Given
+        when(userDirectoryCache.getUserIdsPerRoles(List.of("OPERATOR", "TECHNICIAN"))).thenReturn(List.of("user1", "user2", "user3"));
+
+        // When
+        List<String> result = notificationService.retrieveUserIdsPerRoles(List.of("OPERATOR", "TECHNICIAN"));
+
+        // Then
+        assertEquals(List.of("user1", "user2", "user3"), result);
+    }
+
+    @DisplayName("Retrieve User Full Name: From the User Directory")
+    @Test
+    void givenUserId_whenRetrieveUserFullName_thenReturnNameFromDirectory() {
+        // Given
+        when(userDirectoryCache.getUserFullName("user1")).thenReturn("Test User");
+
+        // When
+        String result = notificationService.retrieveUserFullName("user1");
+
+        // Then
+        assertEquals("Test User", result);
+    }
+
     @DisplayName("Delete Notification By ID: Success")
     @Test
     void givenExistingNotificationId_whenDeleteNotificationById_thenNotificationIsDeleted() {
@@ -328,6 +518,38 @@ class NotificationServiceTests {
 
         // Then
         verify(notificationRepository, times(1)).delete(notification);
+        verify(unreadCounterService, times(1)).adjust("user1", -1);
+    }
+
+    @DisplayName("Delete Notification By ID: The pending read mark is discarded before the unread notification is counted")
+    @Test
+    void givenPendingReadMark_whenDeleteNotificationById_thenDiscardMarkAndDecreaseUnreadCounter() {
+        // Given
+        when(notificationRepository.findById(anyString())).thenReturn(Optional.of(notification));
+
+        // When
+        notificationService.deleteNotificationById("1");
+
+        // Then
+        InOrder deletion = inOrder(readStatusBuffer, notificationRepository);
+        deletion.verify(readStatusBuffer).discard("1");
+        deletion.verify(notificationRepository).findById("1");
+        verify(notificationRepository, times(1)).delete(notification);
+        verify(unreadCounterService, times(1)).adjust("user1", -1);
+    }
+
+    @DisplayName("Retrieve Unread Notification Count: Served from the unread counters")
+    @Test
+    void givenUserId_whenRetrieveUnreadNotificationCount_thenReturnCounter() {
+        // Given
+        when(unreadCounterService.getUnreadCount("user1")).thenReturn(5L);
+
+        // When
+        long result = notificationService.retrieveUnreadNotificationCount("user1");
+
+        // Then
+        assertEquals(5, result);
+        verify(notificationRepository, never()).findByUserIdAndNotificationStatus(anyString(), anyString(), any());
     }
 
     @DisplayName("Delete Notification by ID: Not Found")
@@ -389,4 +611,58 @@ class NotificationServiceTests {
         assertEquals(1, result.getTotalElements());
         assertEquals(notificationDto, result.getContent().getFirst());
     }
+
+    @DisplayName("Increment Notification Occurrences: Partial update of related notifications")
+    @Test
+    void givenRelatedEvent_whenIncrementNotificationOccurrences_thenReturnUpdatedNotifications() {
+        // Given
+        when(elasticsearchOperations.updateByQuery(any(UpdateQuery.class), any(IndexCoordinates.class)))
+                .thenReturn(ByQueryResponse.builder().withUpdated(3).build());
+
+        // When
+        long updated = notificationService.incrementNotificationOccurrences("event-1", 5);
+
+        // Then
+        assertEquals(3, updated);
+        verify(elasticsearchOperations).updateByQuery(any(UpdateQuery.class), eq(IndexCoordinates.of("notifications")));
+    }
+
+    @DisplayName("Mark All Notifications As Read: Sliced update by query scoped by user, type and module")
+    @Test
+    void givenUserTypeAndModule_whenMarkAllNotificationsAsRead_thenReturnUpdatedNotifications() {
+        // Given
+        when(elasticsearchOperations.updateByQuery(any(UpdateQuery.class), any(IndexCoordinates.class)))
+                .thenReturn(ByQueryResponse.builder().withUpdated(12).build());
+
+        // When
+        long updated = notificationService.markAllNotificationsAsRead("user-1", "EVENT", "module-1");
+
+        // Then
+        assertEquals(12, updated);
+        verify(unreadCounterService, times(1)).adjust("user-1", -12);
+        ArgumentCaptor<UpdateQuery> updateQuery = ArgumentCaptor.forClass(UpdateQuery.class);
+        verify(elasticsearchOperations).updateByQuery(updateQuery.capture(), eq(IndexCoordinates.of("notifications")));
+        assertEquals(2, updateQuery.getValue().getSlices());
+        assertEquals(false, updateQuery.getValue().getAbortOnVersionConflict());
+        assertEquals(NotificationStatus.READ.toString(), updateQuery.getValue().getParams().get("status"));
+        String query = ((NativeQuery) updateQuery.getValue().getQuery()).getQuery().toString();
+        assertTrue(query.contains("user-1") && query.contains(NotificationStatus.UNREAD.toString()) && query.contains("EVENT") && query.contains("module-1"));
+    }
+
+    @DisplayName("Mark All Notifications As Read: Without scope only the user and status are filtered")
+    @Test
+    void givenOnlyUser_whenMarkAllNotificationsAsRead_thenFilterByUserAndStatus() {
+        // Given
+        when(elasticsearchOperations.updateByQuery(any(UpdateQuery.class), any(IndexCoordinates.class)))
+                .thenReturn(ByQueryResponse.builder().withUpdated(0).build());
+
+        // When
+        notificationService.markAllNotificationsAsRead("user-1", null, null);
+
+        // Then
+        ArgumentCaptor<UpdateQuery> updateQuery = ArgumentCaptor.forClass(UpdateQuery.class);
+        verify(elasticsearchOperations).updateByQuery(updateQuery.capture(), eq(IndexCoordinates.of("notifications")));
+        String query = ((NativeQuery) updateQuery.getValue().getQuery()).getQuery().toString();
+        assertFalse(query.contains("notificationType") || query.contains("\"module\""));
+    }
 }
@@ -0,0 +1,207 @@
+package gr.atc.modapto.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.BulkFailureException;
+
+import co.elastic.clients.json.JsonData;
+import gr.atc.modapto.enums.NotificationStatus;
+import gr.atc.modapto.model.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ReadStatusBufferTests {
+
+    @Mock
+    private ElasticsearchAsyncWriter asyncWriter;
+
+    @Mock
+    private UnreadCounterService unreadCounterService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReadStatusBuffer readStatusBuffer;
+
+    @BeforeEach
+    void setup() {
+        readStatusBuffer = new ReadStatusBuffer(asyncWriter, unreadCounterService, meterRegistry, 3);
+    }
+
+    private static Notification unreadNotification(String id) {
+        Notification notification = new Notification();
+        notification.setId(id);
+        notification.setNotificationStatus(NotificationStatus.UNREAD.toString());
+        return notification;
+    }
+
+    private static CompletableFuture<ElasticsearchAsyncWriter.ScriptedUpdateResult> flushResult(Map<String, BulkFailureException.FailureDetails> failures,
+                                                                                               Map<String, Map<String, JsonData>> changedDocuments) {
+        return CompletableFuture.completedFuture(new ElasticsearchAsyncWriter.ScriptedUpdateResult(failures, changedDocuments));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, JsonData>> captureFlushedMarks() {
+        ArgumentCaptor<Map<String, Map<String, JsonData>>> paramsPerId = ArgumentCaptor.forClass(Map.class);
+        verify(asyncWriter).bulkScriptedUpdate(eq("notifications"), paramsPerId.capture(), anyString(), eq(List.of("userId")));
+        return paramsPerId.getValue();
+    }
+
+    @DisplayName("Flush: Repeated marks of a notification are coalesced into a single partial update")
+    @Test
+    void givenRepeatedMarks_whenFlush_thenSendOnePartialUpdatePerNotification() {
+        // Given
+        when(asyncWriter.bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList())).thenReturn(flushResult(Map.of(), Map.of()));
+        readStatusBuffer.markRead("1");
+        readStatusBuffer.markRead("1");
+        readStatusBuffer.markRead("2");
+
+        // When
+        readStatusBuffer.flush().join();
+
+        // Then
+        Map<String, Map<String, JsonData>> marks = captureFlushedMarks();
+        assertEquals(List.of("1", "2"), marks.keySet().stream().sorted().toList());
+        assertTrue(marks.values().stream().allMatch(params -> NotificationStatus.READ.toString().equals(params.get("status").to(String.class)) && params.containsKey("readAt")));
+        assertEquals(1, meterRegistry.get("modapto.notifications.read-buffer.coalesced").counter().count());
+        assertEquals(2, meterRegistry.get("modapto.notifications.read-buffer.flushed").counter().count());
+        assertFalse(readStatusBuffer.isPending("1"));
+    }
+
+    @DisplayName("Apply Pending Reads: Marks are visible to reads until their flush completes")
+    @Test
+    void givenFlushInFlight_whenApplyPendingReads_thenNotificationIsRead() {
+        // Given
+        CompletableFuture<ElasticsearchAsyncWriter.ScriptedUpdateResult> response = new CompletableFuture<>();
+        when(asyncWriter.bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList())).thenReturn(response);
+        readStatusBuffer.markRead("1");
+        CompletableFuture<Void> flush = readStatusBuffer.flush();
+
+        // When
+        Notification notification = readStatusBuffer.applyPendingReads(List.of(unreadNotification("1"))).getFirst();
+
+        // Then
+        assertEquals(NotificationStatus.READ.toString(), notification.getNotificationStatus());
+        assertNotNull(notification.getReadAt());
+        response.complete(new ElasticsearchAsyncWriter.ScriptedUpdateResult(Map.of(), Map.of()));
+        flush.join();
+        assertEquals(NotificationStatus.UNREAD.toString(), readStatusBuffer.applyPendingReads(List.of(unreadNotification("1"))).getFirst().getNotificationStatus());
+    }
+
+    @DisplayName("Flush: Marks rejected with a transient status are kept for the next flush, permanent rejections are dropped")
+    @Test
+    void givenRejectedMarks_whenFlush_thenKeepOnlyTransientFailures() {
+        // Given
+        when(asyncWriter.bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList())).thenReturn(flushResult(Map.of(
+                "1", new BulkFailureException.FailureDetails(429, "es_rejected_execution_exception"),
+                "2", new BulkFailureException.FailureDetails(404, "document_missing_exception")), Map.of()));
+        readStatusBuffer.markRead("1");
+        readStatusBuffer.markRead("2");
+
+        // When
+        readStatusBuffer.flush().join();
+
+        // Then
+        assertTrue(readStatusBuffer.isPending("1"));
+        assertFalse(readStatusBuffer.isPending("2"));
+        verify(unreadCounterService, never()).adjust(anyString(), anyLong());
+    }
+
+    @DisplayName("Flush: Unread counters are decreased only for notifications changed from unread to read")
+    @Test
+    void givenChangedAndAlreadyReadNotifications_whenFlush_thenDecreaseUnreadCountersPerUser() {
+        // Given - Notification 3 was already read, so the script left it unchanged
+        when(asyncWriter.bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList())).thenReturn(flushResult(Map.of(), Map.of(
+                "1", Map.of("userId", JsonData.of("user-1")),
+                "2", Map.of("userId", JsonData.of("user-1")))));
+        readStatusBuffer.markRead("1");
+        readStatusBuffer.markRead("2");
+
+        // When
+        readStatusBuffer.markRead("3");
+        readStatusBuffer.flush().join();
+
+        // Then
+        verify(unreadCounterService, times(1)).adjust("user-1", -2L);
+        verify(unreadCounterService, times(1)).adjust(anyString(), anyLong());
+    }
+
+    @DisplayName("Discard: The pending mark of a deleted notification is never flushed")
+    @Test
+    void givenPendingMark_whenDiscard_thenSkipFlush() {
+        // Given
+        readStatusBuffer.markRead("1");
+
+        // When
+        readStatusBuffer.discard("1");
+        readStatusBuffer.flush().join();
+
+        // Then
+        assertFalse(readStatusBuffer.isPending("1"));
+        verify(asyncWriter, never()).bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList());
+        verify(unreadCounterService, never()).adjust(anyString(), anyLong());
+    }
+
+    @DisplayName("Discard: A mark of the flush in flight is awaited before the notification is deleted")
+    @Test
+    void givenMarkInFlight_whenDiscard_thenWaitForFlush() {
+        // Given
+        CompletableFuture<ElasticsearchAsyncWriter.ScriptedUpdateResult> response = new CompletableFuture<>();
+        when(asyncWriter.bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList())).thenReturn(response);
+        readStatusBuffer.markRead("1");
+        readStatusBuffer.flush();
+
+        // When
+        CompletableFuture<Void> discarded = CompletableFuture.runAsync(() -> readStatusBuffer.discard("1"));
+
+        // Then
+        assertThrows(TimeoutException.class, () -> discarded.get(200, TimeUnit.MILLISECONDS));
+        response.complete(new ElasticsearchAsyncWriter.ScriptedUpdateResult(Map.of(), Map.of("1", Map.of("userId", JsonData.of("user-1")))));
+        assertDoesNotThrow(() -> discarded.get(2, TimeUnit.SECONDS));
+        assertFalse(readStatusBuffer.isPending("1"));
+        verify(unreadCounterService, times(1)).adjust("user-1", -1L);
+    }
+
+    @DisplayName("Mark Read: A full buffer is flushed without waiting for the window")
+    @Test
+    void givenBufferFull_whenMarkRead_thenFlushImmediately() {
+        // Given
+        when(asyncWriter.bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList())).thenReturn(flushResult(Map.of(), Map.of()));
+
+        // When
+        readStatusBuffer.markRead("1");
+        readStatusBuffer.markRead("2");
+        verify(asyncWriter, never()).bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList());
+        readStatusBuffer.markRead("3");
+
+        // Then
+        verify(asyncWriter, times(1)).bulkScriptedUpdate(eq("notifications"), anyMap(), anyString(), anyList());
+        assertEquals(3, captureFlushedMarks().size());
+    }
+}
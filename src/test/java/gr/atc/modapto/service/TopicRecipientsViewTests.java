@@ -0,0 +1,117 @@
+package gr.atc.modapto.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import gr.atc.modapto.events.EventMappingsChangedEvent;
+import gr.atc.modapto.pipeline.NotificationPipeline;
+import gr.atc.modapto.service.TopicRecipientsView.TopicRecipients;
+import gr.atc.modapto.service.interfaces.IEventService;
+import gr.atc.modapto.service.interfaces.INotificationService;
+
+@ExtendWith(MockitoExtension.class)
+class TopicRecipientsViewTests {
+
+    @Mock
+    private IEventService eventService;
+
+    @Mock
+    private INotificationService notificationService;
+
+    @Mock
+    private NotificationPipeline notificationPipeline;
+
+    @InjectMocks
+    private TopicRecipientsView topicRecipientsView;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(topicRecipientsView, "pilot", "test");
+    }
+
+    @DisplayName("Get Recipients: Computed once and served from the view afterwards")
+    @Test
+    void givenMappedTopic_whenGetRecipientsTwice_thenResolveRecipientsOnce() {
+        // Given
+        when(eventService.retrieveUserRolesPerTopic("topic1")).thenReturn(List.of("OPERATOR"));
+        when(notificationService.retrieveUserIdsPerRoles(List.of("OPERATOR"))).thenReturn(List.of("user1", "user2"));
+
+        // When
+        topicRecipientsView.getRecipients("topic1");
+        TopicRecipients result = topicRecipientsView.getRecipients("topic1");
+
+        // Then
+        assertEquals(List.of("OPERATOR"), result.userRoles());
+        assertEquals(List.of("SUPER_ADMIN", "user1", "user2"), result.userIds());
+        verify(eventService, times(1)).retrieveUserRolesPerTopic("topic1");
+        verify(notificationService, times(1)).retrieveUserIdsPerRoles(anyList());
+    }
+
+    @DisplayName("Get Recipients: Recomputed once the Event Mapping of the topic changes")
+    @Test
+    void givenChangedEventMapping_whenGetRecipients_thenRecomputeRecipients() {
+        // Given
+        when(eventService.retrieveUserRolesPerTopic("topic1")).thenReturn(List.of("OPERATOR"), List.of("ALL"));
+        when(notificationService.retrieveUserIdsPerRoles(List.of("OPERATOR"))).thenReturn(List.of("user1"));
+        when(notificationService.retrieveUserIdsPerPilot("TEST")).thenReturn(List.of("user1", "user2"));
+        topicRecipientsView.getRecipients("topic1");
+
+        // When
+        topicRecipientsView.onEventMappingsChanged(new EventMappingsChangedEvent(this, "topic1"));
+        TopicRecipients result = topicRecipientsView.getRecipients("topic1");
+
+        // Then
+        assertEquals(List.of("ALL"), result.userRoles());
+        assertEquals(List.of("SUPER_ADMIN", "user1", "user2"), result.userIds());
+    }
+
+    @DisplayName("Get Recipients: Topic without mappings requests a default mapping and informs all pilot users")
+    @Test
+    void givenUnmappedTopic_whenGetRecipients_thenRequestMappingOnce() {
+        // Given
+        when(eventService.retrieveUserRolesPerTopic("topic1")).thenReturn(List.of());
+        when(notificationService.retrieveUserIdsPerPilot("TEST")).thenReturn(List.of("user1"));
+
+        // When
+        topicRecipientsView.getRecipients("topic1");
+        TopicRecipients result = topicRecipientsView.getRecipients("topic1");
+
+        // Then
+        assertEquals(List.of("SUPER_ADMIN", "user1"), result.userIds());
+        verify(notificationPipeline, times(1)).submitDefaultMappingCreation("topic1");
+    }
+
+    @DisplayName("Get Recipients: Failures are not kept in the view")
+    @Test
+    void givenFailedComputation_whenGetRecipientsAgain_thenRecompute() {
+        // Given
+        when(eventService.retrieveUserRolesPerTopic("topic1"))
+                .thenThrow(new IllegalStateException("Elasticsearch unavailable"))
+                .thenReturn(List.of("OPERATOR"));
+        when(notificationService.retrieveUserIdsPerRoles(List.of("OPERATOR"))).thenReturn(List.of("user1"));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> topicRecipientsView.getRecipients("topic1"));
+        TopicRecipients result = topicRecipientsView.getRecipients("topic1");
+
+        // Then
+        assertEquals(List.of("SUPER_ADMIN", "user1"), result.userIds());
+        verify(notificationPipeline, never()).submitDefaultMappingCreation("topic1");
+    }
+}
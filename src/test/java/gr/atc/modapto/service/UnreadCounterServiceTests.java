@@ -0,0 +1,201 @@
+package gr.atc.modapto.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.Query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import gr.atc.modapto.dto.UnreadCountDto;
+import gr.atc.modapto.model.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadCounterServiceTests {
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private WebSocketService webSocketService;
+
+    @Mock
+    private SearchHits<Notification> searchHits;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UnreadCounterService unreadCounterService;
+
+    @BeforeEach
+    void setup() {
+        unreadCounterService = new UnreadCounterService(elasticsearchOperations, webSocketService, objectMapper, new SimpleMeterRegistry(), Runnable::run);
+    }
+
+    /*
+     * Helper method to return the unread notifications per user as a single page of the composite aggregation
+     */
+    private void givenUnreadPerUser(Map<String, Long> countsPerUser) {
+        List<CompositeBucket> buckets = countsPerUser.entrySet().stream()
+                .map(entry -> CompositeBucket.of(b -> b.key(Map.of("userId", FieldValue.of(entry.getKey()))).docCount(entry.getValue())))
+                .toList();
+        Aggregate aggregate = Aggregate.of(a -> a.composite(c -> c.buckets(b -> b.array(buckets))));
+        doReturn(new ElasticsearchAggregations(Map.of("unreadPerUser", aggregate))).when(searchHits).getAggregations();
+        when(elasticsearchOperations.search(any(Query.class), eq(Notification.class))).thenReturn(searchHits);
+    }
+
+    private UnreadCountDto capturePublishedChange(String userId) throws Exception {
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(webSocketService).notifyUsersAndRolesViaWebSocket(message.capture(), eq(userId));
+        return objectMapper.readValue(message.getValue(), UnreadCountDto.class);
+    }
+
+    @DisplayName("Rebuild: Counters are loaded from the aggregation and served without further queries")
+    @Test
+    void givenUnreadNotifications_whenRebuild_thenServeCountsFromMemory() {
+        // Given
+        givenUnreadPerUser(Map.of("user-1", 4L, "user-2", 1L));
+
+        // When
+        unreadCounterService.rebuild();
+
+        // Then
+        assertEquals(4, unreadCounterService.getUnreadCount("user-1"));
+        assertEquals(1, unreadCounterService.getUnreadCount("user-2"));
+        assertEquals(0, unreadCounterService.getUnreadCount("user-3"));
+        verify(elasticsearchOperations, never()).count(any(Query.class), eq(Notification.class));
+    }
+
+    @DisplayName("Adjust: Changes are applied incrementally and pushed as deltas on the topic of the user")
+    @Test
+    void givenRebuiltCounters_whenAdjust_thenUpdateCountAndPublishDelta() throws Exception {
+        // Given
+        givenUnreadPerUser(Map.of("user-1", 4L));
+        unreadCounterService.rebuild();
+
+        // When
+        unreadCounterService.adjust("user-1", -3);
+
+        // Then
+        assertEquals(1, unreadCounterService.getUnreadCount("user-1"));
+        UnreadCountDto change = capturePublishedChange("user-1");
+        assertEquals(UnreadCountDto.UNREAD_COUNT_CHANGED, change.getType());
+        assertEquals(-3L, change.getDelta());
+        assertEquals(1L, change.getUnreadCount());
+    }
+
+    @DisplayName("Get Unread Count: Users are counted on demand without caching until the counters are rebuilt")
+    @Test
+    void givenCountersNotRebuilt_whenGetUnreadCount_thenCountInDbEveryTime() {
+        // Given - The notification of the adjustment is stored before the second count
+        when(elasticsearchOperations.count(any(Query.class), eq(Notification.class))).thenReturn(7L, 8L);
+
+        // When
+        long first = unreadCounterService.getUnreadCount("user-1");
+        unreadCounterService.adjust("user-1", 1);
+        long second = unreadCounterService.getUnreadCount("user-1");
+
+        // Then
+        assertEquals(7, first);
+        assertEquals(8, second);
+        verify(elasticsearchOperations, times(2)).count(any(Query.class), eq(Notification.class));
+    }
+
+    @DisplayName("Adjust: The stored counter never drops below zero")
+    @Test
+    void givenDecreaseBeyondCount_whenAdjust_thenClampStoredCounter() throws Exception {
+        // Given
+        givenUnreadPerUser(Map.of("user-1", 1L));
+        unreadCounterService.rebuild();
+
+        // When - E.g. a mark-all-read racing with buffered marks
+        unreadCounterService.adjust("user-1", -3);
+
+        // Then
+        assertEquals(0, unreadCounterService.getUnreadCount("user-1"));
+        assertEquals(0L, capturePublishedChange("user-1").getUnreadCount());
+    }
+
+    @DisplayName("Adjust: Users without counter before the rebuild are only notified of the delta")
+    @Test
+    void givenUnknownUserBeforeRebuild_whenAdjust_thenPublishDeltaWithoutCount() throws Exception {
+        // When
+        unreadCounterService.adjust("user-1", 1);
+
+        // Then
+        UnreadCountDto change = capturePublishedChange("user-1");
+        assertEquals(1L, change.getDelta());
+        assertNull(change.getUnreadCount());
+        verify(elasticsearchOperations, never()).count(any(Query.class), eq(Notification.class));
+    }
+
+    @DisplayName("Adjust All: One change is pushed per user with a non-zero delta")
+    @Test
+    void givenDeltasPerUser_whenAdjustAll_thenPublishOneChangePerUser() throws Exception {
+        // Given
+        givenUnreadPerUser(Map.of("user-1", 4L));
+        unreadCounterService.rebuild();
+
+        // When
+        unreadCounterService.adjustAll(Map.of("user-1", 3L, "user-2", 1L, "user-3", 0L));
+
+        // Then
+        assertEquals(7, unreadCounterService.getUnreadCount("user-1"));
+        assertEquals(1, unreadCounterService.getUnreadCount("user-2"));
+        assertEquals(3L, capturePublishedChange("user-1").getDelta());
+        assertEquals(1L, capturePublishedChange("user-2").getUnreadCount());
+        verify(webSocketService, times(2)).notifyUsersAndRolesViaWebSocket(anyString(), anyString());
+    }
+
+    @DisplayName("Adjust: Changes are pushed on the push executor and not on the calling thread")
+    @Test
+    void givenPushExecutor_whenAdjust_thenPublishOnExecutor() {
+        // Given
+        List<Runnable> pushes = new ArrayList<>();
+        unreadCounterService = new UnreadCounterService(elasticsearchOperations, webSocketService, objectMapper, new SimpleMeterRegistry(), pushes::add);
+
+        // When
+        unreadCounterService.adjust("user-1", 1);
+
+        // Then
+        verify(webSocketService, never()).notifyUsersAndRolesViaWebSocket(anyString(), anyString());
+        assertEquals(1, pushes.size());
+        pushes.getFirst().run();
+        verify(webSocketService, times(1)).notifyUsersAndRolesViaWebSocket(anyString(), eq("user-1"));
+    }
+
+    @DisplayName("Adjust: No change is published for a zero delta")
+    @Test
+    void givenZeroDelta_whenAdjust_thenPublishNothing() {
+        // When
+        unreadCounterService.adjust("user-1", 0);
+
+        // Then
+        verify(webSocketService, never()).notifyUsersAndRolesViaWebSocket(anyString(), anyString());
+    }
+}
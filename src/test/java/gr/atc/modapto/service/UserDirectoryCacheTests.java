@@ -0,0 +1,235 @@
+package gr.atc.modapto.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClientException;
+
+import gr.atc.modapto.dto.EventMappingsDto;
+import gr.atc.modapto.events.UserDirectoryChangedEvent;
+import gr.atc.modapto.service.interfaces.IEventService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class UserDirectoryCacheTests {
+
+    @Mock
+    private UserManagerClient userManagerClient;
+
+    @Mock
+    private IEventService eventService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    private final Queue<Runnable> pendingRefreshes = new ArrayDeque<>();
+
+    private UserDirectoryCache userDirectoryCache;
+
+    @BeforeEach
+    void setup() {
+        // Background refreshes are queued and run explicitly by the tests
+        userDirectoryCache = new UserDirectoryCache(userManagerClient, new UserIdRegistry(), eventService, meterRegistry, eventPublisher,
+                Duration.ofMinutes(10), Duration.ofMinutes(1), 100, ticker::get, pendingRefreshes::add);
+        ReflectionTestUtils.setField(userDirectoryCache, "pilot", "test");
+    }
+
+    private void advance(Duration duration) {
+        ticker.addAndGet(duration.toNanos());
+    }
+
+    private void runPendingRefreshes() {
+        while (!pendingRefreshes.isEmpty())
+            pendingRefreshes.poll().run();
+    }
+
+    @DisplayName("Get User IDs per Role: Cached after the first lookup")
+    @Test
+    void givenCachedRole_whenGetUserIdsPerRole_thenUserManagerIsCalledOnce() {
+        // Given
+        when(userManagerClient.retrieveUserIdsPerRole("OPERATOR")).thenReturn(List.of("user1", "user2"));
+
+        // When
+        userDirectoryCache.getUserIdsPerRole("OPERATOR");
+        runPendingRefreshes();
+        List<String> result = userDirectoryCache.getUserIdsPerRole("OPERATOR");
+
+        // Then
+        assertEquals(List.of("user1", "user2"), result);
+        verify(userManagerClient, times(1)).retrieveUserIdsPerRole("OPERATOR");
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "user-directory-roles").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "user-directory-roles").tag("result", "miss").functionCounter().count());
+    }
+
+    @DisplayName("Get User IDs per Role: Stale entry is served and reloaded in the background")
+    @Test
+    void givenStaleEntry_whenGetUserIdsPerRole_thenServeStaleAndRefresh() {
+        // Given
+        when(userManagerClient.retrieveUserIdsPerRole("OPERATOR")).thenReturn(List.of("user1"), List.of("user1", "user2"));
+        userDirectoryCache.getUserIdsPerRole("OPERATOR");
+        advance(Duration.ofMinutes(2));
+
+        // When
+        List<String> stale = userDirectoryCache.getUserIdsPerRole("OPERATOR");
+        runPendingRefreshes();
+        List<String> refreshed = userDirectoryCache.getUserIdsPerRole("OPERATOR");
+
+        // Then
+        assertEquals(List.of("user1"), stale);
+        assertEquals(List.of("user1", "user2"), refreshed);
+        verify(userManagerClient, times(2)).retrieveUserIdsPerRole("OPERATOR");
+    }
+
+    @DisplayName("Get User IDs per Role: Failed refresh keeps serving the cached entry")
+    @Test
+    void givenFailedRefresh_whenGetUserIdsPerRole_thenKeepCachedEntry() {
+        // Given
+        when(userManagerClient.retrieveUserIdsPerRole("OPERATOR"))
+                .thenReturn(List.of("user1"))
+                .thenThrow(new RestClientException("User Manager unavailable"));
+        userDirectoryCache.getUserIdsPerRole("OPERATOR");
+        advance(Duration.ofMinutes(2));
+
+        // When
+        userDirectoryCache.getUserIdsPerRole("OPERATOR");
+        runPendingRefreshes();
+        List<String> result = userDirectoryCache.getUserIdsPerRole("OPERATOR");
+
+        // Then
+        assertEquals(List.of("user1"), result);
+    }
+
+    @DisplayName("Get User Full Name: Failure is not cached")
+    @Test
+    void givenUserManagerFailure_whenGetUserFullName_thenReturnNullAndRetryLater() {
+        // Given
+        when(userManagerClient.retrieveUserFullName("user1"))
+                .thenThrow(new RestClientException("User Manager unavailable"))
+                .thenReturn(Optional.of("Test User"));
+
+        // When
+        String failed = userDirectoryCache.getUserFullName("user1");
+        String retried = userDirectoryCache.getUserFullName("user1");
+
+        // Then
+        assertNull(failed);
+        assertEquals("Test User", retried);
+    }
+
+    @DisplayName("Warm Up: Pilot users, mapped role users and their names are loaded")
+    @Test
+    void givenEventMappings_whenWarmUp_thenLoadDirectory() {
+        // Given
+        when(userManagerClient.retrieveUserIdsPerPilot("TEST")).thenReturn(List.of("user1"));
+        when(eventService.retrieveAllEventMappings()).thenReturn(List.of(
+                EventMappingsDto.builder().topic("topic1").userRoles(List.of("OPERATOR", "ALL")).build()));
+        when(userManagerClient.retrieveUserIdsPerRoles(Set.of("OPERATOR"))).thenReturn(Map.of("OPERATOR", List.of("user1", "user2")));
+        when(userManagerClient.retrieveUserFullNames(Set.of("user1", "user2")))
+                .thenReturn(Map.of("user1", Optional.of("User One"), "user2", Optional.of("User Two")));
+
+        // When
+        userDirectoryCache.warmUp();
+
+        // Then - Subsequent lookups are served from the directory
+        assertEquals("User Two", userDirectoryCache.getUserFullName("user2"));
+        assertEquals(List.of("user1", "user2"), userDirectoryCache.getUserIdsPerRole("OPERATOR"));
+        verify(userManagerClient, never()).retrieveUserFullName("user2");
+        verify(userManagerClient, never()).retrieveUserIdsPerRole("OPERATOR");
+    }
+
+    @DisplayName("Get User Full Names: Only names missing from the directory are resolved, in one call")
+    @Test
+    void givenPartiallyCachedNames_whenGetUserFullNames_thenResolveMissingNamesTogether() {
+        // Given
+        when(userManagerClient.retrieveUserFullName("user1")).thenReturn(Optional.of("User One"));
+        when(userManagerClient.retrieveUserFullNames(Set.of("user2", "user3")))
+                .thenReturn(Map.of("user2", Optional.of("User Two"), "user3", Optional.empty()));
+        userDirectoryCache.getUserFullName("user1");
+
+        // When
+        Map<String, String> result = userDirectoryCache.getUserFullNames(List.of("user1", "user2", "user3"));
+
+        // Then
+        assertEquals(Map.of("user1", "User One", "user2", "User Two"), result);
+        verify(userManagerClient, times(1)).retrieveUserFullNames(Set.of("user2", "user3"));
+    }
+
+    @DisplayName("Get User IDs per Pilot: Last known users are served while the User Manager is unavailable")
+    @Test
+    void givenExpiredEntryAndUnavailableUserManager_whenGetUserIdsPerPilot_thenServeLastKnownUsers() {
+        // Given
+        when(userManagerClient.retrieveUserIdsPerPilot("TEST"))
+                .thenReturn(List.of("user1", "user2"))
+                .thenThrow(new RestClientException("User Manager requests are suspended - Circuit breaker is OPEN"));
+        userDirectoryCache.getUserIdsPerPilot("TEST");
+        advance(Duration.ofMinutes(11));
+
+        // When
+        List<String> result = userDirectoryCache.getUserIdsPerPilot("TEST");
+
+        // Then
+        assertEquals(List.of("user1", "user2"), result);
+        verify(userManagerClient, times(2)).retrieveUserIdsPerPilot("TEST");
+    }
+
+    @DisplayName("Get User IDs per Roles: Missing roles are loaded together and failed roles fall back to last known users")
+    @Test
+    void givenPartiallyFailedLookup_whenGetUserIdsPerRoles_thenMergeLoadedAndLastKnownUsers() {
+        // Given
+        when(userManagerClient.retrieveUserIdsPerRole("TECHNICIAN")).thenReturn(List.of("user3"));
+        userDirectoryCache.getUserIdsPerRole("TECHNICIAN");
+        advance(Duration.ofMinutes(11));
+        when(userManagerClient.retrieveUserIdsPerRoles(Set.of("OPERATOR", "TECHNICIAN"))).thenReturn(Map.of("OPERATOR", List.of("user1", "user2")));
+
+        // When
+        List<String> result = userDirectoryCache.getUserIdsPerRoles(List.of("OPERATOR", "TECHNICIAN"));
+
+        // Then - Users are ordered by their interned IDs
+        assertEquals(Set.of("user1", "user2", "user3"), Set.copyOf(result));
+        assertEquals(3, result.size());
+    }
+
+    @DisplayName("Refresh Recipients: Changed users are announced, unchanged users are not")
+    @Test
+    void givenCachedRoles_whenRefreshRecipients_thenPublishChangeOnlyIfUsersChanged() {
+        // Given
+        when(userManagerClient.retrieveUserIdsPerRole("OPERATOR")).thenReturn(List.of("user1"), List.of("user1"), List.of("user1", "user2"));
+        userDirectoryCache.getUserIdsPerRole("OPERATOR");
+
+        // When - Then
+        userDirectoryCache.refreshRecipients();
+        runPendingRefreshes();
+        verify(eventPublisher, times(1)).publishEvent(any(UserDirectoryChangedEvent.class));
+
+        userDirectoryCache.refreshRecipients();
+        runPendingRefreshes();
+        verify(eventPublisher, times(2)).publishEvent(any(UserDirectoryChangedEvent.class));
+        assertEquals(List.of("user1", "user2"), userDirectoryCache.getUserIdsPerRole("OPERATOR"));
+    }
+}
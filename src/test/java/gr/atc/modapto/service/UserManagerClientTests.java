@@ -0,0 +1,227 @@
+package gr.atc.modapto.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import gr.atc.modapto.controller.BaseAppResponse;
+import gr.atc.modapto.dto.UserDto;
+import gr.atc.modapto.security.ComponentTokenManager;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class UserManagerClientTests {
+
+    @Mock
+    private ComponentTokenManager componentTokenManager;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private UserManagerClient userManagerClient;
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private static final String USER_MANAGER_URL = "http://localhost:8080/api/keycloak";
+
+    @BeforeEach
+    void setup() {
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .ignoreExceptions(HttpClientErrorException.class)
+                .build());
+        userManagerClient = new UserManagerClient(restTemplate, componentTokenManager, circuitBreakerRegistry, 4, 500);
+        ReflectionTestUtils.setField(userManagerClient, "userManagerUrl", USER_MANAGER_URL);
+    }
+
+    private static ArgumentMatcher<HttpEntity<?>> hasBearerToken(String token) {
+        return entity -> entity != null && ("Bearer " + token).equals(entity.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User IDs per Role: Success")
+    @Test
+    void givenRole_whenRetrieveUserIdsPerRole_thenReturnUserIds() {
+        // Given
+        List<UserDto> users = List.of(UserDto.builder().userId("user1").build(), UserDto.builder().userId("user2").build());
+        when(componentTokenManager.getToken()).thenReturn("token");
+        when(restTemplate.exchange(eq(USER_MANAGER_URL + "/api/users/role/{role}"), eq(HttpMethod.GET), argThat(hasBearerToken("token")), any(ParameterizedTypeReference.class), eq("OPERATOR")))
+                .thenReturn(ResponseEntity.ok(BaseAppResponse.success(users)));
+
+        // When
+        List<String> result = userManagerClient.retrieveUserIdsPerRole("OPERATOR");
+
+        // Then
+        assertEquals(List.of("user1", "user2"), result);
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User Full Name: Rejected token is refreshed and the request is retried")
+    @Test
+    void givenRejectedToken_whenRetrieveUserFullName_thenRefreshTokenAndRetry() {
+        // Given
+        String requestUrl = USER_MANAGER_URL + "/api/users/search?userId={userId}";
+        UserDto user = UserDto.builder().userId("user1").firstName("Test").lastName("User").build();
+        when(componentTokenManager.getToken()).thenReturn("expired-token");
+        when(componentTokenManager.refreshRejectedToken("expired-token")).thenReturn("new-token");
+        when(restTemplate.exchange(eq(requestUrl), eq(HttpMethod.GET), argThat(hasBearerToken("expired-token")), any(ParameterizedTypeReference.class), eq("user1")))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", HttpHeaders.EMPTY, null, null));
+        when(restTemplate.exchange(eq(requestUrl), eq(HttpMethod.GET), argThat(hasBearerToken("new-token")), any(ParameterizedTypeReference.class), eq("user1")))
+                .thenReturn(ResponseEntity.ok(BaseAppResponse.success(user)));
+
+        // When
+        Optional<String> result = userManagerClient.retrieveUserFullName("user1");
+
+        // Then
+        assertEquals(Optional.of("Test User"), result);
+        verify(componentTokenManager).refreshRejectedToken("expired-token");
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User IDs per Pilot: Missing token is reported as a failure")
+    @Test
+    void givenNoToken_whenRetrieveUserIdsPerPilot_thenThrowRestClientException() {
+        // Given
+        when(componentTokenManager.getToken()).thenReturn(null);
+
+        // When - Then
+        assertThrows(RestClientException.class, () -> userManagerClient.retrieveUserIdsPerPilot("TEST"));
+        verify(restTemplate, never()).exchange(any(String.class), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User Full Names: Single bulk request when supported")
+    @Test
+    void givenBulkLookupPath_whenRetrieveUserFullNames_thenPerformSingleRequest() {
+        // Given
+        ReflectionTestUtils.setField(userManagerClient, "bulkLookupPath", "/api/users/ids");
+        List<UserDto> users = List.of(UserDto.builder().userId("user1").firstName("User").lastName("One").build());
+        when(componentTokenManager.getToken()).thenReturn("token");
+        when(restTemplate.exchange(eq(USER_MANAGER_URL + "/api/users/ids"), eq(HttpMethod.POST), argThat(hasBearerToken("token")), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(BaseAppResponse.success(users)));
+
+        // When
+        Map<String, Optional<String>> result = userManagerClient.retrieveUserFullNames(List.of("user1", "user2"));
+
+        // Then
+        assertEquals(Map.of("user1", Optional.of("User One"), "user2", Optional.empty()), result);
+        verify(restTemplate, never()).exchange(any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User Full Names: Concurrent lookups when bulk lookups are not supported")
+    @Test
+    void givenUnsupportedBulkLookup_whenRetrieveUserFullNames_thenLookUpUsersConcurrently() {
+        // Given
+        ReflectionTestUtils.setField(userManagerClient, "bulkLookupPath", "/api/users/ids");
+        when(componentTokenManager.getToken()).thenReturn("token");
+        when(restTemplate.exchange(eq(USER_MANAGER_URL + "/api/users/ids"), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, null, null));
+        when(restTemplate.exchange(eq(USER_MANAGER_URL + "/api/users/search?userId={userId}"), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), eq("user1")))
+                .thenReturn(ResponseEntity.ok(BaseAppResponse.success(UserDto.builder().userId("user1").firstName("User").build())));
+        when(restTemplate.exchange(eq(USER_MANAGER_URL + "/api/users/search?userId={userId}"), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), eq("user2")))
+                .thenThrow(new RestClientException("User Manager unavailable"));
+
+        // When
+        Map<String, Optional<String>> first = userManagerClient.retrieveUserFullNames(List.of("user1", "user2"));
+        userManagerClient.retrieveUserFullNames(List.of("user1"));
+
+        // Then - Failed lookups are omitted and the bulk endpoint is not requested again
+        assertEquals(Map.of("user1", Optional.of("User")), first);
+        verify(restTemplate, times(1)).exchange(eq(USER_MANAGER_URL + "/api/users/ids"), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User IDs per Role: Requests fail fast once the circuit breaker opens")
+    @Test
+    void givenUnavailableUserManager_whenRetrieveUserIdsPerRole_thenOpenCircuitAndFailFast() {
+        // Given
+        when(componentTokenManager.getToken()).thenReturn("token");
+        when(restTemplate.exchange(any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), any(Object[].class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+        for (int i = 0; i < 4; i++)
+            assertThrows(RestClientException.class, () -> userManagerClient.retrieveUserIdsPerRole("OPERATOR"));
+
+        // When - Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.circuitBreaker("userManager").getState());
+        assertThrows(RestClientException.class, () -> userManagerClient.retrieveUserIdsPerRole("OPERATOR"));
+        verify(restTemplate, times(4)).exchange(any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User Full Name: Client errors do not open the circuit breaker")
+    @Test
+    void givenClientErrors_whenRetrieveUserFullName_thenCircuitStaysClosed() {
+        // Given
+        when(componentTokenManager.getToken()).thenReturn("token");
+        when(restTemplate.exchange(any(String.class), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), any(Object[].class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", HttpHeaders.EMPTY, null, null));
+
+        // When
+        for (int i = 0; i < 4; i++)
+            assertThrows(HttpClientErrorException.class, () -> userManagerClient.retrieveUserFullName("unknown"));
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker("userManager").getState());
+    }
+
+    @SuppressWarnings("unchecked")
+    @DisplayName("Retrieve User IDs per Roles: Lookups exceeding the deadline are cancelled and omitted")
+    @Test
+    void givenSlowRole_whenRetrieveUserIdsPerRoles_thenReturnCompletedRolesWithinDeadline() {
+        // Given
+        when(componentTokenManager.getToken()).thenReturn("token");
+        when(restTemplate.exchange(eq(USER_MANAGER_URL + "/api/users/role/{role}"), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), eq("OPERATOR")))
+                .thenReturn(ResponseEntity.ok(BaseAppResponse.success(List.of(UserDto.builder().userId("user1").build()))));
+        when(restTemplate.exchange(eq(USER_MANAGER_URL + "/api/users/role/{role}"), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), eq("TECHNICIAN")))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(10_000);
+                    return ResponseEntity.ok(BaseAppResponse.success(List.of()));
+                });
+
+        // When
+        long start = System.nanoTime();
+        Map<String, List<String>> result = userManagerClient.retrieveUserIdsPerRoles(List.of("OPERATOR", "TECHNICIAN"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals(Map.of("OPERATOR", List.of("user1")), result);
+        assertTrue(elapsedMillis < 5_000, "Lookups should be cancelled at the deadline");
+    }
+}
@@ -0,0 +1,46 @@
+package gr.atc.modapto.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeterministicIdUtilsTest {
+
+    @DisplayName("Event ID: Same Kafka coordinates produce the same ID")
+    @Test
+    void givenSameCoordinates_whenEventId_thenReturnSameId() {
+        // When
+        String firstId = DeterministicIdUtils.eventId("test-topic", 0, 42L);
+        String secondId = DeterministicIdUtils.eventId("test-topic", 0, 42L);
+
+        // Then
+        assertEquals(firstId, secondId);
+        assertNotEquals(firstId, DeterministicIdUtils.eventId("test-topic", 0, 43L));
+        assertNotEquals(firstId, DeterministicIdUtils.eventId("test-topic", 1, 42L));
+    }
+
+    @DisplayName("Notification ID: Unique per event and user")
+    @Test
+    void givenEventAndUser_whenNotificationId_thenReturnIdPerUser() {
+        // When
+        String firstUserId = DeterministicIdUtils.notificationId("event-1", "user1");
+
+        // Then
+        assertEquals(firstUserId, DeterministicIdUtils.notificationId("event-1", "user1"));
+        assertNotEquals(firstUserId, DeterministicIdUtils.notificationId("event-1", "user2"));
+        assertNotEquals(firstUserId, DeterministicIdUtils.notificationId("event-2", "user1"));
+    }
+
+    @DisplayName("Notification Body ID: Shared by all users of an event")
+    @Test
+    void givenEvent_whenNotificationBodyId_thenReturnIdPerEvent() {
+        // When
+        String bodyId = DeterministicIdUtils.notificationBodyId("event-1");
+
+        // Then
+        assertEquals(bodyId, DeterministicIdUtils.notificationBodyId("event-1"));
+        assertNotEquals(bodyId, DeterministicIdUtils.notificationBodyId("event-2"));
+        assertNotEquals(bodyId, DeterministicIdUtils.notificationId("event-1", "user1"));
+    }
+}